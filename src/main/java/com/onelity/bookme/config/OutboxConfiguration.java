@@ -0,0 +1,56 @@
+package com.onelity.bookme.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.onelity.bookme.outbox.FileOutboxSink;
+import com.onelity.bookme.outbox.HttpOutboxSink;
+import com.onelity.bookme.outbox.InMemoryOutboxSink;
+import com.onelity.bookme.outbox.OutboxSink;
+import java.net.URI;
+import java.nio.file.Path;
+import java.time.Duration;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configures where OutboxRelay sends booking and room changes to, selected through bookme.outbox.sink
+ */
+@Configuration
+public class OutboxConfiguration {
+
+    /**
+     * Appends relayed changes to a JSON lines file
+     *
+     * @return returns the created FileOutboxSink
+     */
+    @Bean
+    @ConditionalOnProperty(name = "bookme.outbox.sink", havingValue = "file", matchIfMissing = true)
+    public OutboxSink fileOutboxSink(@Value("${bookme.outbox.file:logs/outbox.jsonl}") Path file,
+            ObjectMapper objectMapper) {
+        return new FileOutboxSink(file, objectMapper);
+    }
+
+    /**
+     * Posts relayed changes to an HTTP endpoint, e.g. the calendar bridge or a local stand-in for it
+     *
+     * @return returns the created HttpOutboxSink
+     */
+    @Bean
+    @ConditionalOnProperty(name = "bookme.outbox.sink", havingValue = "http")
+    public OutboxSink httpOutboxSink(@Value("${bookme.outbox.http.url}") URI uri,
+            @Value("${bookme.outbox.http.timeout:5s}") Duration timeout, ObjectMapper objectMapper) {
+        return new HttpOutboxSink(uri, timeout, objectMapper);
+    }
+
+    /**
+     * Keeps relayed changes in memory for consumers in the same process
+     *
+     * @return returns the created InMemoryOutboxSink
+     */
+    @Bean
+    @ConditionalOnProperty(name = "bookme.outbox.sink", havingValue = "memory")
+    public InMemoryOutboxSink inMemoryOutboxSink(@Value("${bookme.outbox.memory.capacity:10000}") int capacity) {
+        return new InMemoryOutboxSink(capacity);
+    }
+}
@@ -1,11 +1,20 @@
 package com.onelity.bookme.config;
 
+import com.onelity.bookme.service.BookingArchiveService;
 import com.onelity.bookme.service.BookingService;
+import com.onelity.bookme.service.DataVersionService;
+import com.onelity.bookme.service.IdempotencyService;
+import com.onelity.bookme.service.ReactiveReadService;
+import com.onelity.bookme.service.RecordingService;
 import com.onelity.bookme.service.RoomService;
-import javax.sql.DataSource;
+import com.onelity.bookme.sharding.Shards;
+import com.zaxxer.hikari.HikariDataSource;
+import java.util.List;
 import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.crypto.password.PasswordEncoder;
@@ -19,11 +28,29 @@ public class PersistenceConfiguration {
     @Autowired
     private PasswordEncoder passwordEncoder;
 
+    /**
+     * Creates the Hikari connection pool from the spring.datasource.* connection settings and the
+     * spring.datasource.hikari.* pool settings, so both can be tuned per environment. Pool metrics and leak detection
+     * are configured through the same properties.
+     *
+     * @return returns the created connection pool
+     */
     @Bean
-    public DataSource dataSource() {
-        return DataSourceBuilder.create()
-                .url("jdbc:postgresql://localhost:5432/Bookme-db?currentSchema=public&user=postgres&password=docker")
-                .build();
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource dataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    /**
+     * Creates the locations whose rooms and bookings are stored in a database of their own, see
+     * ShardingConfiguration; there are none unless bookme.sharding.enabled is true
+     *
+     * @return returns the created Shards
+     */
+    @Bean(destroyMethod = "close")
+    public Shards shards(@Value("${bookme.sharding.enabled:false}") boolean enabled,
+            @Value("${bookme.sharding.locations:}") String[] locations) {
+        return new Shards(enabled ? List.of(locations) : List.of());
     }
 
     @Bean
@@ -41,4 +68,29 @@ public class PersistenceConfiguration {
         return new BookingService();
     }
 
+    @Bean
+    public BookingArchiveService bookingArchiveService() {
+        return new BookingArchiveService();
+    }
+
+    @Bean
+    public DataVersionService dataVersionService() {
+        return new DataVersionService();
+    }
+
+    @Bean
+    public IdempotencyService idempotencyService() {
+        return new IdempotencyService();
+    }
+
+    @Bean
+    public ReactiveReadService reactiveReadService() {
+        return new ReactiveReadService();
+    }
+
+    @Bean
+    public RecordingService recordingService() {
+        return new RecordingService();
+    }
+
 }
@@ -0,0 +1,93 @@
+package com.onelity.bookme.config;
+
+import com.onelity.bookme.replica.ReplicaReadFilter;
+import com.onelity.bookme.replica.ReplicaRoutingDataSource;
+import com.onelity.bookme.replica.Replicas;
+import com.zaxxer.hikari.HikariConfigMXBean;
+import com.zaxxer.hikari.HikariDataSource;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javax.sql.DataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.jdbc.DataSourceUnwrapper;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+/**
+ * Sends the reads of GET requests to read replicas of the database when bookme.replicas.enabled is true, and all
+ * writes to the primary. The replicas are configured by bookme.replicas.databases.{name}.url, .username and .password,
+ * and share the spring.datasource.hikari.* pool settings. They receive the schema through replication, so only the
+ * primary is migrated. Replicas cannot be combined with bookme.sharding.enabled.
+ */
+@Configuration
+@ConditionalOnProperty(name = "bookme.replicas.enabled", havingValue = "true")
+public class ReplicaConfiguration {
+
+    /**
+     * Creates the connection pools of the replicas, whose health is checked every
+     * bookme.replicas.health-check-interval
+     *
+     * @return returns the created Replicas
+     */
+    @Bean(destroyMethod = "close")
+    public Replicas replicas(Environment environment, @Value("${bookme.replicas.max-lag:PT10S}") Duration maxLag,
+            @Value("${bookme.sharding.enabled:false}") boolean shardingEnabled) {
+        if (shardingEnabled) {
+            throw new IllegalStateException("bookme.replicas.enabled cannot be combined with bookme.sharding.enabled");
+        }
+        Binder binder = Binder.get(environment);
+        Map<String, DataSourceProperties> databases = binder
+                .bind("bookme.replicas.databases", Bindable.mapOf(String.class, DataSourceProperties.class))
+                .orElseThrow(() -> new IllegalStateException(
+                        "No replica configured, set bookme.replicas.databases.{name}.url"));
+        Map<String, HikariDataSource> pools = new LinkedHashMap<>();
+        databases.forEach((name, properties) -> {
+            HikariDataSource pool = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+            binder.bind("spring.datasource.hikari", Bindable.ofInstance(pool));
+            pool.setPoolName("bookme-replica-" + name);
+            pool.setReadOnly(true);
+            pools.put(name, pool);
+        });
+        return new Replicas(pools, maxLag);
+    }
+
+    /**
+     * Creates the data source used by JPA and JDBC, which routes reads to the replicas. The connection is only
+     * requested once the transaction has started, so that read-only transactions can be told apart. Data source beans
+     * are wrapped by the JDBC observation proxy, so the primary pool is unwrapped again.
+     *
+     * @return returns the created data source
+     */
+    @Bean
+    @Primary
+    public DataSource replicaRoutingDataSource(@Qualifier("dataSource") DataSource dataSource, Replicas replicas) {
+        return new LazyConnectionDataSourceProxy(new ReplicaRoutingDataSource(
+                DataSourceUnwrapper.unwrap(dataSource, HikariConfigMXBean.class, HikariDataSource.class), replicas));
+    }
+
+    /**
+     * Registers the filter letting GET requests read from a replica directly after the security filter chain, so
+     * that only authenticated changes make their client read from the primary
+     *
+     * @return returns the filter registration
+     */
+    @Bean
+    public FilterRegistrationBean<ReplicaReadFilter> replicaReadFilter(Replicas replicas,
+            @Value("${bookme.replicas.read-your-writes:PT5S}") Duration readYourWrites) {
+        FilterRegistrationBean<ReplicaReadFilter> registration = new FilterRegistrationBean<>(
+                new ReplicaReadFilter(replicas, readYourWrites));
+        registration.setOrder(SecurityProperties.DEFAULT_FILTER_ORDER + 1);
+        return registration;
+    }
+}
@@ -0,0 +1,14 @@
+package com.onelity.bookme.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Enables the scheduled jobs of the application: the outbox relay, room deletion, booking archive and partitions,
+ * idempotency key eviction and replica health checks. They run on a pool of spring.task.scheduling.pool.size threads,
+ * so that a job waiting on a slow sink, a long archive run or an unreachable replica does not hold up the others.
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfiguration {
+}
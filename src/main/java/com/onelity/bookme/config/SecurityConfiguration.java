@@ -2,6 +2,8 @@ package com.onelity.bookme.config;
 
 import static org.springframework.security.config.Customizer.withDefaults;
 
+import org.springframework.boot.actuate.autoconfigure.security.servlet.EndpointRequest;
+import org.springframework.boot.actuate.health.HealthEndpoint;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
@@ -22,13 +24,17 @@ public class SecurityConfiguration {
 
     /**
      * Creates a security filter chain so that all requests require authentication and http basic authentication will be
-     * used
+     * used. The health endpoint is left open for load balancer probes, while every other actuator endpoint (including
+     * the Prometheus scrape endpoint) requires the ADMIN role
      *
      * @return returns the created SecurityFilterChain
      */
     @Bean
     public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
-        http.csrf(AbstractHttpConfigurer::disable).authorizeHttpRequests((auth -> auth.anyRequest().authenticated()))
+        http.csrf(AbstractHttpConfigurer::disable)
+                .authorizeHttpRequests((auth -> auth.requestMatchers(EndpointRequest.to(HealthEndpoint.class))
+                        .permitAll().requestMatchers(EndpointRequest.toAnyEndpoint()).hasRole("ADMIN").anyRequest()
+                        .authenticated()))
                 .httpBasic(withDefaults());
         return http.build();
     }
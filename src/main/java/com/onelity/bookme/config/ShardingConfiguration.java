@@ -0,0 +1,122 @@
+package com.onelity.bookme.config;
+
+import com.onelity.bookme.sharding.LocationRoutingDataSource;
+import com.onelity.bookme.sharding.Shards;
+import com.zaxxer.hikari.HikariConfigMXBean;
+import com.zaxxer.hikari.HikariDataSource;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import javax.sql.DataSource;
+import org.flywaydb.core.Flyway;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.jdbc.DataSourceUnwrapper;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+/**
+ * Stores the rooms and bookings of each location in a database of its own when bookme.sharding.enabled is true, so
+ * that the booking traffic of each office goes to its own database. The databases of the locations in
+ * bookme.sharding.locations are configured by bookme.sharding.shards.{location in lower case}.url, .username and
+ * .password, and share the spring.datasource.hikari.* pool settings. Each of them gets the full schema, as bookings
+ * reference their creator; users live in the default database, which authenticates them, and are copied to the
+ * database of a location when they change its bookings. Room names are claimed in the default database, so they stay
+ * unique across locations. Two local databases can stand in for two offices.
+ */
+@Configuration
+@ConditionalOnProperty(name = "bookme.sharding.enabled", havingValue = "true")
+public class ShardingConfiguration {
+
+    /** Sequences of the ids which tell their location, see Shards.ID_BITS */
+    private static final List<String> ID_SEQUENCES = List.of("meeting_rooms_id_seq", "bookings_id_seq",
+            "room_deletion_jobs_id_seq");
+
+    /**
+     * Creates the data source used by JPA and JDBC, which routes to the database of the current location. Data source
+     * beans are wrapped by the JDBC observation proxy, so the default pool is unwrapped again; otherwise statements on
+     * the default database would be observed twice.
+     *
+     * @return returns the created LocationRoutingDataSource
+     */
+    @Bean(destroyMethod = "close")
+    @Primary
+    public LocationRoutingDataSource locationRoutingDataSource(@Qualifier("dataSource") DataSource dataSource,
+            Shards shards, Environment environment) {
+        if (!shards.isEnabled()) {
+            throw new IllegalStateException("bookme.sharding.locations must name at least one location");
+        }
+        Binder binder = Binder.get(environment);
+        Map<String, HikariDataSource> pools = new LinkedHashMap<>();
+        for (String location : shards.getLocations()) {
+            String prefix = "bookme.sharding.shards." + location.toLowerCase(Locale.ROOT);
+            DataSourceProperties properties = binder.bind(prefix, DataSourceProperties.class)
+                    .orElseThrow(() -> new IllegalStateException("No database configured for location " + location
+                            + ", set " + prefix + ".url"));
+            HikariDataSource pool = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+            binder.bind("spring.datasource.hikari", Bindable.ofInstance(pool));
+            pool.setPoolName("bookme-" + location);
+            pools.put(location, pool);
+        }
+        return new LocationRoutingDataSource(
+                DataSourceUnwrapper.unwrap(dataSource, HikariConfigMXBean.class, HikariDataSource.class), pools);
+    }
+
+    /**
+     * Migrates the database of each location along with the default one, restricts the ids created in it to the range
+     * of its location, and claims the names of its rooms in the default database
+     *
+     * @return returns the migration strategy used by Flyway
+     */
+    @Bean
+    public FlywayMigrationStrategy shardMigrationStrategy(
+            @Qualifier("locationRoutingDataSource") DataSource dataSource, Shards shards) throws SQLException {
+        // Unwrapped through JDBC, as DataSourceUnwrapper only unwraps to interfaces
+        LocationRoutingDataSource locationRoutingDataSource = dataSource.unwrap(LocationRoutingDataSource.class);
+        return flyway -> {
+            flyway.migrate();
+            for (Map.Entry<String, HikariDataSource> shard : locationRoutingDataSource.getShards().entrySet()) {
+                Flyway.configure().configuration(flyway.getConfiguration()).dataSource(shard.getValue()).load()
+                        .migrate();
+                reserveIds(shard.getValue(), shards.firstId(shard.getKey()), shards.lastId(shard.getKey()));
+                claimRoomNames(shard.getValue(), flyway.getConfiguration().getDataSource());
+            }
+        };
+    }
+
+    /**
+     * Restricts the ids created in a database to a range, restarting the sequences which lie outside of it
+     */
+    static void reserveIds(DataSource dataSource, long first, long last) {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        for (String sequence : ID_SEQUENCES) {
+            long current = jdbcTemplate.queryForObject("SELECT last_value FROM public." + sequence, Long.class);
+            String restart = current < first || current > last ? " RESTART WITH " + first : "";
+            jdbcTemplate.execute("ALTER SEQUENCE public." + sequence + " MINVALUE " + first + " MAXVALUE " + last
+                    + " START WITH " + first + restart);
+        }
+    }
+
+    /**
+     * Claims the names of the rooms of a location which are not claimed yet, e.g. rooms created before the names were
+     * claimed, see RoomNameRepository
+     */
+    private static void claimRoomNames(DataSource shard, DataSource defaultDataSource) {
+        JdbcTemplate defaultDatabase = new JdbcTemplate(defaultDataSource);
+        new JdbcTemplate(shard).query("SELECT name, location, id FROM public.meeting_rooms",
+                (RowCallbackHandler) row -> defaultDatabase.update(
+                        "INSERT INTO public.room_names (name, location, room) VALUES (?, ?, ?) "
+                                + "ON CONFLICT (name) DO NOTHING",
+                        row.getString("name"), row.getString("location"), row.getLong("id")));
+    }
+}
@@ -0,0 +1,60 @@
+package com.onelity.bookme.config;
+
+import com.onelity.bookme.tracing.InMemorySpanExporter;
+import com.onelity.bookme.tracing.TraceIdHeaderFilter;
+import io.micrometer.tracing.Tracer;
+import io.opentelemetry.exporter.logging.otlp.OtlpJsonLoggingSpanExporter;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+/**
+ * Configures where finished spans are exported to. Spans for HTTP requests, the security filter chain, service stages
+ * and JDBC statements are created by the observation auto-configuration; the sampling rate is set through
+ * management.tracing.sampling.probability.
+ */
+@Configuration
+public class TracingConfiguration {
+
+    /**
+     * Exports spans as OTLP JSON lines through the logger of the exporter, which logback-spring.xml routes to the
+     * traces file
+     *
+     * @return returns the created SpanExporter
+     */
+    @Bean
+    @ConditionalOnProperty(name = "bookme.tracing.exporter", havingValue = "file", matchIfMissing = true)
+    public SpanExporter otlpJsonFileSpanExporter() {
+        return OtlpJsonLoggingSpanExporter.create();
+    }
+
+    /**
+     * Keeps the most recent spans in memory instead of writing them anywhere, where admins can read them through
+     * TraceController
+     *
+     * @return returns the created InMemorySpanExporter
+     */
+    @Bean
+    @ConditionalOnProperty(name = "bookme.tracing.exporter", havingValue = "memory")
+    public InMemorySpanExporter inMemorySpanExporter(@Value("${bookme.tracing.memory.capacity:10000}") int capacity) {
+        return new InMemorySpanExporter(capacity);
+    }
+
+    /**
+     * Registers the filter adding the X-Trace-Id header directly after the HTTP server observation filter, so the
+     * header is present on every response, including those rejected by the security filter chain
+     *
+     * @return returns the filter registration
+     */
+    @Bean
+    public FilterRegistrationBean<TraceIdHeaderFilter> traceIdHeaderFilter(Tracer tracer) {
+        FilterRegistrationBean<TraceIdHeaderFilter> registration = new FilterRegistrationBean<>(
+                new TraceIdHeaderFilter(tracer));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 2);
+        return registration;
+    }
+}
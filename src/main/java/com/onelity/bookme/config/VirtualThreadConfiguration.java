@@ -0,0 +1,51 @@
+package com.onelity.bookme.config;
+
+import com.onelity.bookme.jfr.PinnedThreadMonitor;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Runs request handling on virtual threads when bookme.threads.virtual.enabled is true. Every request then gets its own
+ * virtual thread instead of one of the server.tomcat.threads.max platform threads, so requests blocked on BCrypt, the
+ * connection pool or Postgres no longer cap concurrency; the Hikari pool size becomes the limit for database work. When
+ * a virtual thread is pinned to its carrier by a synchronized block or a native frame, PinnedThreadMonitor reports it.
+ */
+@Configuration
+@ConditionalOnProperty(name = "bookme.threads.virtual.enabled", havingValue = "true")
+public class VirtualThreadConfiguration {
+
+    /**
+     * Creates the executor that starts one named virtual thread per request
+     *
+     * @return returns the created executor
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService virtualThreadRequestExecutor() {
+        return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("http-vt-", 0).factory());
+    }
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer(
+            ExecutorService virtualThreadRequestExecutor) {
+        return protocolHandler -> protocolHandler.setExecutor(virtualThreadRequestExecutor);
+    }
+
+    /**
+     * Creates the monitor reporting virtual threads that stay pinned to their carrier thread for longer than
+     * bookme.threads.virtual.pinned-threshold
+     *
+     * @return returns the created PinnedThreadMonitor
+     */
+    @Bean(initMethod = "start", destroyMethod = "close")
+    public PinnedThreadMonitor pinnedThreadMonitor(MeterRegistry registry,
+            @Value("${bookme.threads.virtual.pinned-threshold:20ms}") Duration threshold) {
+        return new PinnedThreadMonitor(registry, threshold);
+    }
+}
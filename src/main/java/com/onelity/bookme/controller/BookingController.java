@@ -1,16 +1,30 @@
 package com.onelity.bookme.controller;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.onelity.bookme.dto.BookingChangesDTO;
 import com.onelity.bookme.dto.BookingDTO;
+import com.onelity.bookme.dto.BulkDeleteDTO;
 import com.onelity.bookme.exception.BookingNotFoundException;
+import com.onelity.bookme.exception.ChangesExpiredException;
 import com.onelity.bookme.exception.ConflictingBookingsException;
 import com.onelity.bookme.exception.InvalidBookingException;
+import com.onelity.bookme.exception.PreconditionFailedException;
+import com.onelity.bookme.exception.RejectionException;
 import com.onelity.bookme.exception.UnauthorizedUserException;
+import com.onelity.bookme.metrics.BookingMetrics;
 import com.onelity.bookme.service.BookingService;
+import com.onelity.bookme.service.IdempotencyService;
+import com.onelity.bookme.stream.ChangeBroadcaster;
+import java.time.LocalDate;
 import java.util.List;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 /**
  * Controller for /bookings endpoint which directs all requests to methods implemented in bookingService module
@@ -21,21 +35,101 @@ public class BookingController {
     @Autowired
     private BookingService bookingService;
 
+    @Autowired
+    private BookingMetrics metrics;
+
+    @Autowired
+    private ChangeBroadcaster changeBroadcaster;
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
     @GetMapping
     @RequestMapping("{id}")
     public ResponseEntity<BookingDTO> getBooking(@PathVariable Long id) throws Exception {
         return bookingService.getBookingFromDatabase(id);
     }
 
+    /**
+     * Gets all bookings, or only those matching the given filters
+     *
+     * @param room
+     *            optional id of a room to only get the bookings of that room
+     * @param from
+     *            optional first date, e.g. 2000-01-01, to only get bookings occurring on or after it
+     * @param to
+     *            optional last date to only get bookings occurring on or before it
+     * @param creator
+     *            optional username, or 'me', to only get the bookings created by that user
+     * @param includeArchived
+     *            optional, true to also get bookings which were archived because they ended long ago
+     *
+     * @return returns the matching bookings ordered by start date and time
+     */
     @GetMapping
-    public ResponseEntity<List<BookingDTO>> getAllBookings() {
-        return bookingService.getAllBookingsFromDatabase();
+    public ResponseEntity<List<BookingDTO>> getAllBookings(WebRequest request,
+            @RequestParam(required = false) Long room,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) String creator,
+            @RequestParam(defaultValue = "false") boolean includeArchived) throws Exception {
+        return bookingService.getAllBookingsFromDatabase(request, room, from, to, creator, includeArchived);
+    }
+
+    /**
+     * Gets several bookings by id at once, e.g. /bookings?ids=1,2,3
+     *
+     * @param ids
+     *            ids of the bookings, at most 100
+     *
+     * @return returns the found bookings in the order of the ids, and the ids which were not found in the
+     *         X-Missing-Ids header
+     */
+    @GetMapping(params = "ids")
+    public ResponseEntity<List<BookingDTO>> getBookingsById(WebRequest request, @RequestParam List<Long> ids)
+            throws Exception {
+        return bookingService.getBookingsByIdFromDatabase(request, ids);
+    }
+
+    /**
+     * Gets the bookings created, updated or deleted since the version returned by a previous call
+     *
+     * @param since
+     *            version returned by the previous call, or 0 to get all bookings
+     *
+     * @return returns the changed bookings, ids of deleted bookings and the version to pass next time
+     */
+    @GetMapping("changes")
+    public ResponseEntity<BookingChangesDTO> getBookingChanges(@RequestParam(defaultValue = "0") Long since)
+            throws Exception {
+        return bookingService.getBookingChangesFromDatabase(since);
+    }
+
+    /**
+     * Streams the changes of bookings and rooms as server-sent events, as they are committed
+     *
+     * @param room
+     *            optional id of a room to only receive the changes of that room and its bookings
+     * @param location
+     *            optional location to only receive the changes of rooms in that location and their bookings
+     * @param lastEventId
+     *            sent by reconnecting clients to resume after the last change they received
+     *
+     * @return returns the emitter streaming the changes
+     */
+    @GetMapping(value = "stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamChanges(@RequestParam(required = false) Long room,
+            @RequestParam(required = false) String location,
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        return changeBroadcaster.subscribe(room, location, lastEventId);
     }
 
     @PostMapping
     @ResponseBody
-    public ResponseEntity<BookingDTO> createBooking(@RequestBody BookingDTO bookingDTO) throws Exception {
-        return bookingService.createBookingInDatabase(bookingDTO);
+    public ResponseEntity<BookingDTO> createBooking(@RequestBody BookingDTO bookingDTO,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) throws Exception {
+        return idempotencyService.execute("create-booking", idempotencyKey, bookingDTO, BookingDTO.class,
+                () -> bookingService.createBookingInDatabase(bookingDTO));
     }
 
     @RequestMapping(value = "{id}", method = RequestMethod.DELETE)
@@ -44,10 +138,51 @@ public class BookingController {
         bookingService.deleteBookingInDatabase(id);
     }
 
+    /**
+     * Deletes all bookings matching the given filters at once, e.g. the bookings of a cancelled series. Users who are
+     * not admins can only delete their own bookings.
+     *
+     * @param room
+     *            optional id of a room to only delete the bookings of that room
+     * @param from
+     *            optional first date, e.g. 2000-01-01, to only delete bookings starting on or after it
+     * @param to
+     *            optional last date, e.g. 2000-01-31, to only delete bookings ending on or before it
+     * @param creator
+     *            optional username, or 'me' for the current user, to only delete the bookings created by that user
+     *
+     * @return returns the number of deleted bookings
+     */
+    @DeleteMapping
+    public ResponseEntity<BulkDeleteDTO> deleteBookings(@RequestParam(required = false) Long room,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) String creator) throws Exception {
+        return bookingService.deleteBookingsInDatabase(room, from, to, creator);
+    }
+
     @RequestMapping(value = "{id}", method = RequestMethod.PUT)
-    public ResponseEntity<BookingDTO> update(@PathVariable Long id, @RequestBody BookingDTO bookingDTO)
-            throws Exception {
-        return bookingService.updateBookingInDatabase(id, bookingDTO);
+    public ResponseEntity<BookingDTO> update(@PathVariable Long id, @RequestBody BookingDTO bookingDTO,
+            @RequestHeader(value = "If-Match", required = false) String ifMatch) throws Exception {
+        return bookingService.updateBookingInDatabase(id, bookingDTO, ifMatch);
+    }
+
+    /**
+     * Changes only the given fields of a booking, as a JSON Merge Patch, e.g. {"title": "Retro"}
+     *
+     * @param id
+     *            id of the booking to change
+     * @param patch
+     *            the fields to change and their new values
+     * @param ifMatch
+     *            optional ETag of the version the client read, to fail if the booking changed since
+     *
+     * @return returns the changed booking and its new ETag
+     */
+    @PatchMapping(value = "{id}", consumes = { "application/merge-patch+json", MediaType.APPLICATION_JSON_VALUE })
+    public ResponseEntity<BookingDTO> patchBooking(@PathVariable Long id, @RequestBody JsonNode patch,
+            @RequestHeader(value = "If-Match", required = false) String ifMatch) throws Exception {
+        return bookingService.patchBookingInDatabase(id, patch, ifMatch);
     }
 
     /**
@@ -64,21 +199,53 @@ public class BookingController {
         return ResponseEntity.status(HttpStatus.NOT_FOUND).body(exception.getMessage());
     }
 
+    /**
+     * Handles PreconditionFailed exceptions when the If-Match header of an update does not match the current version
+     *
+     * @param exception
+     *            the exception thrown when the booking was changed since the client read it
+     *
+     * @return response entity with Precondition Failed status and exception message
+     */
+    @ExceptionHandler(PreconditionFailedException.class)
+    public ResponseEntity<String> handlePreconditionFailedException(PreconditionFailedException exception) {
+        return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).body(exception.getMessage());
+    }
+
+    /**
+     * Handles ChangesExpired exceptions when bookings were deleted for good since the version a client syncs from
+     *
+     * @param exception
+     *            the exception thrown when the changes since the requested version cannot be listed
+     *
+     * @return response entity with Gone status and exception message
+     */
+    @ExceptionHandler(ChangesExpiredException.class)
+    public ResponseEntity<String> handleChangesExpiredException(ChangesExpiredException exception) {
+        return ResponseEntity.status(HttpStatus.GONE).body(exception.getMessage());
+    }
+
     @ExceptionHandler(InvalidBookingException.class)
     @ResponseStatus(HttpStatus.BAD_REQUEST)
     public ResponseEntity<String> handleInvalidBookingException(InvalidBookingException exception) {
-        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(exception.getMessage());
+        metrics.invalidBookingRejected();
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .header(RejectionException.CODE_HEADER, exception.getCode()).body(exception.getMessage());
     }
 
     @ExceptionHandler(ConflictingBookingsException.class)
     @ResponseStatus(HttpStatus.CONFLICT)
     public ResponseEntity<String> handleConflictingBookingsException(ConflictingBookingsException exception) {
-        return ResponseEntity.status(HttpStatus.CONFLICT).body(exception.getMessage());
+        metrics.conflictingBookingsRejected();
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .header(RejectionException.CODE_HEADER, exception.getCode()).body(exception.getMessage());
     }
 
     @ExceptionHandler(UnauthorizedUserException.class)
     @ResponseStatus(HttpStatus.UNAUTHORIZED)
     public ResponseEntity<String> handleUnauthorizedUserException(UnauthorizedUserException exception) {
-        return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(exception.getMessage());
+        metrics.unauthorizedUserRejected();
+        return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                .header(RejectionException.CODE_HEADER, exception.getCode()).body(exception.getMessage());
     }
 }
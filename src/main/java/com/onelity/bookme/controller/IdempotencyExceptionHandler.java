@@ -0,0 +1,58 @@
+package com.onelity.bookme.controller;
+
+import com.onelity.bookme.exception.IdempotencyKeyInProgressException;
+import com.onelity.bookme.exception.IdempotencyKeyMismatchException;
+import com.onelity.bookme.exception.InvalidIdempotencyKeyException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+
+/**
+ * Handles the exceptions of IdempotencyService for every controller whose POST requests accept an Idempotency-Key
+ * header
+ */
+@ControllerAdvice
+public class IdempotencyExceptionHandler {
+
+    /**
+     * Handles InvalidIdempotencyKey exceptions when the Idempotency-Key header is blank or too long
+     *
+     * @param exception
+     *            the exception thrown when the key is not valid
+     *
+     * @return response entity with Bad Request status and exception message
+     */
+    @ExceptionHandler(InvalidIdempotencyKeyException.class)
+    public ResponseEntity<String> handleInvalidIdempotencyKeyException(InvalidIdempotencyKeyException exception) {
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(exception.getMessage());
+    }
+
+    /**
+     * Handles IdempotencyKeyMismatch exceptions when an Idempotency-Key is reused with a different request body
+     *
+     * @param exception
+     *            the exception thrown when the request does not match the one stored for the key
+     *
+     * @return response entity with Unprocessable Entity status and exception message
+     */
+    @ExceptionHandler(IdempotencyKeyMismatchException.class)
+    public ResponseEntity<String> handleIdempotencyKeyMismatchException(IdempotencyKeyMismatchException exception) {
+        return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY).body(exception.getMessage());
+    }
+
+    /**
+     * Handles IdempotencyKeyInProgress exceptions when a request with the same Idempotency-Key is still running on
+     * another instance, or for longer than bookme.idempotency.wait-timeout on this one
+     *
+     * @param exception
+     *            the exception thrown when the key is locked by another request
+     *
+     * @return response entity with Conflict status and exception message
+     */
+    @ExceptionHandler(IdempotencyKeyInProgressException.class)
+    public ResponseEntity<String> handleIdempotencyKeyInProgressException(
+            IdempotencyKeyInProgressException exception) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(exception.getMessage());
+    }
+}
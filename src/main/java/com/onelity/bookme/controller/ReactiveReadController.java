@@ -0,0 +1,73 @@
+package com.onelity.bookme.controller;
+
+import com.onelity.bookme.dto.BookingDTO;
+import com.onelity.bookme.dto.RoomDTO;
+import com.onelity.bookme.exception.BookingNotFoundException;
+import com.onelity.bookme.exception.InvalidBookingException;
+import com.onelity.bookme.exception.RejectionException;
+import com.onelity.bookme.exception.RoomNotFoundException;
+import com.onelity.bookme.service.ReactiveReadService;
+import java.time.LocalDate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Controller for the read-only /reactive endpoints which directs all requests to methods implemented in the
+ * reactiveReadService module. Requests are handled asynchronously, so the request thread is released while the results
+ * are read from the database. Lists are returned as a JSON array, or streamed one element at a time when the client
+ * accepts application/x-ndjson or text/event-stream. Changes are made through /meeting-rooms and /bookings.
+ */
+@RestController
+@RequestMapping("/reactive")
+public class ReactiveReadController {
+
+    @Autowired
+    private ReactiveReadService reactiveReadService;
+
+    @GetMapping("meeting-rooms/{id}")
+    public Mono<RoomDTO> getRoom(@PathVariable Long id) {
+        return reactiveReadService.getRoom(id);
+    }
+
+    @GetMapping("meeting-rooms")
+    public Flux<RoomDTO> getAllRooms() {
+        return reactiveReadService.getAllRooms();
+    }
+
+    @GetMapping("meeting-rooms/{id}/availability")
+    public Flux<BookingDTO> getRoomAvailability(@PathVariable Long id,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+        return reactiveReadService.getRoomAvailability(id, date);
+    }
+
+    @GetMapping("bookings/{id}")
+    public Mono<BookingDTO> getBooking(@PathVariable Long id) {
+        return reactiveReadService.getBooking(id);
+    }
+
+    @GetMapping("bookings")
+    public Flux<BookingDTO> getAllBookings() {
+        return reactiveReadService.getAllBookings();
+    }
+
+    @ExceptionHandler(RoomNotFoundException.class)
+    public ResponseEntity<String> handleRoomNotFoundException(RoomNotFoundException exception) {
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(exception.getMessage());
+    }
+
+    @ExceptionHandler(BookingNotFoundException.class)
+    public ResponseEntity<String> handleBookingNotFoundException(BookingNotFoundException exception) {
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(exception.getMessage());
+    }
+
+    @ExceptionHandler(InvalidBookingException.class)
+    public ResponseEntity<String> handleInvalidBookingException(InvalidBookingException exception) {
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .header(RejectionException.CODE_HEADER, exception.getCode()).body(exception.getMessage());
+    }
+}
@@ -0,0 +1,109 @@
+package com.onelity.bookme.controller;
+
+import com.onelity.bookme.dto.RecordingDTO;
+import com.onelity.bookme.exception.RecordingNotFoundException;
+import com.onelity.bookme.service.RecordingService;
+import java.io.InputStream;
+import java.nio.file.NoSuchFileException;
+import java.time.Duration;
+import java.util.List;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.InputStreamResource;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.access.annotation.Secured;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * Controller for /admin/recordings endpoint which lets admins start, stop, download and discard JDK Flight Recorder
+ * recordings of the running application. All mappings are secured such that only users with the ADMIN role can access
+ * them.
+ */
+@RestController
+@RequestMapping("/admin/recordings")
+public class RecordingController {
+
+    @Autowired
+    private RecordingService recordingService;
+
+    @PostMapping
+    @Secured("ROLE_ADMIN")
+    public ResponseEntity<RecordingDTO> startRecording(@RequestParam(defaultValue = "default") String settings,
+            @RequestParam(required = false) Duration duration) throws Exception {
+        return recordingService.startRecording(settings, duration);
+    }
+
+    @PostMapping("{id}/stop")
+    @Secured("ROLE_ADMIN")
+    public ResponseEntity<RecordingDTO> stopRecording(@PathVariable Long id) throws Exception {
+        return recordingService.stopRecording(id);
+    }
+
+    @GetMapping
+    @Secured("ROLE_ADMIN")
+    public ResponseEntity<List<RecordingDTO>> getAllRecordings() {
+        return recordingService.getAllRecordings();
+    }
+
+    /**
+     * Downloads the data recorded so far as a .jfr file that can be opened in JDK Mission Control or with the jfr tool
+     *
+     * @param id
+     *            id of the recording
+     *
+     * @return returns response entity with the recording file as body
+     *
+     * @throws Exception
+     *             if the recording does not exist or could not be written
+     */
+    @GetMapping("{id}")
+    @Secured("ROLE_ADMIN")
+    public ResponseEntity<InputStreamResource> downloadRecording(@PathVariable Long id) throws Exception {
+        InputStream recording = recordingService.dumpRecording(id);
+        ContentDisposition disposition = ContentDisposition.attachment().filename("bookme-" + id + ".jfr").build();
+        return ResponseEntity.ok().header(HttpHeaders.CONTENT_DISPOSITION, disposition.toString())
+                .contentType(MediaType.APPLICATION_OCTET_STREAM).body(new InputStreamResource(recording));
+    }
+
+    @DeleteMapping("{id}")
+    @Secured("ROLE_ADMIN")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void closeRecording(@PathVariable Long id) throws Exception {
+        recordingService.closeRecording(id);
+    }
+
+    @ExceptionHandler(RecordingNotFoundException.class)
+    public ResponseEntity<String> handleRecordingNotFoundException(RecordingNotFoundException exception) {
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(exception.getMessage());
+    }
+
+    /**
+     * Handles unknown recording settings
+     *
+     * @param exception
+     *            exception thrown when the settings name is neither 'default' nor 'profile'
+     *
+     * @return returns response entity with Bad Request status and exception message
+     */
+    @ExceptionHandler(NoSuchFileException.class)
+    public ResponseEntity<String> handleUnknownSettings(NoSuchFileException exception) {
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(exception.getMessage());
+    }
+
+    /**
+     * Converts 403 response codes to 401 for improper authentications
+     *
+     * @param exception
+     *            Exception thrown when uses is not authenticated correctly
+     *
+     * @return Returns response entity with Unauthorized status and original exception message
+     */
+    @ExceptionHandler(AccessDeniedException.class)
+    public ResponseEntity<String> handleForbiddenException(AccessDeniedException exception) {
+        return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(exception.getMessage());
+    }
+}
@@ -1,17 +1,26 @@
 package com.onelity.bookme.controller;
 
+import com.onelity.bookme.dto.OccurrenceDTO;
 import com.onelity.bookme.dto.RoomDTO;
+import com.onelity.bookme.dto.RoomDeletionJobDTO;
+import com.onelity.bookme.exception.DeletionJobNotFoundException;
 import com.onelity.bookme.exception.InvalidRoomException;
+import com.onelity.bookme.exception.PreconditionFailedException;
+import com.onelity.bookme.exception.RejectionException;
 import com.onelity.bookme.exception.RoomNotFoundException;
+import com.onelity.bookme.service.IdempotencyService;
 import com.onelity.bookme.service.RoomService;
+import java.time.LocalDate;
 import java.util.List;
 import org.postgresql.util.PSQLException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.access.annotation.Secured;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 /**
  * Controller for /meeting-rooms endpoint which directs all requests to methods implemented in roomService module. The
@@ -24,6 +33,9 @@ public class RoomController {
     @Autowired
     private RoomService roomService;
 
+    @Autowired
+    private IdempotencyService idempotencyService;
+
     @GetMapping
     @RequestMapping("{id}")
     public ResponseEntity<RoomDTO> getRoom(@PathVariable Long id) throws Exception {
@@ -31,28 +43,87 @@ public class RoomController {
     }
 
     @GetMapping
-    public ResponseEntity<List<RoomDTO>> getAllRooms() {
-        return roomService.getAllRoomsFromDatabase();
+    public ResponseEntity<List<RoomDTO>> getAllRooms(WebRequest request) {
+        return roomService.getAllRoomsFromDatabase(request);
+    }
+
+    /**
+     * Gets several rooms by id at once, e.g. /meeting-rooms?ids=1,2,3
+     *
+     * @param ids
+     *            ids of the rooms, at most 100
+     *
+     * @return returns the found rooms in the order of the ids, and the ids which were not found in the X-Missing-Ids
+     *         header
+     */
+    @GetMapping(params = "ids")
+    public ResponseEntity<List<RoomDTO>> getRoomsById(WebRequest request, @RequestParam List<Long> ids)
+            throws Exception {
+        return roomService.getRoomsByIdFromDatabase(request, ids);
+    }
+
+    /**
+     * Gets the bookings of a room within a window of dates, with repeating bookings expanded to one occurrence per date
+     *
+     * @param id
+     *            id of the room
+     * @param from
+     *            first date of the window, e.g. 2000-01-03
+     * @param to
+     *            last date of the window, e.g. 2000-01-09
+     *
+     * @return returns the occurrences ordered by date and start time
+     */
+    @GetMapping("{id}/calendar")
+    public ResponseEntity<List<OccurrenceDTO>> getRoomCalendar(@PathVariable Long id,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) throws Exception {
+        return roomService.getRoomCalendarFromDatabase(id, from, to);
     }
 
     @PostMapping
     @ResponseBody
     @Secured("ROLE_ADMIN")
-    public ResponseEntity<RoomDTO> createRoom(@RequestBody RoomDTO roomDTO) throws Exception {
-        return roomService.createRoomInDatabase(roomDTO);
+    public ResponseEntity<RoomDTO> createRoom(@RequestBody RoomDTO roomDTO,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) throws Exception {
+        return idempotencyService.execute("create-room", idempotencyKey, roomDTO, RoomDTO.class,
+                () -> roomService.createRoomInDatabase(roomDTO));
     }
 
+    /**
+     * Deletes a room along with its bookings. A room with bookings is marked unavailable right away and its bookings
+     * are deleted in the background.
+     *
+     * @param id
+     *            id of the room
+     *
+     * @return returns No Content if the room was deleted, or Accepted with the deletion job and its location
+     */
     @RequestMapping(value = "{id}", method = RequestMethod.DELETE)
     @Secured("ROLE_ADMIN")
-    @ResponseStatus(HttpStatus.NO_CONTENT)
-    public void deleteRoom(@PathVariable Long id) {
-        roomService.deleteRoomInDatabase(id);
+    public ResponseEntity<RoomDeletionJobDTO> deleteRoom(@PathVariable Long id) throws Exception {
+        return roomService.deleteRoomInDatabase(id);
+    }
+
+    /**
+     * Gets the progress of a room deletion
+     *
+     * @param id
+     *            id of the deletion job returned when deleting the room
+     *
+     * @return returns the status of the job and the number of bookings deleted so far
+     */
+    @GetMapping("deletions/{id}")
+    @Secured("ROLE_ADMIN")
+    public ResponseEntity<RoomDeletionJobDTO> getRoomDeletion(@PathVariable Long id) throws Exception {
+        return roomService.getRoomDeletionJobFromDatabase(id);
     }
 
     @RequestMapping(value = "{id}", method = RequestMethod.PUT)
     @Secured("ROLE_ADMIN")
-    public ResponseEntity<RoomDTO> update(@PathVariable Long id, @RequestBody RoomDTO roomDTO) throws Exception {
-        return roomService.updateRoomInDatabase(id, roomDTO);
+    public ResponseEntity<RoomDTO> update(@PathVariable Long id, @RequestBody RoomDTO roomDTO,
+            @RequestHeader(value = "If-Match", required = false) String ifMatch) throws Exception {
+        return roomService.updateRoomInDatabase(id, roomDTO, ifMatch);
     }
 
     /**
@@ -69,10 +140,37 @@ public class RoomController {
         return ResponseEntity.status(HttpStatus.NOT_FOUND).body(exception.getMessage());
     }
 
+    /**
+     * Handles DeletionJobNotFound exceptions when room deletions with nonexistent ids are searched for
+     *
+     * @param exception
+     *            the exception thrown when the repository attempts to get a nonpresent deletion job
+     *
+     * @return response entity with NotFound status and exception message
+     */
+    @ExceptionHandler(DeletionJobNotFoundException.class)
+    public ResponseEntity<String> handleDeletionJobNotFoundException(DeletionJobNotFoundException exception) {
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(exception.getMessage());
+    }
+
+    /**
+     * Handles PreconditionFailed exceptions when the If-Match header of an update does not match the current version
+     *
+     * @param exception
+     *            the exception thrown when the room was changed since the client read it
+     *
+     * @return response entity with Precondition Failed status and exception message
+     */
+    @ExceptionHandler(PreconditionFailedException.class)
+    public ResponseEntity<String> handlePreconditionFailedException(PreconditionFailedException exception) {
+        return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).body(exception.getMessage());
+    }
+
     @ExceptionHandler(InvalidRoomException.class)
     @ResponseStatus(HttpStatus.BAD_REQUEST)
     public ResponseEntity<String> handleInvalidRoomException(InvalidRoomException exception) {
-        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(exception.getMessage());
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .header(RejectionException.CODE_HEADER, exception.getCode()).body(exception.getMessage());
     }
 
     /**
@@ -106,5 +204,4 @@ public class RoomController {
     public ResponseEntity<String> handleForbiddenException(AccessDeniedException exception) {
         return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(exception.getMessage());
     }
-
 }
@@ -0,0 +1,89 @@
+package com.onelity.bookme.controller;
+
+import com.onelity.bookme.dto.SpanDTO;
+import com.onelity.bookme.exception.TraceNotFoundException;
+import com.onelity.bookme.tracing.InMemorySpanExporter;
+import io.opentelemetry.api.trace.SpanId;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.access.annotation.Secured;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * Controller for /admin/traces endpoint which lets admins read the spans kept by InMemorySpanExporter, looked up by the
+ * X-Trace-Id header of the response they belong to. It is only available when bookme.tracing.exporter is 'memory', and
+ * only users with the ADMIN role can access it.
+ */
+@RestController
+@RequestMapping("/admin/traces")
+@ConditionalOnProperty(name = "bookme.tracing.exporter", havingValue = "memory")
+public class TraceController {
+
+    @Autowired
+    private InMemorySpanExporter inMemorySpanExporter;
+
+    /**
+     * Gets the spans of a trace which are still held, oldest first
+     *
+     * @param traceId
+     *            trace id as shown in the X-Trace-Id response header
+     *
+     * @return returns response entity with the spans of the trace
+     *
+     * @throws TraceNotFoundException
+     *             if no span of the trace is held, e.g. because it was not sampled or has been dropped since
+     */
+    @GetMapping("{traceId}")
+    @Secured("ROLE_ADMIN")
+    public ResponseEntity<List<SpanDTO>> getTrace(@PathVariable String traceId) throws TraceNotFoundException {
+        List<SpanData> spans = inMemorySpanExporter.getTrace(traceId);
+        if (spans.isEmpty()) {
+            throw new TraceNotFoundException("No spans of trace '" + traceId + "' are held");
+        }
+        return ResponseEntity.ok(spans.stream().map(TraceController::convertToSpanDTO).toList());
+    }
+
+    @ExceptionHandler(TraceNotFoundException.class)
+    public ResponseEntity<String> handleTraceNotFoundException(TraceNotFoundException exception) {
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(exception.getMessage());
+    }
+
+    /**
+     * Converts 403 response codes to 401 for improper authentications
+     *
+     * @param exception
+     *            exception thrown when the user lacks the ADMIN role
+     *
+     * @return returns response entity with Unauthorized status and exception message
+     */
+    @ExceptionHandler(AccessDeniedException.class)
+    public ResponseEntity<String> handleAccessDeniedException(AccessDeniedException exception) {
+        return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(exception.getMessage());
+    }
+
+    private static SpanDTO convertToSpanDTO(SpanData span) {
+        SpanDTO spanDTO = new SpanDTO();
+        spanDTO.setTraceId(span.getTraceId());
+        spanDTO.setSpanId(span.getSpanId());
+        spanDTO.setParentSpanId(SpanId.isValid(span.getParentSpanId()) ? span.getParentSpanId() : null);
+        spanDTO.setName(span.getName());
+        spanDTO.setKind(span.getKind().name());
+        spanDTO.setStatus(span.getStatus().getStatusCode().name());
+        spanDTO.setStartTime(Instant.EPOCH.plusNanos(span.getStartEpochNanos()));
+        spanDTO.setDurationMicros(
+                TimeUnit.NANOSECONDS.toMicros(span.getEndEpochNanos() - span.getStartEpochNanos()));
+        Map<String, String> attributes = new LinkedHashMap<>();
+        span.getAttributes().forEach((key, value) -> attributes.put(key.getKey(), String.valueOf(value)));
+        spanDTO.setAttributes(attributes);
+        return spanDTO;
+    }
+}
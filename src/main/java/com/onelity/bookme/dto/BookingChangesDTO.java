@@ -0,0 +1,58 @@
+package com.onelity.bookme.dto;
+
+import java.util.List;
+
+/**
+ * DTO class for the response of /bookings/changes. Clients apply the bookings and remove the deleted and archived ids
+ * from their copy, then pass the version as 'since' on their next sync. Archived bookings can still be read with GET
+ * /bookings?includeArchived=true.
+ */
+public class BookingChangesDTO {
+
+    private Long version;
+    private List<BookingDTO> bookings;
+    private List<Long> deleted;
+    private List<Long> archived;
+
+    public BookingChangesDTO() {
+    }
+
+    public BookingChangesDTO(Long version, List<BookingDTO> bookings, List<Long> deleted, List<Long> archived) {
+        this.version = version;
+        this.bookings = bookings;
+        this.deleted = deleted;
+        this.archived = archived;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
+    public List<BookingDTO> getBookings() {
+        return bookings;
+    }
+
+    public void setBookings(List<BookingDTO> bookings) {
+        this.bookings = bookings;
+    }
+
+    public List<Long> getDeleted() {
+        return deleted;
+    }
+
+    public void setDeleted(List<Long> deleted) {
+        this.deleted = deleted;
+    }
+
+    public List<Long> getArchived() {
+        return archived;
+    }
+
+    public void setArchived(List<Long> archived) {
+        this.archived = archived;
+    }
+}
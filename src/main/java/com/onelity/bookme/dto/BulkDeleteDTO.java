@@ -0,0 +1,24 @@
+package com.onelity.bookme.dto;
+
+/**
+ * DTO class for the response of DELETE /bookings, which deletes all bookings matching a filter at once
+ */
+public class BulkDeleteDTO {
+
+    private Integer deleted;
+
+    public BulkDeleteDTO() {
+    }
+
+    public BulkDeleteDTO(Integer deleted) {
+        this.deleted = deleted;
+    }
+
+    public Integer getDeleted() {
+        return deleted;
+    }
+
+    public void setDeleted(Integer deleted) {
+        this.deleted = deleted;
+    }
+}
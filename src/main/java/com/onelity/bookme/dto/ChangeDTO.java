@@ -0,0 +1,107 @@
+package com.onelity.bookme.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * DTO class for the changes pushed through /bookings/stream. The id is assigned when the change is broadcast, in the
+ * order the changes were committed. Deletions carry neither booking nor room.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ChangeDTO {
+
+    private Long id;
+    private String resource;
+    private String action;
+    private Long resourceId;
+    private Long roomId;
+    private String location;
+    private BookingDTO booking;
+    private RoomDTO room;
+
+    public ChangeDTO() {
+    }
+
+    public ChangeDTO(String resource, String action, Long resourceId, Long roomId, String location) {
+        this.resource = resource;
+        this.action = action;
+        this.resourceId = resourceId;
+        this.roomId = roomId;
+        this.location = location;
+    }
+
+    public static ChangeDTO bookingChanged(String action, Long roomId, String location, BookingDTO booking) {
+        ChangeDTO change = new ChangeDTO("booking", action, booking.getId(), roomId, location);
+        change.setBooking(booking);
+        return change;
+    }
+
+    public static ChangeDTO roomChanged(String action, RoomDTO room) {
+        ChangeDTO change = new ChangeDTO("room", action, room.getId(), room.getId(), room.getLocation());
+        change.setRoom(room);
+        return change;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getResource() {
+        return resource;
+    }
+
+    public void setResource(String resource) {
+        this.resource = resource;
+    }
+
+    public String getAction() {
+        return action;
+    }
+
+    public void setAction(String action) {
+        this.action = action;
+    }
+
+    public Long getResourceId() {
+        return resourceId;
+    }
+
+    public void setResourceId(Long resourceId) {
+        this.resourceId = resourceId;
+    }
+
+    public Long getRoomId() {
+        return roomId;
+    }
+
+    public void setRoomId(Long roomId) {
+        this.roomId = roomId;
+    }
+
+    public String getLocation() {
+        return location;
+    }
+
+    public void setLocation(String location) {
+        this.location = location;
+    }
+
+    public BookingDTO getBooking() {
+        return booking;
+    }
+
+    public void setBooking(BookingDTO booking) {
+        this.booking = booking;
+    }
+
+    public RoomDTO getRoom() {
+        return room;
+    }
+
+    public void setRoom(RoomDTO room) {
+        this.room = room;
+    }
+}
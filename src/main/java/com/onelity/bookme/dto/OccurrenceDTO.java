@@ -0,0 +1,98 @@
+package com.onelity.bookme.dto;
+
+import java.sql.Date;
+import java.sql.Time;
+
+/**
+ * DTO class for one occurrence of a booking on a concrete date, as returned by /meeting-rooms/{id}/calendar
+ */
+public class OccurrenceDTO {
+
+    private Long bookingId;
+    private String title;
+    private String description;
+    private Date date;
+    private Time startTime;
+    private Time endTime;
+    private Integer participants;
+    private String repeat_pattern;
+
+    public OccurrenceDTO() {
+    }
+
+    public OccurrenceDTO(Long bookingId, String title, String description, Date date, Time startTime, Time endTime,
+            Integer participants, String repeat_pattern) {
+        this.bookingId = bookingId;
+        this.title = title;
+        this.description = description;
+        this.date = date;
+        this.startTime = startTime;
+        this.endTime = endTime;
+        this.participants = participants;
+        this.repeat_pattern = repeat_pattern;
+    }
+
+    public Long getBookingId() {
+        return bookingId;
+    }
+
+    public void setBookingId(Long bookingId) {
+        this.bookingId = bookingId;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public void setDescription(String description) {
+        this.description = description;
+    }
+
+    public Date getDate() {
+        return date;
+    }
+
+    public void setDate(Date date) {
+        this.date = date;
+    }
+
+    public Time getStartTime() {
+        return startTime;
+    }
+
+    public void setStartTime(Time startTime) {
+        this.startTime = startTime;
+    }
+
+    public Time getEndTime() {
+        return endTime;
+    }
+
+    public void setEndTime(Time endTime) {
+        this.endTime = endTime;
+    }
+
+    public Integer getParticipants() {
+        return participants;
+    }
+
+    public void setParticipants(Integer participants) {
+        this.participants = participants;
+    }
+
+    public String getRepeat_pattern() {
+        return repeat_pattern;
+    }
+
+    public void setRepeat_pattern(String repeat_pattern) {
+        this.repeat_pattern = repeat_pattern;
+    }
+}
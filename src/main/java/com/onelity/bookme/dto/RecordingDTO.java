@@ -0,0 +1,64 @@
+package com.onelity.bookme.dto;
+
+import java.time.Instant;
+
+/**
+ * DTO class for JFR recordings managed by RecordingService
+ */
+public class RecordingDTO {
+
+    private Long id;
+    private String name;
+    private String state;
+    private Instant startTime;
+    private Instant stopTime;
+    private Long size;
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getState() {
+        return state;
+    }
+
+    public void setState(String state) {
+        this.state = state;
+    }
+
+    public Instant getStartTime() {
+        return startTime;
+    }
+
+    public void setStartTime(Instant startTime) {
+        this.startTime = startTime;
+    }
+
+    public Instant getStopTime() {
+        return stopTime;
+    }
+
+    public void setStopTime(Instant stopTime) {
+        this.stopTime = stopTime;
+    }
+
+    public Long getSize() {
+        return size;
+    }
+
+    public void setSize(Long size) {
+        this.size = size;
+    }
+}
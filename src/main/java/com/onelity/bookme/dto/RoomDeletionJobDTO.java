@@ -0,0 +1,77 @@
+package com.onelity.bookme.dto;
+
+import java.time.Instant;
+
+/**
+ * DTO class for the progress of a room deletion, returned by DELETE /meeting-rooms/{id} and
+ * /meeting-rooms/deletions/{id}
+ */
+public class RoomDeletionJobDTO {
+
+    private Long id;
+    private Long room;
+    private String status;
+    private Long totalBookings;
+    private Long deletedBookings;
+    private Instant createdAt;
+    private Instant completedAt;
+
+    public RoomDeletionJobDTO() {
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getRoom() {
+        return room;
+    }
+
+    public void setRoom(Long room) {
+        this.room = room;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public Long getTotalBookings() {
+        return totalBookings;
+    }
+
+    public void setTotalBookings(Long totalBookings) {
+        this.totalBookings = totalBookings;
+    }
+
+    public Long getDeletedBookings() {
+        return deletedBookings;
+    }
+
+    public void setDeletedBookings(Long deletedBookings) {
+        this.deletedBookings = deletedBookings;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(Instant createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public Instant getCompletedAt() {
+        return completedAt;
+    }
+
+    public void setCompletedAt(Instant completedAt) {
+        this.completedAt = completedAt;
+    }
+}
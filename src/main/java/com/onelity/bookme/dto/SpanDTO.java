@@ -0,0 +1,92 @@
+package com.onelity.bookme.dto;
+
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * DTO class for finished spans held by InMemorySpanExporter
+ */
+public class SpanDTO {
+
+    private String traceId;
+    private String spanId;
+    private String parentSpanId;
+    private String name;
+    private String kind;
+    private String status;
+    private Instant startTime;
+    private Long durationMicros;
+    private Map<String, String> attributes;
+
+    public String getTraceId() {
+        return traceId;
+    }
+
+    public void setTraceId(String traceId) {
+        this.traceId = traceId;
+    }
+
+    public String getSpanId() {
+        return spanId;
+    }
+
+    public void setSpanId(String spanId) {
+        this.spanId = spanId;
+    }
+
+    public String getParentSpanId() {
+        return parentSpanId;
+    }
+
+    public void setParentSpanId(String parentSpanId) {
+        this.parentSpanId = parentSpanId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getKind() {
+        return kind;
+    }
+
+    public void setKind(String kind) {
+        this.kind = kind;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public Instant getStartTime() {
+        return startTime;
+    }
+
+    public void setStartTime(Instant startTime) {
+        this.startTime = startTime;
+    }
+
+    public Long getDurationMicros() {
+        return durationMicros;
+    }
+
+    public void setDurationMicros(Long durationMicros) {
+        this.durationMicros = durationMicros;
+    }
+
+    public Map<String, String> getAttributes() {
+        return attributes;
+    }
+
+    public void setAttributes(Map<String, String> attributes) {
+        this.attributes = attributes;
+    }
+}
@@ -0,0 +1,7 @@
+package com.onelity.bookme.exception;
+
+public class ChangesExpiredException extends Exception {
+    public ChangesExpiredException(String errorMessage) {
+        super(errorMessage);
+    }
+}
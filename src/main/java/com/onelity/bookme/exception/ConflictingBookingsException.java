@@ -1,7 +1,11 @@
 package com.onelity.bookme.exception;
 
-public class ConflictingBookingsException extends Exception {
+public class ConflictingBookingsException extends RejectionException {
     public ConflictingBookingsException(String errorMessage) {
-        super(errorMessage);
+        super("conflicting_bookings", errorMessage);
+    }
+
+    public ConflictingBookingsException(String code, String errorMessage) {
+        super(code, errorMessage);
     }
 }
@@ -0,0 +1,7 @@
+package com.onelity.bookme.exception;
+
+public class DeletionJobNotFoundException extends Exception {
+    public DeletionJobNotFoundException(String errorMessage) {
+        super(errorMessage);
+    }
+}
@@ -0,0 +1,7 @@
+package com.onelity.bookme.exception;
+
+public class IdempotencyKeyInProgressException extends Exception {
+    public IdempotencyKeyInProgressException(String errorMessage) {
+        super(errorMessage);
+    }
+}
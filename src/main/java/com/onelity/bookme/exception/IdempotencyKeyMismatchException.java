@@ -0,0 +1,7 @@
+package com.onelity.bookme.exception;
+
+public class IdempotencyKeyMismatchException extends Exception {
+    public IdempotencyKeyMismatchException(String errorMessage) {
+        super(errorMessage);
+    }
+}
@@ -1,7 +1,11 @@
 package com.onelity.bookme.exception;
 
-public class InvalidBookingException extends Exception {
+public class InvalidBookingException extends RejectionException {
     public InvalidBookingException(String errorMessage) {
-        super(errorMessage);
+        super("invalid_booking", errorMessage);
+    }
+
+    public InvalidBookingException(String code, String errorMessage) {
+        super(code, errorMessage);
     }
 }
@@ -0,0 +1,7 @@
+package com.onelity.bookme.exception;
+
+public class InvalidIdempotencyKeyException extends Exception {
+    public InvalidIdempotencyKeyException(String errorMessage) {
+        super(errorMessage);
+    }
+}
@@ -1,7 +1,11 @@
 package com.onelity.bookme.exception;
 
-public class InvalidRoomException extends Exception {
+public class InvalidRoomException extends RejectionException {
     public InvalidRoomException(String errorMessage) {
-        super(errorMessage);
+        super("invalid_room", errorMessage);
+    }
+
+    public InvalidRoomException(String code, String errorMessage) {
+        super(code, errorMessage);
     }
 }
@@ -0,0 +1,7 @@
+package com.onelity.bookme.exception;
+
+public class PreconditionFailedException extends Exception {
+    public PreconditionFailedException(String errorMessage) {
+        super(errorMessage);
+    }
+}
@@ -0,0 +1,7 @@
+package com.onelity.bookme.exception;
+
+public class RecordingNotFoundException extends Exception {
+    public RecordingNotFoundException(String errorMessage) {
+        super(errorMessage);
+    }
+}
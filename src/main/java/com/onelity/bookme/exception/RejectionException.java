@@ -0,0 +1,24 @@
+package com.onelity.bookme.exception;
+
+/**
+ * Base of the exceptions rejecting a request because of what it contains, such as invalid or conflicting bookings.
+ * These are thrown for a large share of write requests, so they skip filling in the stack trace, which is most of the
+ * cost of an exception, and may be preallocated when their message is fixed. Each carries a code which the controllers
+ * return in the X-Error-Code header.
+ */
+public abstract class RejectionException extends Exception {
+
+    public static final String CODE_HEADER = "X-Error-Code";
+
+    private final String code;
+
+    protected RejectionException(String code, String errorMessage) {
+        // No cause, suppression or stack trace, so a shared instance can be thrown from any thread
+        super(errorMessage, null, false, false);
+        this.code = code;
+    }
+
+    public String getCode() {
+        return code;
+    }
+}
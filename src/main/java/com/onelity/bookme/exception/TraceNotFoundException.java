@@ -0,0 +1,7 @@
+package com.onelity.bookme.exception;
+
+public class TraceNotFoundException extends Exception {
+    public TraceNotFoundException(String errorMessage) {
+        super(errorMessage);
+    }
+}
@@ -1,7 +1,11 @@
 package com.onelity.bookme.exception;
 
-public class UnauthorizedUserException extends Exception {
+public class UnauthorizedUserException extends RejectionException {
     public UnauthorizedUserException(String errorMessage) {
-        super(errorMessage);
+        super("unauthorized_user", errorMessage);
+    }
+
+    public UnauthorizedUserException(String code, String errorMessage) {
+        super(code, errorMessage);
     }
 }
@@ -0,0 +1,85 @@
+package com.onelity.bookme.health;
+
+import com.onelity.bookme.sharding.LocationRoutingDataSource;
+import com.zaxxer.hikari.HikariConfigMXBean;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javax.sql.DataSource;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.jdbc.DataSourceUnwrapper;
+import org.springframework.stereotype.Component;
+
+/**
+ * Reports the connection pools as out of service while one of them is saturated, i.e. every connection is in use and
+ * more than bookme.datasource.readiness.max-pending threads are waiting for one. Besides the pool of the default
+ * database, it watches the pool of each location while bookings are sharded, as those carry the booking traffic. It is
+ * part of the readiness group, so a saturated instance stops receiving traffic until the pool drains.
+ */
+@Component
+public class ConnectionPoolHealthIndicator implements HealthIndicator {
+
+    private final Map<String, HikariDataSource> pools = new LinkedHashMap<>();
+    private final int maxPending;
+
+    @Autowired
+    public ConnectionPoolHealthIndicator(@Qualifier("dataSource") DataSource dataSource,
+            @Qualifier("locationRoutingDataSource") ObjectProvider<DataSource> locationRoutingDataSource,
+            @Value("${bookme.datasource.readiness.max-pending:0}") int maxPending) throws SQLException {
+        HikariDataSource defaultPool = DataSourceUnwrapper.unwrap(dataSource, HikariConfigMXBean.class,
+                HikariDataSource.class);
+        if (defaultPool != null) {
+            pools.put("default", defaultPool);
+        }
+        DataSource routing = locationRoutingDataSource.getIfAvailable();
+        if (routing != null) {
+            // The routing data source has no interface of its own for DataSourceUnwrapper to unwrap to
+            pools.putAll(routing.unwrap(LocationRoutingDataSource.class).getShards());
+        }
+        this.maxPending = maxPending;
+    }
+
+    /**
+     * @param pools
+     *            the connection pools to watch by name
+     * @param maxPending
+     *            how many threads may wait for a connection of a pool whose connections are all in use
+     */
+    ConnectionPoolHealthIndicator(Map<String, HikariDataSource> pools, int maxPending) {
+        this.pools.putAll(pools);
+        this.maxPending = maxPending;
+    }
+
+    @Override
+    public Health health() {
+        Health.Builder builder = Health.up();
+        for (Map.Entry<String, HikariDataSource> entry : pools.entrySet()) {
+            HikariDataSource pool = entry.getValue();
+            HikariPoolMXBean poolMXBean = pool.getHikariPoolMXBean();
+            if (poolMXBean == null) {
+                // Pool has not been started yet, so it cannot be saturated
+                continue;
+            }
+            int active = poolMXBean.getActiveConnections();
+            int pending = poolMXBean.getThreadsAwaitingConnection();
+            int max = pool.getMaximumPoolSize();
+            if (active >= max && pending > maxPending) {
+                builder.outOfService();
+            }
+            Map<String, Integer> details = new LinkedHashMap<>();
+            details.put("active", active);
+            details.put("idle", poolMXBean.getIdleConnections());
+            details.put("pending", pending);
+            details.put("max", max);
+            builder.withDetail(entry.getKey(), details);
+        }
+        return builder.build();
+    }
+}
@@ -0,0 +1,24 @@
+package com.onelity.bookme.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JFR event covering one create, update or delete of a booking in BookingService, from the first validation step until
+ * the change has been flushed or rejected
+ */
+@Name("com.onelity.bookme.BookingOperation")
+@Label("Booking Operation")
+@Category({ "Bookme", "Bookings" })
+@Description("Create, update or delete of a booking")
+public class BookingOperationEvent extends OperationEvent {
+
+    @Label("Booking Id")
+    public long bookingId;
+
+    public BookingOperationEvent(String operation) {
+        super(operation);
+    }
+}
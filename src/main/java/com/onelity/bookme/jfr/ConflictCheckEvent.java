@@ -0,0 +1,27 @@
+package com.onelity.bookme.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JFR event covering one conflict check of BookingService, including the overlapping-bookings query
+ */
+@Name("com.onelity.bookme.ConflictCheck")
+@Label("Booking Conflict Check")
+@Category({ "Bookme", "Bookings" })
+@Description("Check of a new or updated booking against the existing bookings of its room")
+public class ConflictCheckEvent extends Event {
+
+    @Label("Room Id")
+    public long roomId;
+
+    @Label("Candidates")
+    @Description("Number of bookings with overlapping dates and times that were examined")
+    public int candidates;
+
+    @Label("Conflict")
+    public boolean conflict;
+}
@@ -0,0 +1,53 @@
+package com.onelity.bookme.jfr;
+
+import com.onelity.bookme.exception.BookingNotFoundException;
+import com.onelity.bookme.exception.ConflictingBookingsException;
+import com.onelity.bookme.exception.InvalidBookingException;
+import com.onelity.bookme.exception.InvalidRoomException;
+import com.onelity.bookme.exception.PreconditionFailedException;
+import com.onelity.bookme.exception.RoomNotFoundException;
+import com.onelity.bookme.exception.UnauthorizedUserException;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+
+/**
+ * Base class of the Bookme service operation events. The event duration is the time between begin() and commit(), and
+ * the outcome is 'success' unless failed() is called with the exception that rejected the operation.
+ */
+public abstract class OperationEvent extends Event {
+
+    @Label("Operation")
+    public String operation;
+
+    @Label("Room Id")
+    public long roomId;
+
+    @Label("Outcome")
+    public String outcome = "success";
+
+    protected OperationEvent(String operation) {
+        this.operation = operation;
+    }
+
+    /**
+     * Records why the operation was rejected
+     *
+     * @param exception
+     *            exception thrown by the operation
+     */
+    public void failed(Exception exception) {
+        if (exception instanceof InvalidBookingException || exception instanceof InvalidRoomException) {
+            outcome = "invalid";
+        } else if (exception instanceof ConflictingBookingsException) {
+            outcome = "conflict";
+        } else if (exception instanceof UnauthorizedUserException) {
+            outcome = "unauthorized";
+        } else if (exception instanceof PreconditionFailedException) {
+            outcome = "precondition_failed";
+        } else if (exception instanceof BookingNotFoundException || exception instanceof RoomNotFoundException) {
+            outcome = "not_found";
+        } else {
+            outcome = "error";
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.onelity.bookme.jfr;
+
+import static net.logstash.logback.argument.StructuredArguments.kv;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Streams the JDK's jdk.VirtualThreadPinned events in-process. Each pinning longer than the threshold is logged at WARN
+ * with the top of its stack trace, which shows the synchronized block or native frame that pinned the carrier, and
+ * counted in bookme.threads.virtual.pinned tagged by the innermost application or library frame.
+ */
+public class PinnedThreadMonitor implements AutoCloseable {
+
+    public static final String PINNED_COUNTER = "bookme.threads.virtual.pinned";
+
+    private static final Logger log = LoggerFactory.getLogger(PinnedThreadMonitor.class);
+    private static final int LOGGED_FRAMES = 12;
+
+    private final MeterRegistry registry;
+    private final Duration threshold;
+    private RecordingStream stream;
+
+    public PinnedThreadMonitor(MeterRegistry registry, Duration threshold) {
+        this.registry = registry;
+        this.threshold = threshold;
+    }
+
+    public void start() {
+        stream = new RecordingStream();
+        stream.enable("jdk.VirtualThreadPinned").withThreshold(threshold).withStackTrace();
+        stream.onEvent("jdk.VirtualThreadPinned", this::pinned);
+        stream.startAsync();
+    }
+
+    @Override
+    public void close() {
+        if (stream != null) {
+            stream.close();
+        }
+    }
+
+    private void pinned(RecordedEvent event) {
+        List<String> frames = frames(event.getStackTrace());
+        String site = frames.stream().filter(frame -> !frame.startsWith("java.") && !frame.startsWith("jdk."))
+                .findFirst().orElse("unknown");
+        Counter.builder(PINNED_COUNTER).description("Virtual threads pinned to their carrier longer than the threshold")
+                .tag("site", site).register(registry).increment();
+        if (log.isWarnEnabled()) {
+            log.warn("virtual thread pinned {} {} {}", kv("duration_ms", event.getDuration().toMillis()),
+                    kv("thread", event.getThread() == null ? null : event.getThread().getJavaName()),
+                    kv("stack", frames));
+        }
+    }
+
+    private static List<String> frames(RecordedStackTrace stackTrace) {
+        List<String> frames = new ArrayList<>();
+        if (stackTrace == null) {
+            return frames;
+        }
+        for (RecordedFrame frame : stackTrace.getFrames()) {
+            if (frames.size() == LOGGED_FRAMES) {
+                break;
+            }
+            frames.add(frame.getMethod().getType().getName() + "." + frame.getMethod().getName()
+                    + (frame.isJavaFrame() ? "" : " (native)"));
+        }
+        return frames;
+    }
+}
@@ -0,0 +1,20 @@
+package com.onelity.bookme.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JFR event covering one create, update or delete of a meeting room in RoomService
+ */
+@Name("com.onelity.bookme.RoomOperation")
+@Label("Room Operation")
+@Category({ "Bookme", "Rooms" })
+@Description("Create, update or delete of a meeting room")
+public class RoomOperationEvent extends OperationEvent {
+
+    public RoomOperationEvent(String operation) {
+        super(operation);
+    }
+}
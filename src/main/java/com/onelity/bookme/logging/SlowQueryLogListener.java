@@ -0,0 +1,190 @@
+package com.onelity.bookme.logging;
+
+import static net.logstash.logback.argument.StructuredArguments.kv;
+
+import java.sql.ResultSet;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import javax.sql.DataSource;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.MethodExecutionContext;
+import net.ttddyy.dsproxy.listener.MethodExecutionListener;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.proxy.ParameterSetOperation;
+import net.ttddyy.dsproxy.proxy.ProxyJdbcObject;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import net.ttddyy.observation.boot.autoconfigure.ProxyDataSourceBuilderCustomizer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Logs SQL statements that take longer than bookme.logging.sql.slow-threshold, and a random sample of all other
+ * statements as configured by bookme.logging.sql.sample-rate. Only the types of bind parameters are logged, never their
+ * values. The trace id of the request that issued the statement is added by the structured log encoder from the MDC.
+ * <p>
+ * Updates are logged with the rows they affected as soon as they complete. The rows of a query are only known once they
+ * have been read, so result sets are proxied and a query is logged with the rows read when its result set is closed.
+ */
+@Component
+public class SlowQueryLogListener
+        implements QueryExecutionListener, MethodExecutionListener, ProxyDataSourceBuilderCustomizer {
+
+    private static final Logger log = LoggerFactory.getLogger("com.onelity.bookme.sql");
+
+    /** Queries whose result set is not closed through the proxy are logged without rows beyond this many */
+    private static final int MAX_OPEN_RESULT_SETS = 1000;
+
+    private final long slowThresholdMillis;
+    private final double sampleRate;
+    private final Map<ResultSet, LoggedQuery> openResultSets = new ConcurrentHashMap<>();
+
+    public SlowQueryLogListener(@Value("${bookme.logging.sql.slow-threshold:300ms}") Duration slowThreshold,
+            @Value("${bookme.logging.sql.sample-rate:0.0}") double sampleRate) {
+        this.slowThresholdMillis = slowThreshold.toMillis();
+        this.sampleRate = sampleRate;
+    }
+
+    @Override
+    public void customize(ProxyDataSourceBuilder builder, DataSource dataSource, String beanName,
+            String dataSourceName) {
+        builder.proxyResultSet();
+    }
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        long elapsed = execInfo.getElapsedTime();
+        boolean slow = elapsed >= slowThresholdMillis;
+        if (slow ? !log.isWarnEnabled()
+                : sampleRate <= 0 || ThreadLocalRandom.current().nextDouble() >= sampleRate || !log.isInfoEnabled()) {
+            return;
+        }
+        LoggedQuery query = new LoggedQuery(slow, elapsed, sql(queryInfoList), parameterTypes(queryInfoList),
+                execInfo.isSuccess());
+        if (execInfo.getResult() instanceof ProxyJdbcObject proxy && proxy.getTarget() instanceof ResultSet resultSet
+                && openResultSets.size() < MAX_OPEN_RESULT_SETS) {
+            openResultSets.put(resultSet, query);
+            return;
+        }
+        query.log(rowCount(execInfo));
+    }
+
+    @Override
+    public void beforeMethod(MethodExecutionContext executionContext) {
+    }
+
+    @Override
+    public void afterMethod(MethodExecutionContext executionContext) {
+        if (openResultSets.isEmpty() || !(executionContext.getTarget() instanceof ResultSet resultSet)) {
+            return;
+        }
+        String method = executionContext.getMethod().getName();
+        if (method.equals("next") && Boolean.TRUE.equals(executionContext.getResult())) {
+            LoggedQuery query = openResultSets.get(resultSet);
+            if (query != null) {
+                query.rows++;
+            }
+        } else if (method.equals("close")) {
+            LoggedQuery query = openResultSets.remove(resultSet);
+            if (query != null) {
+                query.log(query.rows);
+            }
+        }
+    }
+
+    private static String sql(List<QueryInfo> queryInfoList) {
+        if (queryInfoList.size() == 1) {
+            return queryInfoList.get(0).getQuery();
+        }
+        List<String> queries = new ArrayList<>(queryInfoList.size());
+        for (QueryInfo queryInfo : queryInfoList) {
+            queries.add(queryInfo.getQuery());
+        }
+        return String.join("; ", queries);
+    }
+
+    /**
+     * Gets the types of the bind parameters of the first parameter set, e.g. [Long, Date, Time]
+     */
+    private static List<String> parameterTypes(List<QueryInfo> queryInfoList) {
+        List<String> types = new ArrayList<>();
+        if (queryInfoList.isEmpty() || queryInfoList.get(0).getParametersList().isEmpty()) {
+            return types;
+        }
+        for (ParameterSetOperation operation : queryInfoList.get(0).getParametersList().get(0)) {
+            String setter = operation.getMethod().getName();
+            types.add(setter.startsWith("set") ? setter.substring(3) : setter);
+        }
+        return types;
+    }
+
+    /**
+     * Gets the number of rows affected by an update or batch, or null if the statement did not report one
+     */
+    private static Long rowCount(ExecutionInfo execInfo) {
+        Object result = execInfo.getResult();
+        if (result instanceof Integer count) {
+            return count.longValue();
+        }
+        if (result instanceof Long count) {
+            return count;
+        }
+        if (result instanceof int[] counts) {
+            long total = 0;
+            for (int count : counts) {
+                total += count;
+            }
+            return total;
+        }
+        if (result instanceof long[] counts) {
+            long total = 0;
+            for (long count : counts) {
+                total += count;
+            }
+            return total;
+        }
+        return null;
+    }
+
+    /**
+     * A statement which is logged once its rows are known
+     */
+    private static final class LoggedQuery {
+
+        private final boolean slow;
+        private final long elapsed;
+        private final String sql;
+        private final List<String> parameterTypes;
+        private final boolean success;
+        // Only read and written by the thread reading the result set
+        private long rows;
+
+        private LoggedQuery(boolean slow, long elapsed, String sql, List<String> parameterTypes, boolean success) {
+            this.slow = slow;
+            this.elapsed = elapsed;
+            this.sql = sql;
+            this.parameterTypes = parameterTypes;
+            this.success = success;
+        }
+
+        private void log(Long rows) {
+            if (slow) {
+                log.warn("slow query {} {} {} {} {}", kv("elapsed_ms", elapsed), kv("sql", sql),
+                        kv("parameter_types", parameterTypes), kv("rows", rows), kv("success", success));
+            } else {
+                log.info("sampled query {} {} {} {}", kv("elapsed_ms", elapsed), kv("sql", sql),
+                        kv("parameter_types", parameterTypes), kv("rows", rows));
+            }
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.onelity.bookme.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+/**
+ * Holds the rejection counters recorded by BookingController. All counters are registered once at startup so recording
+ * on the request path is only a field access. Stage timings are recorded through ServiceStages.
+ */
+@Component
+public class BookingMetrics {
+
+    public static final String REJECTION_COUNTER = "bookme.booking.rejections";
+
+    private final Counter invalidRejections;
+    private final Counter conflictRejections;
+    private final Counter unauthorizedRejections;
+
+    public BookingMetrics(MeterRegistry registry) {
+        invalidRejections = rejectionCounter(registry, "invalid_booking");
+        conflictRejections = rejectionCounter(registry, "conflicting_bookings");
+        unauthorizedRejections = rejectionCounter(registry, "unauthorized_user");
+    }
+
+    private static Counter rejectionCounter(MeterRegistry registry, String reason) {
+        return Counter.builder(REJECTION_COUNTER).description("Booking requests rejected, by reason")
+                .tag("reason", reason).register(registry);
+    }
+
+    public void invalidBookingRejected() {
+        invalidRejections.increment();
+    }
+
+    public void conflictingBookingsRejected() {
+        conflictRejections.increment();
+    }
+
+    public void unauthorizedUserRejected() {
+        unauthorizedRejections.increment();
+    }
+}
@@ -0,0 +1,65 @@
+package com.onelity.bookme.metrics;
+
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import org.springframework.stereotype.Component;
+
+/**
+ * Observes the stages of BookingService and RoomService operations. Each observation is recorded both as a timer with
+ * percentile histograms (named after the observation, tagged by operation and stage) and as a tracing span that is a
+ * child of the current request span.
+ */
+@Component
+public class ServiceStages {
+
+    public static final String BOOKING_STAGE = "bookme.booking.stage";
+    public static final String ROOM_STAGE = "bookme.room.stage";
+
+    private final ObservationRegistry registry;
+
+    public ServiceStages(ObservationRegistry registry) {
+        this.registry = registry;
+    }
+
+    /**
+     * Runs a stage that does not return anything, such as a validation step that can only reject
+     *
+     * @param name
+     *            either BOOKING_STAGE or ROOM_STAGE
+     * @param operation
+     *            the service operation the stage belongs to, e.g. 'create'
+     * @param stage
+     *            the stage being run, e.g. 'validation'
+     * @param body
+     *            the work done by the stage
+     */
+    public <E extends Throwable> void run(String name, String operation, String stage,
+            Observation.CheckedRunnable<E> body) throws E {
+        observation(name, operation, stage).observeChecked(body);
+    }
+
+    /**
+     * Runs a stage that returns a result, such as loading or persisting an entity
+     *
+     * @param name
+     *            either BOOKING_STAGE or ROOM_STAGE
+     * @param operation
+     *            the service operation the stage belongs to, e.g. 'create'
+     * @param stage
+     *            the stage being run, e.g. 'persist'
+     * @param body
+     *            the work done by the stage
+     *
+     * @return returns whatever the stage returned
+     */
+    public <T, E extends Throwable> T call(String name, String operation, String stage,
+            Observation.CheckedCallable<T, E> body) throws E {
+        return observation(name, operation, stage).observeChecked(body);
+    }
+
+    private Observation observation(String name, String operation, String stage) {
+        String entity = BOOKING_STAGE.equals(name) ? "booking " : "room ";
+        return Observation.createNotStarted(name, registry).contextualName(entity + operation + " " + stage)
+                .lowCardinalityKeyValue("operation", operation).lowCardinalityKeyValue("stage", stage);
+    }
+}
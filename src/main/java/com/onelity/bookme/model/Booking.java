@@ -4,15 +4,21 @@ import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
 import java.sql.Date;
 import java.sql.Time;
+import org.hibernate.annotations.DynamicUpdate;
 import org.hibernate.annotations.OnDelete;
 import org.hibernate.annotations.OnDeleteAction;
+import org.hibernate.annotations.Where;
 
 /**
- * Model class for booking entities, which corresponds with 'bookings' table in database
+ * Model class for booking entities, which corresponds with 'bookings' table in database. Deleted bookings stay in the
+ * table as tombstones for /bookings/changes and are filtered out of all entity queries. Updates of a loaded booking
+ * only write the changed columns, see PATCH /bookings/{id}.
  */
 @Entity(name = "bookings")
 @Table(name = "bookings", schema = "public")
 @JsonIgnoreProperties({ "hibernateLazyInitializer", "handler" })
+@Where(clause = "deleted = false")
+@DynamicUpdate
 public class Booking {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -35,6 +41,20 @@ public class Booking {
     private Time endTime;
     private Integer participants;
     private String repeat_pattern;
+
+    /**
+     * Incremented by every update, used for the ETag of the booking and checked against If-Match
+     */
+    @Version
+    private Long version;
+
+    /**
+     * Version of the booking list at which this booking was last created, updated or deleted, see DataVersionService
+     */
+    private Long changeSeq = 0L;
+
+    private boolean deleted;
+
     @ManyToOne(fetch = FetchType.LAZY, optional = false)
     @JoinColumn(name = "creator", nullable = false, unique = true)
     @OnDelete(action = OnDeleteAction.CASCADE)
@@ -138,6 +158,30 @@ public class Booking {
         this.repeat_pattern = repeat_pattern;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
+    public Long getChangeSeq() {
+        return changeSeq;
+    }
+
+    public void setChangeSeq(Long changeSeq) {
+        this.changeSeq = changeSeq;
+    }
+
+    public boolean isDeleted() {
+        return deleted;
+    }
+
+    public void setDeleted(boolean deleted) {
+        this.deleted = deleted;
+    }
+
     public User getCreator() {
         return creator;
     }
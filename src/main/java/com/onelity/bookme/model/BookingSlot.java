@@ -0,0 +1,58 @@
+package com.onelity.bookme.model;
+
+import java.sql.Date;
+import java.sql.Time;
+
+/**
+ * Compact form of the dates, times and repeat option of a booking, used by validation and conflict checks. Dates are
+ * days since 1970-01-01 and times are seconds of the day, so all comparisons are on ints and allocate nothing.
+ * Overlapping bookings are loaded as slots straight from the query, without loading the bookings themselves.
+ */
+public record BookingSlot(int startDay, int endDay, int startSecond, int endSecond, RepeatPattern repeatPattern) {
+
+    /**
+     * Used by the overlap queries of BookingRepository
+     */
+    public BookingSlot(Date startDate, Date endDate, Time startTime, Time endTime, String repeatPattern) {
+        this(startDate, endDate, startTime, endTime, RepeatPattern.fromLabel(repeatPattern));
+    }
+
+    public BookingSlot(Date startDate, Date endDate, Time startTime, Time endTime, RepeatPattern repeatPattern) {
+        this((int) startDate.toLocalDate().toEpochDay(), (int) endDate.toLocalDate().toEpochDay(),
+                startTime.toLocalTime().toSecondOfDay(), endTime.toLocalTime().toSecondOfDay(), repeatPattern);
+    }
+
+    /**
+     * Gets the day of the week of the start date
+     *
+     * @return returns 0 for Monday to 6 for Sunday
+     */
+    public int startDayOfWeek() {
+        // 1970-01-01 was a Thursday
+        return Math.floorMod(startDay + 3, 7);
+    }
+
+    /**
+     * Checks whether two bookings in the same room would be held at the same time. Bookings whose dates and times
+     * overlap conflict if either repeats every day, neither repeats, or one repeats every same day of the week and
+     * both start on the same day of the week.
+     *
+     * @param other
+     *            slot of the other booking
+     *
+     * @return returns true if the bookings conflict
+     */
+    public boolean conflictsWith(BookingSlot other) {
+        if (startSecond >= other.endSecond || other.startSecond >= endSecond || startDay > other.endDay
+                || other.startDay > endDay) {
+            return false;
+        }
+        if (repeatPattern == RepeatPattern.EVERY_DAY || other.repeatPattern == RepeatPattern.EVERY_DAY) {
+            return true;
+        }
+        if (repeatPattern == RepeatPattern.NONE && other.repeatPattern == RepeatPattern.NONE) {
+            return true;
+        }
+        return startDayOfWeek() == other.startDayOfWeek();
+    }
+}
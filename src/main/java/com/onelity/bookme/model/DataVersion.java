@@ -0,0 +1,36 @@
+package com.onelity.bookme.model;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+/**
+ * Model class for the version of a resource, which corresponds with 'data_versions' table in database. The version is
+ * incremented in the same transaction as every change of the resource, so all nodes see the same version.
+ */
+@Entity(name = "data_versions")
+@Table(name = "data_versions", schema = "public")
+public class DataVersion {
+    @Id
+    private String resource;
+    private Long version;
+
+    public DataVersion() {
+    }
+
+    public String getResource() {
+        return resource;
+    }
+
+    public void setResource(String resource) {
+        this.resource = resource;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+}
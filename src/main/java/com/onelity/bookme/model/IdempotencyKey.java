@@ -0,0 +1,95 @@
+package com.onelity.bookme.model;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import java.time.Instant;
+
+/**
+ * Model class for the response to a request sent with an Idempotency-Key header, which corresponds with
+ * 'idempotency_keys' table in database. While the request is being executed, status and response body are null and
+ * the key is locked until lockedUntil.
+ */
+@Entity(name = "idempotency_keys")
+@Table(name = "idempotency_keys", schema = "public")
+public class IdempotencyKey {
+    /**
+     * Operation, username and key, e.g. 'create-booking:admin:3f2a...'
+     */
+    @Id
+    private String id;
+    private String requestHash;
+    private Integer status;
+    private String responseBody;
+    private String responseEtag;
+    private String responseLocation;
+    private Instant lockedUntil;
+    private Instant createdAt;
+
+    public IdempotencyKey() {
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getRequestHash() {
+        return requestHash;
+    }
+
+    public void setRequestHash(String requestHash) {
+        this.requestHash = requestHash;
+    }
+
+    public Integer getStatus() {
+        return status;
+    }
+
+    public void setStatus(Integer status) {
+        this.status = status;
+    }
+
+    public String getResponseBody() {
+        return responseBody;
+    }
+
+    public void setResponseBody(String responseBody) {
+        this.responseBody = responseBody;
+    }
+
+    public String getResponseEtag() {
+        return responseEtag;
+    }
+
+    public void setResponseEtag(String responseEtag) {
+        this.responseEtag = responseEtag;
+    }
+
+    public String getResponseLocation() {
+        return responseLocation;
+    }
+
+    public void setResponseLocation(String responseLocation) {
+        this.responseLocation = responseLocation;
+    }
+
+    public Instant getLockedUntil() {
+        return lockedUntil;
+    }
+
+    public void setLockedUntil(Instant lockedUntil) {
+        this.lockedUntil = lockedUntil;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(Instant createdAt) {
+        this.createdAt = createdAt;
+    }
+}
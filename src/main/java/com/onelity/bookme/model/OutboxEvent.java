@@ -0,0 +1,100 @@
+package com.onelity.bookme.model;
+
+import com.fasterxml.jackson.annotation.JsonRawValue;
+import jakarta.persistence.*;
+import java.time.Instant;
+
+/**
+ * Model class for a booking or room change waiting to be relayed to downstream systems, which corresponds with
+ * 'outbox_events' table in database. Events are inserted in the same transaction as the change and deleted once the
+ * sink has accepted them.
+ */
+@Entity(name = "outbox_events")
+@Table(name = "outbox_events", schema = "public")
+public class OutboxEvent {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    private Long roomId;
+    private String resource;
+    private String action;
+    private Long resourceId;
+
+    /**
+     * The change as JSON, in the format of the changes pushed through /bookings/stream
+     */
+    private String payload;
+
+    private Instant createdAt;
+
+    public OutboxEvent() {
+    }
+
+    public OutboxEvent(Long roomId, String resource, String action, Long resourceId, String payload,
+            Instant createdAt) {
+        this.roomId = roomId;
+        this.resource = resource;
+        this.action = action;
+        this.resourceId = resourceId;
+        this.payload = payload;
+        this.createdAt = createdAt;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getRoomId() {
+        return roomId;
+    }
+
+    public void setRoomId(Long roomId) {
+        this.roomId = roomId;
+    }
+
+    public String getResource() {
+        return resource;
+    }
+
+    public void setResource(String resource) {
+        this.resource = resource;
+    }
+
+    public String getAction() {
+        return action;
+    }
+
+    public void setAction(String action) {
+        this.action = action;
+    }
+
+    public Long getResourceId() {
+        return resourceId;
+    }
+
+    public void setResourceId(Long resourceId) {
+        this.resourceId = resourceId;
+    }
+
+    @JsonRawValue
+    public String getPayload() {
+        return payload;
+    }
+
+    public void setPayload(String payload) {
+        this.payload = payload;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(Instant createdAt) {
+        this.createdAt = createdAt;
+    }
+}
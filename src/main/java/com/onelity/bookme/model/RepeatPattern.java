@@ -0,0 +1,42 @@
+package com.onelity.bookme.model;
+
+/**
+ * Repeat options of a booking. Bookings and their DTOs keep the option as its label, which is what is stored and sent
+ * as JSON; validation and conflict checks work on the constants.
+ */
+public enum RepeatPattern {
+    NONE(null), EVERY_DAY("every day"), EVERY_SAME_DAY_OF_WEEK("every same day of the week");
+
+    /** values() copies the array on every call */
+    private static final RepeatPattern[] PATTERNS = values();
+
+    private final String label;
+
+    RepeatPattern(String label) {
+        this.label = label;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    /**
+     * Gets the repeat pattern with a label
+     *
+     * @param label
+     *            label of the repeat pattern, or null for NONE
+     *
+     * @return returns the repeat pattern, or null if no repeat pattern has the label
+     */
+    public static RepeatPattern fromLabel(String label) {
+        if (label == null) {
+            return NONE;
+        }
+        for (RepeatPattern pattern : PATTERNS) {
+            if (label.equals(pattern.label)) {
+                return pattern;
+            }
+        }
+        return null;
+    }
+}
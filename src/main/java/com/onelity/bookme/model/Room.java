@@ -18,6 +18,18 @@ public class Room {
     private String location;
     private Integer capacity;
 
+    /**
+     * Incremented by every update, used for the ETag of the room and checked against If-Match
+     */
+    @Version
+    private Long version;
+
+    /**
+     * False once the room was deleted while its bookings are still being deleted in the background, see
+     * RoomService.deleteRoomInDatabase. Unavailable rooms cannot be read, updated or booked.
+     */
+    private boolean available = true;
+
     @OneToMany(mappedBy = "room", fetch = FetchType.LAZY)
     private Set<Booking> bookings;
 
@@ -62,6 +74,22 @@ public class Room {
         this.capacity = capacity;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
+    public boolean isAvailable() {
+        return available;
+    }
+
+    public void setAvailable(boolean available) {
+        this.available = available;
+    }
+
     public Set<Booking> getBookings() {
         return bookings;
     }
@@ -0,0 +1,106 @@
+package com.onelity.bookme.model;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import java.time.Instant;
+
+/**
+ * Model class for the deletion of a room with bookings, which corresponds with 'room_deletion_jobs' table in database.
+ * The room is marked unavailable when the job is created, then its bookings are deleted in chunks and finally the room
+ * itself. The room column is not a foreign key, so the job outlives the room.
+ */
+@Entity(name = "room_deletion_jobs")
+@Table(name = "room_deletion_jobs", schema = "public")
+public class RoomDeletionJob {
+
+    public enum Status {
+        RUNNING, COMPLETED
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    private Long room;
+    @Enumerated(EnumType.STRING)
+    private Status status;
+
+    /**
+     * Number of bookings of the room, including deleted ones, when the job was created
+     */
+    private Long totalBookings;
+    private Long deletedBookings;
+    private Instant createdAt;
+    private Instant completedAt;
+
+    public RoomDeletionJob() {
+    }
+
+    public RoomDeletionJob(Long room, Long totalBookings, Instant createdAt) {
+        this.room = room;
+        this.status = Status.RUNNING;
+        this.totalBookings = totalBookings;
+        this.deletedBookings = 0L;
+        this.createdAt = createdAt;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getRoom() {
+        return room;
+    }
+
+    public void setRoom(Long room) {
+        this.room = room;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public Long getTotalBookings() {
+        return totalBookings;
+    }
+
+    public void setTotalBookings(Long totalBookings) {
+        this.totalBookings = totalBookings;
+    }
+
+    public Long getDeletedBookings() {
+        return deletedBookings;
+    }
+
+    public void setDeletedBookings(Long deletedBookings) {
+        this.deletedBookings = deletedBookings;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(Instant createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public Instant getCompletedAt() {
+        return completedAt;
+    }
+
+    public void setCompletedAt(Instant completedAt) {
+        this.completedAt = completedAt;
+    }
+}
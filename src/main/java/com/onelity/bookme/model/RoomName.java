@@ -0,0 +1,47 @@
+package com.onelity.bookme.model;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+/**
+ * Model class for a room name claimed while rooms are sharded by location, which corresponds with 'room_names' table
+ * in the default database. Names are claimed before their room is created, so a name is unique across all locations,
+ * and the claim tells the location of the room.
+ */
+@Entity(name = "room_names")
+@Table(name = "room_names", schema = "public")
+public class RoomName {
+    @Id
+    private String name;
+    private String location;
+    /** Id of the room, or null while it is being created */
+    private Long room;
+
+    public RoomName() {
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getLocation() {
+        return location;
+    }
+
+    public void setLocation(String location) {
+        this.location = location;
+    }
+
+    public Long getRoom() {
+        return room;
+    }
+
+    public void setRoom(Long room) {
+        this.room = room;
+    }
+}
@@ -0,0 +1,46 @@
+package com.onelity.bookme.outbox;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.onelity.bookme.model.OutboxEvent;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Posts each batch of relayed events as a JSON array to an HTTP endpoint. The batch counts as delivered only if the
+ * endpoint answers with a 2xx status.
+ */
+public class HttpOutboxSink implements OutboxSink {
+
+    private final URI uri;
+    private final Duration timeout;
+    private final ObjectMapper objectMapper;
+    private final HttpClient client;
+
+    public HttpOutboxSink(URI uri, Duration timeout, ObjectMapper objectMapper) {
+        this.uri = uri;
+        this.timeout = timeout;
+        this.objectMapper = objectMapper;
+        this.client = HttpClient.newBuilder().connectTimeout(timeout).build();
+    }
+
+    @Override
+    public void send(List<OutboxEvent> events) throws IOException {
+        HttpRequest request = HttpRequest.newBuilder(uri).timeout(timeout).header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(events))).build();
+        HttpResponse<Void> response;
+        try {
+            response = client.send(request, HttpResponse.BodyHandlers.discarding());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while sending outbox events to " + uri, e);
+        }
+        if (response.statusCode() / 100 != 2) {
+            throw new IOException("Outbox events rejected by " + uri + " with status " + response.statusCode());
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.onelity.bookme.outbox;
+
+import com.onelity.bookme.model.OutboxEvent;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps relayed events in a bounded in-memory queue, for consumers in the same process and for local testing. When the
+ * queue cannot take a whole batch, the batch is rejected and stays in the outbox until the consumer catches up.
+ */
+public class InMemoryOutboxSink implements OutboxSink {
+
+    private final BlockingQueue<OutboxEvent> queue;
+
+    public InMemoryOutboxSink(int capacity) {
+        this.queue = new ArrayBlockingQueue<>(capacity);
+    }
+
+    @Override
+    public synchronized void send(List<OutboxEvent> events) throws IOException {
+        if (queue.remainingCapacity() < events.size()) {
+            throw new IOException("In-memory outbox sink is full");
+        }
+        queue.addAll(events);
+    }
+
+    /**
+     * Takes the next event, waiting for one to be relayed if the queue is empty
+     *
+     * @param timeout
+     *            how long to wait at most
+     * @param unit
+     *            unit of the timeout
+     *
+     * @return returns the next event, or null if none was relayed in time
+     */
+    public OutboxEvent poll(long timeout, TimeUnit unit) throws InterruptedException {
+        return queue.poll(timeout, unit);
+    }
+
+    /**
+     * Takes all events currently in the queue
+     *
+     * @return returns the events in the order they were relayed
+     */
+    public List<OutboxEvent> drain() {
+        List<OutboxEvent> events = new ArrayList<>();
+        queue.drainTo(events);
+        return events;
+    }
+}
@@ -0,0 +1,155 @@
+package com.onelity.bookme.outbox;
+
+import com.onelity.bookme.model.OutboxEvent;
+import com.onelity.bookme.repository.OutboxEventRepository;
+import com.onelity.bookme.sharding.Shards;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.Connection;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.sql.DataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Drains the outbox to the configured OutboxSink in batches. The relay holds an advisory lock on a connection of its
+ * own while it drains the outbox, so only one relay runs at a time across all instances and events are sent in id
+ * order. Batches are sent outside of any transaction, so a slow sink holds neither row locks nor a transaction open.
+ * A batch is deleted only after the sink accepted it; when the sink fails, the relay stops and sends the same batch
+ * again on its next run. Delivery is therefore at least once, and events of a room never overtake each other. The lock
+ * is released with its connection if the instance dies. When rooms are sharded by location, see Shards, each
+ * location's database has its own outbox, which is drained in turn.
+ */
+@Component
+public class OutboxRelay {
+
+    public static final String RELAYED_COUNTER = "bookme.outbox.relayed";
+    public static final String FAILURE_COUNTER = "bookme.outbox.failures";
+    public static final String LAG_TIMER = "bookme.outbox.lag";
+    public static final String OLDEST_GAUGE = "bookme.outbox.oldest.age";
+
+    /** Key of the advisory lock held by the relay while it drains the outbox */
+    public static final long LOCK_KEY = 0x626f6f6b6d65L;
+
+    private static final Logger log = LoggerFactory.getLogger(OutboxRelay.class);
+
+    private final OutboxEventRepository repo;
+    private final OutboxSink sink;
+    private final DataSource dataSource;
+    private final Shards shards;
+    private final int batchSize;
+    private final Counter relayed;
+    private final Counter failures;
+    private final Timer lag;
+    /** Creation time in epoch millis of the oldest event left in the outbox after the last run, or 0 if none */
+    private final AtomicLong oldestPending = new AtomicLong();
+
+    public OutboxRelay(OutboxEventRepository repo, OutboxSink sink, DataSource dataSource, Shards shards,
+            MeterRegistry registry, @Value("${bookme.outbox.batch-size:100}") int batchSize) {
+        this.repo = repo;
+        this.sink = sink;
+        this.dataSource = dataSource;
+        this.shards = shards;
+        this.batchSize = batchSize;
+        this.relayed = Counter.builder(RELAYED_COUNTER).description("Outbox events accepted by the sink")
+                .register(registry);
+        this.failures = Counter.builder(FAILURE_COUNTER).description("Outbox batches the sink failed to accept")
+                .register(registry);
+        this.lag = Timer.builder(LAG_TIMER).description("Time from committing a change until the sink accepted it")
+                .register(registry);
+        registry.gauge(OLDEST_GAUGE, oldestPending, oldest -> oldest.get() == 0 ? 0
+                : Math.max(0, System.currentTimeMillis() - oldest.get()) / 1000.0);
+    }
+
+    /**
+     * Sends batches until the outbox is empty, the sink fails, or another relay holds the lock
+     *
+     * @return returns the number of events relayed
+     */
+    @Scheduled(fixedDelayString = "${bookme.outbox.interval:PT1S}")
+    public int relay() {
+        int total = 0;
+        try {
+            for (int sent : shards.forEach(this::relayAll)) {
+                total += sent;
+            }
+        } catch (RuntimeException e) {
+            failures.increment();
+            log.warn("Relaying outbox events failed, retrying on the next run", e);
+        }
+        return total;
+    }
+
+    /**
+     * Sends batches while holding the lock of the relay, which is taken and released on a connection of its own
+     *
+     * @return returns the number of events sent, or 0 if the outbox is empty or another relay holds the lock
+     */
+    private int relayAll() {
+        Connection connection = DataSourceUtils.getConnection(dataSource);
+        try {
+            JdbcTemplate lock = new JdbcTemplate(new SingleConnectionDataSource(connection, true));
+            if (!Boolean.TRUE.equals(lock.queryForObject("SELECT pg_try_advisory_lock(?)", Boolean.class, LOCK_KEY))) {
+                return 0;
+            }
+            try {
+                int total = 0;
+                int sent;
+                do {
+                    sent = relayBatch();
+                    total += sent;
+                } while (sent == batchSize);
+                return total;
+            } finally {
+                lock.queryForObject("SELECT pg_advisory_unlock(?)", Boolean.class, LOCK_KEY);
+            }
+        } finally {
+            DataSourceUtils.releaseConnection(connection, dataSource);
+        }
+    }
+
+    /**
+     * Reads and sends one batch of events, then deletes them once the sink accepted them
+     *
+     * @return returns the number of events sent, or 0 if the outbox is empty
+     */
+    private int relayBatch() {
+        List<OutboxEvent> events = repo.findOldest(batchSize);
+        if (events.isEmpty()) {
+            oldestPending.set(0);
+            return 0;
+        }
+        oldestPending.set(events.get(0).getCreatedAt().toEpochMilli());
+        try {
+            sink.send(events);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        List<Long> ids = new ArrayList<>(events.size());
+        Instant now = Instant.now();
+        for (OutboxEvent event : events) {
+            ids.add(event.getId());
+            lag.record(Math.max(0, Duration.between(event.getCreatedAt(), now).toMillis()), TimeUnit.MILLISECONDS);
+        }
+        repo.deleteAllByIdInBatch(ids);
+        relayed.increment(events.size());
+        if (events.size() < batchSize) {
+            oldestPending.set(0);
+        }
+        return events.size();
+    }
+}
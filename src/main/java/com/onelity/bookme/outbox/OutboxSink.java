@@ -0,0 +1,21 @@
+package com.onelity.bookme.outbox;
+
+import com.onelity.bookme.model.OutboxEvent;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Destination of the events relayed from the outbox. A sink accepts a batch as a whole: if send returns, all events of
+ * the batch are deleted from the outbox; if it throws, the whole batch is sent again later, so downstream systems must
+ * ignore events whose id they have already seen.
+ */
+public interface OutboxSink {
+
+    /**
+     * Delivers a batch of events
+     *
+     * @param events
+     *            events ordered by id, which is the order they were committed in for each room
+     */
+    void send(List<OutboxEvent> events) throws IOException;
+}
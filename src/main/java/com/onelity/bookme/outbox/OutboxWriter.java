@@ -0,0 +1,36 @@
+package com.onelity.bookme.outbox;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.onelity.bookme.dto.ChangeDTO;
+import com.onelity.bookme.model.OutboxEvent;
+import com.onelity.bookme.repository.OutboxEventRepository;
+import java.time.Instant;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Writes the changes published by RoomService and BookingService into the outbox. It runs just before the transaction
+ * making the change commits, so the change and its outbox event are committed or rolled back together.
+ * <p>
+ * All changes affecting an existing room hold the lock on the version row of BOOKINGS or ROOMS (see
+ * DataVersionService) until they commit, so the ids of events of the same room follow their commit order.
+ */
+@Component
+public class OutboxWriter {
+
+    private final OutboxEventRepository repo;
+    private final ObjectMapper objectMapper;
+
+    public OutboxWriter(OutboxEventRepository repo, ObjectMapper objectMapper) {
+        this.repo = repo;
+        this.objectMapper = objectMapper;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT)
+    public void write(ChangeDTO change) throws JsonProcessingException {
+        repo.save(new OutboxEvent(change.getRoomId(), change.getResource(), change.getAction(),
+                change.getResourceId(), objectMapper.writeValueAsString(change), Instant.now()));
+    }
+}
@@ -0,0 +1,94 @@
+package com.onelity.bookme.replica;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Set;
+import org.springframework.http.HttpMethod;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * Lets GET requests read from one of the replicas, see Replicas, unless their client changed something within the last
+ * bookme.replicas.read-your-writes, so that users always see their own changes even while the replicas lag behind. All
+ * other requests read from the primary, as they check what they are about to change.
+ * <p>
+ * Requests which can change something set the READ_PRIMARY_COOKIE before they are handled, as their response may reach
+ * the client before the request completes. The cookie holds the time until which the client reads from the primary, so
+ * that every instance behind a load balancer honours it.
+ */
+public class ReplicaReadFilter extends OncePerRequestFilter {
+
+    public static final String READ_PRIMARY_COOKIE = "Bookme-Read-Primary-Until";
+
+    private static final Set<HttpMethod> WRITE_METHODS = Set.of(HttpMethod.POST, HttpMethod.PUT, HttpMethod.PATCH,
+            HttpMethod.DELETE);
+
+    private final Replicas replicas;
+    private final long readYourWritesMillis;
+
+    /**
+     * @param replicas
+     *            the replicas to read from
+     * @param readYourWrites
+     *            how long clients read from the primary after a change of their own
+     */
+    public ReplicaReadFilter(Replicas replicas, Duration readYourWrites) {
+        this.replicas = replicas;
+        this.readYourWritesMillis = readYourWrites.toMillis();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        HttpMethod method = HttpMethod.valueOf(request.getMethod());
+        if (WRITE_METHODS.contains(method)) {
+            wrote(response);
+        }
+        if ((method != HttpMethod.GET && method != HttpMethod.HEAD) || wroteRecently(request)) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        replicas.pick();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            Replicas.release();
+        }
+    }
+
+    /**
+     * Lets the client read from the primary for readYourWrites
+     */
+    private void wrote(HttpServletResponse response) {
+        if (readYourWritesMillis <= 0) {
+            return;
+        }
+        Cookie cookie = new Cookie(READ_PRIMARY_COOKIE,
+                String.valueOf(System.currentTimeMillis() + readYourWritesMillis));
+        cookie.setPath("/");
+        cookie.setHttpOnly(true);
+        cookie.setMaxAge((int) Math.ceilDiv(readYourWritesMillis, 1000));
+        response.addCookie(cookie);
+    }
+
+    private static boolean wroteRecently(HttpServletRequest request) {
+        Cookie[] cookies = request.getCookies();
+        if (cookies == null) {
+            return false;
+        }
+        for (Cookie cookie : cookies) {
+            if (READ_PRIMARY_COOKIE.equals(cookie.getName())) {
+                try {
+                    return Long.parseLong(cookie.getValue()) > System.currentTimeMillis();
+                } catch (NumberFormatException e) {
+                    return false;
+                }
+            }
+        }
+        return false;
+    }
+}
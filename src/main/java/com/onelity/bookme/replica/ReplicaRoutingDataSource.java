@@ -0,0 +1,70 @@
+package com.onelity.bookme.replica;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import javax.sql.DataSource;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Hands out connections to the replica picked for the current thread for its reads, see Replicas, and to the primary
+ * for everything else. Reads are read-only transactions and statements outside of any transaction, e.g. lazy loading;
+ * read-write transactions always go to the primary. If no connection to the replica can be opened, the current thread
+ * reads from the primary instead. The transaction must be known when the connection is requested, so this data source
+ * is used behind a LazyConnectionDataSourceProxy.
+ */
+public class ReplicaRoutingDataSource extends AbstractDataSource {
+
+    private final DataSource primary;
+    private final Replicas replicas;
+
+    /**
+     * @param primary
+     *            the primary database, configured by spring.datasource.*
+     * @param replicas
+     *            the replicas of the primary
+     */
+    public ReplicaRoutingDataSource(DataSource primary, Replicas replicas) {
+        this.primary = primary;
+        this.replicas = replicas;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        DataSource replica = isRead() ? Replicas.current() : null;
+        if (replica != null) {
+            try {
+                return replica.getConnection();
+            } catch (SQLException e) {
+                replicas.failed(replica, e);
+                Replicas.release();
+            }
+        }
+        return primary.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        // Credentials are configured per database, so connections with other credentials can only be for the primary
+        return primary.getConnection(username, password);
+    }
+
+    private static boolean isRead() {
+        return Replicas.current() != null && (!TransactionSynchronizationManager.isActualTransactionActive()
+                || TransactionSynchronizationManager.isCurrentTransactionReadOnly());
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(this)) {
+            return (T) this;
+        }
+        return primary.unwrap(iface);
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) throws SQLException {
+        return iface.isInstance(this) || primary.isWrapperFor(iface);
+    }
+}
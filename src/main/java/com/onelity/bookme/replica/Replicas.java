@@ -0,0 +1,153 @@
+package com.onelity.bookme.replica;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.sql.DataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+/**
+ * Replicas keeps track of the read replicas of the database when bookme.replicas.enabled is true, and of the replica
+ * the current thread may read from, which ReplicaReadFilter picks for each GET request. Requests are spread over the
+ * healthy replicas in turn, and all reads of one request go to the same replica, so that they see the same state. A
+ * replica is unhealthy while it cannot be reached or lags more than bookme.replicas.max-lag behind the primary; it is
+ * checked every bookme.replicas.health-check-interval, and reads go to the primary while no replica is healthy.
+ */
+public class Replicas implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(Replicas.class);
+
+    /**
+     * Seconds since the last replayed transaction, or 0 while the replica has replayed everything it received.
+     * Databases which are no replica, e.g. a second local instance, always report 0.
+     */
+    private static final String LAG_QUERY = "SELECT CASE WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() "
+            + "THEN 0 ELSE COALESCE(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()), 0) END";
+
+    private static final ThreadLocal<DataSource> CURRENT = new ThreadLocal<>();
+
+    private final List<Replica> replicas = new ArrayList<>();
+    private final AtomicInteger next = new AtomicInteger();
+    private final long maxLagMillis;
+
+    /**
+     * @param databases
+     *            the connection pool of each replica by its name
+     * @param maxLag
+     *            how far a replica may lag behind the primary before reads skip it
+     */
+    public Replicas(Map<String, ? extends DataSource> databases, Duration maxLag) {
+        databases.forEach((name, dataSource) -> replicas.add(new Replica(name, dataSource)));
+        this.maxLagMillis = maxLag.toMillis();
+    }
+
+    /**
+     * @return returns the replica the current thread may read from, or null if it reads from the primary
+     */
+    public static DataSource current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Lets the current thread read from the next healthy replica until release() is called, see ReplicaReadFilter. The
+     * current thread keeps reading from the primary while no replica is healthy.
+     */
+    public void pick() {
+        DataSource replica = next();
+        if (replica != null) {
+            CURRENT.set(replica);
+        }
+    }
+
+    /**
+     * Lets the current thread read from the primary again
+     */
+    public static void release() {
+        CURRENT.remove();
+    }
+
+    /**
+     * @return returns the next healthy replica to read from, or null if there is none
+     */
+    public DataSource next() {
+        int start = next.getAndIncrement();
+        for (int i = 0; i < replicas.size(); i++) {
+            Replica replica = replicas.get(Math.floorMod(start + i, replicas.size()));
+            if (replica.healthy) {
+                return replica.dataSource;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Takes a replica out of the rotation until the next health check finds it healthy again
+     *
+     * @param dataSource
+     *            the replica, as returned by next()
+     * @param cause
+     *            why no connection to it could be opened
+     */
+    public void failed(DataSource dataSource, Exception cause) {
+        for (Replica replica : replicas) {
+            if (replica.dataSource == dataSource) {
+                setHealthy(replica, false, cause.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Checks whether each replica can be reached and how far it lags behind the primary
+     */
+    @Scheduled(fixedDelayString = "${bookme.replicas.health-check-interval:PT5S}")
+    public void checkHealth() {
+        for (Replica replica : replicas) {
+            try {
+                Double lagSeconds = new JdbcTemplate(replica.dataSource).queryForObject(LAG_QUERY, Double.class);
+                long lagMillis = lagSeconds == null ? 0 : (long) (lagSeconds * 1000);
+                setHealthy(replica, lagMillis <= maxLagMillis, "lag of " + lagMillis + " ms");
+            } catch (DataAccessException e) {
+                setHealthy(replica, false, e.getMessage());
+            }
+        }
+    }
+
+    private static void setHealthy(Replica replica, boolean healthy, String reason) {
+        if (replica.healthy != healthy) {
+            replica.healthy = healthy;
+            if (healthy) {
+                log.info("Replica {} is healthy again, {}", replica.name, reason);
+            } else {
+                log.warn("Replica {} is unhealthy, reading from the primary instead: {}", replica.name, reason);
+            }
+        }
+    }
+
+    @Override
+    public void close() throws Exception {
+        for (Replica replica : replicas) {
+            if (replica.dataSource instanceof AutoCloseable pool) {
+                pool.close();
+            }
+        }
+    }
+
+    private static final class Replica {
+
+        private final String name;
+        private final DataSource dataSource;
+        /** Replicas count as healthy until proven otherwise, as failing to connect takes them out right away */
+        private volatile boolean healthy = true;
+
+        private Replica(String name, DataSource dataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+        }
+    }
+}
@@ -2,47 +2,268 @@ package com.onelity.bookme.repository;
 
 import java.sql.Date;
 import java.sql.Time;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.onelity.bookme.model.Booking;
+import com.onelity.bookme.model.BookingSlot;
 import com.onelity.bookme.model.Room;
 
 /**
  * Repository which handles accessing bookings through the database and returning results to BookingService
  */
 @Repository
-public interface BookingRepository extends JpaRepository<Booking, Long> {
+public interface BookingRepository extends JpaRepository<Booking, Long>, JpaSpecificationExecutor<Booking> {
 
     List<Booking> findAllByRoom(Room room);
 
+    /**
+     * Finds bookings matching filters from BookingSpecifications, loading their rooms in the same query
+     *
+     * @return returns list of matching bookings
+     */
+    @Override
+    @EntityGraph(attributePaths = "room")
+    public List<Booking> findAll(Specification<Booking> spec, Sort sort);
+
+    /**
+     * Finds a booking by id unless its room is being deleted, loading its room in the same query
+     *
+     * @return returns the booking, or empty if it does not exist or its room is not available
+     */
+    @Query("SELECT b FROM bookings b JOIN FETCH b.room r WHERE b.id = :id AND r.available = true")
+    public Optional<Booking> findInAvailableRoomById(@Param("id") Long id);
+
+    /**
+     * Finds bookings by id with one IN query, loading their rooms in the same query. Bookings of rooms which are being
+     * deleted are left out.
+     *
+     * @return returns the bookings which exist, in no particular order
+     */
+    @Query("SELECT b FROM bookings b JOIN FETCH b.room r WHERE b.id IN :ids AND r.available = true")
+    public List<Booking> findAllWithRoomByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Finds a booking in a certain room with more participants than a given capacity
+     *
+     * @return returns the first such booking, or null if all bookings fit
+     */
+    public Booking findFirstByRoom_IdAndParticipantsGreaterThan(Long roomId, Integer capacity);
+
+    /**
+     * Updates a booking in a single statement if its version is still the expected one, increments the version and
+     * stamps it with the given change sequence
+     *
+     * @return returns the new version, or null if no booking with given id and version exists
+     */
+    @Transactional
+    @Query(value = "UPDATE bookings SET room = :room, title = :title, description = :description, "
+            + "start_date = :startDate, end_date = :endDate, start_time = :startTime, end_time = :endTime, "
+            + "participants = :participants, repeat_pattern = :repeatPattern, creator = :creator, "
+            + "version = version + 1, change_seq = :changeSeq WHERE id = :id AND version = :version "
+            + "RETURNING version", nativeQuery = true)
+    public Long updateIfVersion(@Param("id") Long id, @Param("version") Long version,
+            @Param("changeSeq") Long changeSeq, @Param("room") Long room,
+            @Param("title") String title, @Param("description") String description,
+            @Param("startDate") Date startDate, @Param("endDate") Date endDate, @Param("startTime") Time startTime,
+            @Param("endTime") Time endTime, @Param("participants") Integer participants,
+            @Param("repeatPattern") String repeatPattern, @Param("creator") Long creator);
+
+    /**
+     * Marks a booking as deleted, leaving it in the table as a tombstone stamped with the given change sequence
+     */
+    @Modifying
+    @Query(value = "UPDATE bookings SET deleted = true, version = version + 1, change_seq = :changeSeq "
+            + "WHERE id = :id AND deleted = false", nativeQuery = true)
+    public void markDeleted(@Param("id") Long id, @Param("changeSeq") Long changeSeq);
+
+    /**
+     * Marks all bookings matching the given filters as deleted in a single statement, leaving them in the table as
+     * tombstones stamped with the given change sequence. A null filter matches all bookings. A booking matches a date
+     * range only if it lies entirely within it, so repetitions outside the range are never deleted.
+     *
+     * @param creator
+     *            username of the creator, or null for all users
+     *
+     * @return returns the ids, rooms and room locations of the deleted bookings
+     */
+    @Transactional
+    @Query(value = "WITH deleted AS (UPDATE bookings SET deleted = true, version = version + 1, "
+            + "change_seq = :changeSeq WHERE deleted = false "
+            + "AND (CAST(:room AS bigint) IS NULL OR room = CAST(:room AS bigint)) "
+            + "AND (CAST(:from AS date) IS NULL OR start_date >= CAST(:from AS date)) "
+            + "AND (CAST(:to AS date) IS NULL OR end_date <= CAST(:to AS date)) "
+            + "AND (CAST(:creator AS text) IS NULL "
+            + "OR creator = (SELECT id FROM users WHERE username = CAST(:creator AS text))) RETURNING id, room) "
+            + "SELECT d.id AS id, d.room AS room, m.location AS location FROM deleted d "
+            + "JOIN meeting_rooms m ON m.id = d.room", nativeQuery = true)
+    public List<DeletedBooking> markAllDeleted(@Param("changeSeq") Long changeSeq, @Param("room") Long room,
+            @Param("from") Date from, @Param("to") Date to, @Param("creator") String creator);
+
+    /**
+     * Stamps all bookings of a room with the given change sequence, e.g. because their room was renamed
+     */
+    @Modifying
+    @Query(value = "UPDATE bookings SET change_seq = :changeSeq WHERE room = :room AND deleted = false",
+            nativeQuery = true)
+    public void touchAllByRoom(@Param("room") Long room, @Param("changeSeq") Long changeSeq);
+
+    /**
+     * Counts the bookings of a room, including deleted and archived ones, which would be deleted for good with the room
+     */
+    @Query(value = "SELECT (SELECT count(*) FROM bookings WHERE room = :room) "
+            + "+ (SELECT count(*) FROM bookings_archive WHERE room = :room)", nativeQuery = true)
+    public long countIncludingDeletedByRoom(@Param("room") Long room);
+
+    /**
+     * Deletes up to a given number of bookings of a room for good, including deleted ones, so that deleting a room
+     * with years of bookings does not have to be one long transaction
+     *
+     * @return returns the number of deleted bookings, less than the limit once the room has no bookings left
+     */
+    @Modifying
+    @Query(value = "DELETE FROM bookings WHERE id IN (SELECT id FROM bookings WHERE room = :room LIMIT :limit)",
+            nativeQuery = true)
+    public int deleteChunkByRoom(@Param("room") Long room, @Param("limit") int limit);
+
+    /**
+     * Deletes up to a given number of archived bookings of a room for good, see deleteChunkByRoom
+     *
+     * @return returns the number of deleted bookings
+     */
+    @Modifying
+    @Query(value = "DELETE FROM bookings_archive WHERE id IN "
+            + "(SELECT id FROM bookings_archive WHERE room = :room LIMIT :limit)", nativeQuery = true)
+    public int deleteArchivedChunkByRoom(@Param("room") Long room, @Param("limit") int limit);
+
+    /**
+     * Moves up to a given number of bookings which ended before a date and do not repeat to bookings_archive, stamped
+     * with the given change sequence so that /bookings/changes lists them as archived. Only the partitions of the
+     * bookings table up to that date are scanned.
+     *
+     * @return returns the number of archived bookings
+     */
+    @Modifying
+    @Query(value = "WITH moved AS (DELETE FROM bookings WHERE id IN (SELECT id FROM bookings WHERE end_date < :before "
+            + "AND repeat_pattern IS NULL LIMIT :limit) AND end_date < :before RETURNING *) "
+            + "INSERT INTO bookings_archive (id, room, title, description, start_date, end_date, start_time, end_time, "
+            + "participants, repeat_pattern, creator, version, change_seq, deleted) "
+            + "SELECT id, room, title, description, start_date, end_date, start_time, end_time, participants, "
+            + "repeat_pattern, creator, version, :changeSeq, deleted FROM moved", nativeQuery = true)
+    public int archiveChunk(@Param("before") Date before, @Param("limit") int limit,
+            @Param("changeSeq") Long changeSeq);
+
+    /**
+     * Finds the ids of bookings archived after a given change sequence, using the index on change_seq. Bookings of
+     * rooms which are being deleted are left out.
+     *
+     * @return returns the ids of the archived bookings
+     */
+    @Query(value = "SELECT a.id FROM bookings_archive a JOIN meeting_rooms r ON r.id = a.room "
+            + "WHERE a.change_seq > :since AND r.available = true ORDER BY a.change_seq", nativeQuery = true)
+    public List<Long> findArchivedIdsSince(@Param("since") Long since);
+
+    /**
+     * Finds archived bookings in a certain room that overlap with a given booking's dates and times, for bookings
+     * reaching back to dates before which bookings may have been archived
+     *
+     * @return returns the overlapping archived bookings, without their rooms loaded
+     */
+    @Query(value = "SELECT * FROM bookings_archive WHERE room = :room AND deleted = false "
+            + "AND end_date >= :startDate AND start_date <= :endDate "
+            + "AND start_time < :endTime AND end_time > :startTime", nativeQuery = true)
+    public List<Booking> findOverlappingArchived(@Param("startDate") Date startDate, @Param("endDate") Date endDate,
+            @Param("startTime") Time startTime, @Param("endTime") Time endTime, @Param("room") Long room);
+
+    /**
+     * Finds archived bookings matching the same filters as BookingSpecifications, see archiveChunk. A null filter
+     * matches all bookings.
+     *
+     * @param creator
+     *            username of the creator, or null for all users
+     *
+     * @return returns the matching archived bookings of available rooms ordered by start date and time, without their
+     *         rooms loaded
+     */
+    @Query(value = "SELECT * FROM bookings_archive WHERE deleted = false "
+            + "AND room IN (SELECT id FROM meeting_rooms WHERE available = true) "
+            + "AND (CAST(:room AS bigint) IS NULL OR room = CAST(:room AS bigint)) "
+            + "AND (CAST(:from AS date) IS NULL OR end_date >= CAST(:from AS date)) "
+            + "AND (CAST(:to AS date) IS NULL OR start_date <= CAST(:to AS date)) "
+            + "AND (CAST(:creator AS text) IS NULL "
+            + "OR creator = (SELECT id FROM users WHERE username = CAST(:creator AS text))) "
+            + "ORDER BY start_date, start_time", nativeQuery = true)
+    public List<Booking> findArchived(@Param("room") Long room, @Param("from") Date from, @Param("to") Date to,
+            @Param("creator") String creator);
+
+    /**
+     * Creates the partition of the bookings table for a year unless it exists, see V5__partition_and_archive_bookings
+     *
+     * @return returns true if the partition was created
+     */
+    @Transactional
+    @Query(value = "SELECT bookings_ensure_partition(:year)", nativeQuery = true)
+    public boolean ensurePartition(@Param("year") int year);
+
+    /**
+     * Finds bookings created, updated or deleted after a given change sequence, using the index on change_seq. Deleted
+     * bookings are included, bookings of rooms which are being deleted are not.
+     *
+     * @return returns the changed bookings ordered by change sequence
+     */
+    @Query(value = "SELECT b.* FROM bookings b JOIN meeting_rooms r ON r.id = b.room "
+            + "WHERE b.change_seq > :since AND r.available = true ORDER BY b.change_seq", nativeQuery = true)
+    public List<Booking> findAllChangedSince(@Param("since") Long since);
+
     /**
      * Finds bookings in a certain room that overlap with a given booking's dates and times, considering all existing
-     * bookings in database
+     * bookings in database. Only the slots of the bookings are loaded.
      *
-     * @return returns list of overlapping bookings
+     * @return returns list of slots of the overlapping bookings
      */
-    @Query("SELECT DISTINCT b FROM bookings b WHERE :room = b.room AND "
+    @Query("SELECT new com.onelity.bookme.model.BookingSlot(b.startDate, b.endDate, b.startTime, b.endTime, "
+            + "b.repeat_pattern) FROM bookings b WHERE :room = b.room AND "
             + ":endTime > b.startTime AND :startTime < b.endTime AND "
             + ":endDate >= b.startDate AND :startDate <= b.endDate")
-    public List<Booking> findOverlappingBookingsCreate(@Param("startDate") Date startDate,
+    public List<BookingSlot> findOverlappingBookingsCreate(@Param("startDate") Date startDate,
             @Param("endDate") Date endDate, @Param("startTime") Time startTime, @Param("endTime") Time endTime,
             @Param("room") Room room);
 
     /**
      * Finds bookings in a certain room that overlap with a given booking's dates and times, ignoring the booking that
-     * is being updated, which is allowed to overlap with its previous date and time
+     * is being updated, which is allowed to overlap with its previous date and time. Only the slots of the bookings are
+     * loaded.
      *
-     * @return returns list of overlapping bookings
+     * @return returns list of slots of the overlapping bookings
      */
-    @Query("SELECT DISTINCT b FROM bookings b WHERE :room = b.room AND "
+    @Query("SELECT new com.onelity.bookme.model.BookingSlot(b.startDate, b.endDate, b.startTime, b.endTime, "
+            + "b.repeat_pattern) FROM bookings b WHERE :room = b.room AND "
             + ":endTime > b.startTime AND :startTime < b.endTime AND "
             + ":endDate >= b.startDate AND :startDate <= b.endDate AND " + ":id <> b.id")
-    public List<Booking> findOverlappingBookingsUpdate(@Param("startDate") Date startDate,
+    public List<BookingSlot> findOverlappingBookingsUpdate(@Param("startDate") Date startDate,
             @Param("endDate") Date endDate, @Param("startTime") Time startTime, @Param("endTime") Time endTime,
             @Param("room") Room room, @Param("id") Long id);
+
+    /**
+     * Booking deleted by markAllDeleted, with what the change stream needs to know about its room
+     */
+    public interface DeletedBooking {
+        Long getId();
+
+        Long getRoom();
+
+        String getLocation();
+    }
 }
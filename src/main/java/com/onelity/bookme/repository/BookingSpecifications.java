@@ -0,0 +1,61 @@
+package com.onelity.bookme.repository;
+
+import java.sql.Date;
+import java.time.LocalDate;
+
+import org.springframework.data.jpa.domain.Specification;
+
+import com.onelity.bookme.model.Booking;
+
+/**
+ * Filters for bookings which can be combined into one query through BookingRepository.findAll(Specification, Sort).
+ * Only the filters actually requested end up in the SQL, so Postgres can use the index that fits them.
+ */
+public final class BookingSpecifications {
+
+    private BookingSpecifications() {
+    }
+
+    /**
+     * Bookings of rooms which are available, i.e. not being deleted; the bookings of a deleted room stay in the table
+     * until its deletion job purged them
+     */
+    public static Specification<Booking> inAvailableRoom() {
+        return (booking, query, builder) -> builder.isTrue(booking.get("room").get("available"));
+    }
+
+    /**
+     * Bookings of a room, using the index on (room, end_date, start_date)
+     */
+    public static Specification<Booking> inRoom(Long roomId) {
+        return (booking, query, builder) -> builder.equal(booking.get("room").get("id"), roomId);
+    }
+
+    /**
+     * Bookings created by a user, using the index on (creator, end_date, start_date)
+     */
+    public static Specification<Booking> createdBy(String username) {
+        return (booking, query, builder) -> builder.equal(booking.get("creator").get("username"), username);
+    }
+
+    /**
+     * Bookings whose dates, including all repetitions, overlap with a date range
+     *
+     * @param from
+     *            first date of the range, or null for no lower bound
+     * @param to
+     *            last date of the range, or null for no upper bound
+     */
+    public static Specification<Booking> overlapping(LocalDate from, LocalDate to) {
+        return (booking, query, builder) -> {
+            if (from == null) {
+                return builder.lessThanOrEqualTo(booking.get("startDate"), Date.valueOf(to));
+            }
+            if (to == null) {
+                return builder.greaterThanOrEqualTo(booking.get("endDate"), Date.valueOf(from));
+            }
+            return builder.and(builder.greaterThanOrEqualTo(booking.get("endDate"), Date.valueOf(from)),
+                    builder.lessThanOrEqualTo(booking.get("startDate"), Date.valueOf(to)));
+        };
+    }
+}
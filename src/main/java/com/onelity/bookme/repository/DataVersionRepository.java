@@ -0,0 +1,37 @@
+package com.onelity.bookme.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.onelity.bookme.model.DataVersion;
+
+/**
+ * Repository which handles reading and incrementing resource versions and returning results to DataVersionService
+ */
+@Repository
+public interface DataVersionRepository extends JpaRepository<DataVersion, String> {
+
+    /**
+     * Increments the version of a resource, creating it with version 1 if it does not exist yet. The row stays locked
+     * until the surrounding transaction ends, so versions are committed in increasing order.
+     *
+     * @return returns the new version
+     */
+    @Transactional
+    @Query(value = "INSERT INTO data_versions (resource, version) VALUES (:resource, 1) "
+            + "ON CONFLICT (resource) DO UPDATE SET version = data_versions.version + 1 RETURNING version",
+            nativeQuery = true)
+    public long increment(@Param("resource") String resource);
+
+    /**
+     * Sets the version of a resource, creating it if it does not exist yet
+     */
+    @Modifying
+    @Query(value = "INSERT INTO data_versions (resource, version) VALUES (:resource, :version) "
+            + "ON CONFLICT (resource) DO UPDATE SET version = EXCLUDED.version", nativeQuery = true)
+    public void set(@Param("resource") String resource, @Param("version") long version);
+}
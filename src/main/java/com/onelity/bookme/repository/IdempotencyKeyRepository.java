@@ -0,0 +1,101 @@
+package com.onelity.bookme.repository;
+
+import java.time.Instant;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.onelity.bookme.model.IdempotencyKey;
+
+/**
+ * Repository which handles claiming, completing and evicting idempotency keys for IdempotencyService
+ */
+@Repository
+public interface IdempotencyKeyRepository extends JpaRepository<IdempotencyKey, String> {
+
+    /**
+     * Claims a key for executing its request, unless it is already stored. A stored key is claimed again if it expired,
+     * or if it was claimed but its lock ran out without a response being stored, e.g. because the instance crashed.
+     *
+     * @return returns true if the key was claimed, or null if another request holds it or its response is stored
+     */
+    @Transactional
+    @Query(value = "INSERT INTO idempotency_keys (id, request_hash, locked_until, created_at) "
+            + "VALUES (:id, :requestHash, :lockedUntil, :now) ON CONFLICT (id) DO UPDATE SET "
+            + "request_hash = EXCLUDED.request_hash, status = NULL, response_body = NULL, response_etag = NULL, "
+            + "response_location = NULL, "
+            + "locked_until = EXCLUDED.locked_until, created_at = EXCLUDED.created_at "
+            + "WHERE idempotency_keys.created_at < :expiredBefore "
+            + "OR (idempotency_keys.status IS NULL AND idempotency_keys.locked_until < :now) RETURNING true",
+            nativeQuery = true)
+    public Boolean claim(@Param("id") String id, @Param("requestHash") String requestHash,
+            @Param("lockedUntil") Instant lockedUntil, @Param("now") Instant now,
+            @Param("expiredBefore") Instant expiredBefore);
+
+    /**
+     * Stores the response of a claimed key, with its ETag and Location headers if it has them
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE idempotency_keys SET status = :status, response_body = :responseBody, "
+            + "response_etag = :responseEtag, response_location = :responseLocation WHERE id = :id",
+            nativeQuery = true)
+    public void complete(@Param("id") String id, @Param("status") int status,
+            @Param("responseBody") String responseBody, @Param("responseEtag") String responseEtag,
+            @Param("responseLocation") String responseLocation);
+
+    /**
+     * Stores the response of a key in the current transaction, i.e. together with the change made by its request. The
+     * key is inserted if it was claimed in another database, e.g. the default database while bookings are sharded.
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO idempotency_keys (id, request_hash, status, response_body, response_etag, "
+            + "response_location, locked_until, created_at) VALUES (:id, :requestHash, :status, :responseBody, "
+            + ":responseEtag, :responseLocation, :now, :now) ON CONFLICT (id) DO UPDATE SET "
+            + "status = EXCLUDED.status, response_body = EXCLUDED.response_body, "
+            + "response_etag = EXCLUDED.response_etag, response_location = EXCLUDED.response_location",
+            nativeQuery = true)
+    public void store(@Param("id") String id, @Param("requestHash") String requestHash, @Param("status") int status,
+            @Param("responseBody") String responseBody, @Param("responseEtag") String responseEtag,
+            @Param("responseLocation") String responseLocation, @Param("now") Instant now);
+
+    /**
+     * Finds the stored response of a key which has not expired yet
+     */
+    @Query(value = "SELECT * FROM idempotency_keys WHERE id = :id AND request_hash = :requestHash "
+            + "AND status IS NOT NULL AND created_at >= :expiredBefore", nativeQuery = true)
+    public Optional<IdempotencyKey> findStored(@Param("id") String id, @Param("requestHash") String requestHash,
+            @Param("expiredBefore") Instant expiredBefore);
+
+    /**
+     * Releases a claimed key whose request failed, so that it can be retried
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "DELETE FROM idempotency_keys WHERE id = :id AND status IS NULL", nativeQuery = true)
+    public void release(@Param("id") String id);
+
+    /**
+     * Deletes stored keys created before a given time, using the index on created_at
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "DELETE FROM idempotency_keys WHERE created_at < :expiredBefore "
+            + "AND (status IS NOT NULL OR locked_until < :now)", nativeQuery = true)
+    public int deleteExpired(@Param("expiredBefore") Instant expiredBefore, @Param("now") Instant now);
+
+    /**
+     * Deletes the oldest stored responses beyond a maximum number of keys
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "DELETE FROM idempotency_keys WHERE id IN (SELECT id FROM idempotency_keys "
+            + "WHERE status IS NOT NULL ORDER BY created_at DESC OFFSET :maxEntries)", nativeQuery = true)
+    public int deleteOldestBeyond(@Param("maxEntries") int maxEntries);
+}
@@ -0,0 +1,25 @@
+package com.onelity.bookme.repository;
+
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.onelity.bookme.model.OutboxEvent;
+
+/**
+ * Repository which handles reading and deleting pending outbox events for OutboxRelay
+ */
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    /**
+     * Finds the oldest pending events
+     *
+     * @return returns up to limit events ordered by id
+     */
+    @Query(value = "SELECT * FROM outbox_events ORDER BY id LIMIT :limit", nativeQuery = true)
+    public List<OutboxEvent> findOldest(@Param("limit") int limit);
+}
@@ -0,0 +1,29 @@
+package com.onelity.bookme.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.onelity.bookme.model.RoomDeletionJob;
+
+/**
+ * Repository which handles creating, claiming and reporting room deletion jobs for RoomService
+ */
+@Repository
+public interface RoomDeletionJobRepository extends JpaRepository<RoomDeletionJob, Long> {
+
+    public RoomDeletionJob findFirstByRoomOrderByIdDesc(Long room);
+
+    public boolean existsByStatus(RoomDeletionJob.Status status);
+
+    /**
+     * Locks the oldest running job until the end of the transaction, skipping jobs locked by other instances
+     *
+     * @return returns the locked job, or null if there is no running job which is not locked
+     */
+    @Transactional
+    @Query(value = "SELECT * FROM room_deletion_jobs WHERE status = 'RUNNING' ORDER BY id LIMIT 1 "
+            + "FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    public RoomDeletionJob lockNextRunning();
+}
@@ -0,0 +1,56 @@
+package com.onelity.bookme.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.onelity.bookme.model.RoomName;
+
+/**
+ * Repository which handles claiming and releasing the names of sharded rooms in the default database and returning
+ * results to RoomService and BookingService
+ */
+@Repository
+public interface RoomNameRepository extends JpaRepository<RoomName, String> {
+
+    /**
+     * Claims a name for a room of a location, unless it is claimed already
+     *
+     * @param room
+     *            id of the room, or null if it is yet to be created
+     *
+     * @return returns 1 if the name was claimed, or 0 if it was claimed before
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO room_names (name, location, room) VALUES (:name, :location, CAST(:room AS bigint)) "
+            + "ON CONFLICT (name) DO NOTHING", nativeQuery = true)
+    public int claim(@Param("name") String name, @Param("location") String location, @Param("room") Long room);
+
+    /**
+     * Stores the id of a created room with the name claimed for it
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE room_names SET room = :room WHERE name = :name", nativeQuery = true)
+    public void assign(@Param("name") String name, @Param("room") Long room);
+
+    /**
+     * Releases the names of a room except the one it has now, i.e. its previous name after it was renamed
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "DELETE FROM room_names WHERE room = :room AND name <> :name", nativeQuery = true)
+    public void releaseAllBut(@Param("room") Long room, @Param("name") String name);
+
+    /**
+     * Releases the name of a room once it is deleted
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "DELETE FROM room_names WHERE room = :room", nativeQuery = true)
+    public void releaseAll(@Param("room") Long room);
+}
@@ -1,7 +1,13 @@
 package com.onelity.bookme.repository;
 
+import java.util.Collection;
+import java.util.List;
+
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.onelity.bookme.model.Room;
 
@@ -11,4 +17,34 @@ import com.onelity.bookme.model.Room;
 @Repository
 public interface RoomRepository extends JpaRepository<Room, Long> {
     public Room findByName(String name);
+
+    /**
+     * Finds a room by name unless it is being deleted
+     *
+     * @return returns the room, or null if no available room has that name
+     */
+    public Room findByNameAndAvailableTrue(String name);
+
+    public List<Room> findAllByAvailableTrue();
+
+    public List<Room> findAllByIdInAndAvailableTrue(Collection<Long> ids);
+
+    public boolean existsByIdAndAvailableTrue(Long id);
+
+    /**
+     * Updates a room in a single statement if its version is still the expected one and it is not being deleted, and
+     * increments the version
+     *
+     * @param version
+     *            expected current version of the room, or null to update regardless of version
+     *
+     * @return returns the new version, or null if no room with given id and version exists
+     */
+    @Transactional
+    @Query(value = "UPDATE meeting_rooms SET name = :name, location = :location, capacity = :capacity, "
+            + "version = version + 1 WHERE id = :id AND available = true "
+            + "AND (CAST(:version AS bigint) IS NULL OR version = CAST(:version AS bigint)) RETURNING version",
+            nativeQuery = true)
+    public Long updateIfVersion(@Param("id") Long id, @Param("version") Long version, @Param("name") String name,
+            @Param("location") String location, @Param("capacity") Integer capacity);
 }
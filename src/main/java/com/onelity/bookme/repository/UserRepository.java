@@ -1,6 +1,10 @@
 package com.onelity.bookme.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.onelity.bookme.model.User;
 
@@ -11,4 +15,15 @@ public interface UserRepository extends JpaRepository<User, Integer> {
 
     public User findByUsername(String username);
 
+    /**
+     * Copies a user of the default database to the database of a location while bookings are sharded, keeping the id
+     * so that bookings reference the same user in every database. The password is left out, as users only log in
+     * against the default database.
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO users (id, username, role) VALUES (:id, :username, :role) "
+            + "ON CONFLICT (id) DO UPDATE SET username = EXCLUDED.username, role = EXCLUDED.role", nativeQuery = true)
+    public void copy(@Param("id") Long id, @Param("username") String username, @Param("role") String role);
+
 }
@@ -0,0 +1,105 @@
+package com.onelity.bookme.service;
+
+import static com.onelity.bookme.service.DataVersionService.BOOKINGS;
+
+import com.onelity.bookme.repository.BookingRepository;
+import com.onelity.bookme.sharding.Shards;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.Period;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+
+/**
+ * BookingArchiveService keeps the bookings table small and partitioned. The table is partitioned by end date, one
+ * partition per year, and the partitions of the coming years are created ahead of time. Bookings which ended long ago
+ * and do not repeat are moved to the bookings_archive table, which the entity queries never read; GET /bookings only
+ * includes them when asked to, and /bookings/changes lists the ids of bookings archived since a version. Bookings
+ * starting before archivedBefore() are checked for conflicts with archived bookings as well. When bookings are sharded
+ * by location, see Shards, both jobs run against the database of each location in turn.
+ */
+public class BookingArchiveService {
+
+    private static final Logger log = LoggerFactory.getLogger(BookingArchiveService.class);
+
+    @Autowired
+    private BookingRepository repo;
+
+    @Autowired
+    private DataVersionService dataVersions;
+
+    @Autowired
+    private Shards shards;
+
+    /** Bookings are archived once they ended this long ago */
+    @Value("${bookme.archive.after:P90D}")
+    private Period archiveAfter;
+
+    @Value("${bookme.archive.chunk-size:1000}")
+    private int chunkSize;
+
+    @Value("${bookme.partitions.years-ahead:2}")
+    private int yearsAhead;
+
+    public BookingArchiveService() {
+    }
+
+    /**
+     * Creates the partitions of the bookings table for the current year and the following years, if they do not
+     * exist yet, so that new bookings do not end up in the default partition
+     */
+    @Scheduled(fixedDelayString = "${bookme.partitions.interval:P1D}")
+    public void createPartitions() {
+        int year = LocalDate.now().getYear();
+        shards.forEach(() -> {
+            for (int partitionYear = year; partitionYear <= year + yearsAhead; partitionYear++) {
+                if (repo.ensurePartition(partitionYear)) {
+                    log.info("Created bookings partition for {}", partitionYear);
+                }
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Gets the date before which bookings may have been archived
+     *
+     * @return returns the date bookme.archive.after ago
+     */
+    public LocalDate archivedBefore() {
+        return LocalDate.now().minus(archiveAfter);
+    }
+
+    /**
+     * Moves the bookings which do not repeat and ended before bookme.archive.after ago to the archive, in chunks of
+     * at most bookme.archive.chunk-size bookings, each in its own transaction. Each chunk is stamped with the change
+     * sequence of its transaction, so clients syncing through /bookings/changes learn which bookings were archived.
+     *
+     * @return returns the number of archived bookings
+     */
+    @Scheduled(cron = "${bookme.archive.cron:0 30 3 * * *}")
+    public long archivePastBookings() throws Exception {
+        Date before = Date.valueOf(archivedBefore());
+        long total = 0;
+        for (long archivedInLocation : shards.forEach(() -> archivePastBookings(before))) {
+            total += archivedInLocation;
+        }
+        if (total > 0) {
+            log.info("Archived {} bookings which ended before {}", total, before);
+        }
+        return total;
+    }
+
+    private long archivePastBookings(Date before) throws Exception {
+        long total = 0;
+        int archived;
+        do {
+            archived = dataVersions.change(seq -> repo.archiveChunk(before, chunkSize, seq), BOOKINGS);
+            total += archived;
+        } while (archived == chunkSize);
+        return total;
+    }
+}
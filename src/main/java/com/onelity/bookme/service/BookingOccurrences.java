@@ -0,0 +1,155 @@
+package com.onelity.bookme.service;
+
+import com.onelity.bookme.dto.OccurrenceDTO;
+import com.onelity.bookme.model.Booking;
+import com.onelity.bookme.model.RepeatPattern;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+
+/**
+ * Expands bookings into their occurrences within a window of dates. Expansion is lazy: the dates of a booking are
+ * computed one at a time and only within the window, so a series repeating for years costs as many steps as it has
+ * occurrences in the window. The repeat options have the meaning checked by BookingService: a booking without repeat
+ * option occurs on its start date, 'every day' on every date from start to end date, and 'every same day of the week'
+ * on every date from start to end date which falls on the weekday of the start date.
+ */
+public final class BookingOccurrences {
+
+    private static final Comparator<Head> ORDER = Comparator.comparing((Head head) -> head.date)
+            .thenComparing(head -> head.booking.getStartTime())
+            .thenComparing(head -> head.booking.getId(), Comparator.nullsFirst(Comparator.naturalOrder()));
+
+    private BookingOccurrences() {
+    }
+
+    /**
+     * Gets the dates on which a booking occurs within a window
+     *
+     * @param booking
+     *            booking to expand
+     * @param from
+     *            first date of the window
+     * @param to
+     *            last date of the window
+     *
+     * @return returns an iterator over the dates in increasing order
+     */
+    public static Iterator<LocalDate> dates(Booking booking, LocalDate from, LocalDate to) {
+        LocalDate start = booking.getStartDate().toLocalDate();
+        LocalDate end = booking.getEndDate().toLocalDate();
+        RepeatPattern repeatPattern = RepeatPattern.fromLabel(booking.getRepeat_pattern());
+        LocalDate first = start.isBefore(from) ? from : start;
+        LocalDate last = end.isAfter(to) ? to : end;
+        int step;
+        if (repeatPattern == RepeatPattern.EVERY_DAY) {
+            step = 1;
+        } else if (repeatPattern == RepeatPattern.EVERY_SAME_DAY_OF_WEEK) {
+            step = 7;
+            // Skip forward to the first date within the window falling on the weekday of the start date
+            first = first.plusDays(
+                    Math.floorMod(start.getDayOfWeek().getValue() - first.getDayOfWeek().getValue(), 7));
+        } else {
+            // Occurs once, so the window either contains the start date or nothing
+            step = 1;
+            first = start;
+            last = start.isAfter(to) || start.isBefore(from) ? start.minusDays(1) : start;
+        }
+        return new DateIterator(first, last, step);
+    }
+
+    /**
+     * Expands bookings into occurrences within a window, merging the occurrences of all bookings into one sequence
+     * ordered by date and start time. At any time only the next occurrence of each booking is held.
+     *
+     * @param bookings
+     *            bookings to expand
+     * @param from
+     *            first date of the window
+     * @param to
+     *            last date of the window
+     *
+     * @return returns an iterator over the occurrences
+     */
+    public static Iterator<OccurrenceDTO> merge(List<Booking> bookings, LocalDate from, LocalDate to) {
+        PriorityQueue<Head> heads = new PriorityQueue<>(Math.max(1, bookings.size()), ORDER);
+        for (Booking booking : bookings) {
+            Iterator<LocalDate> dates = dates(booking, from, to);
+            if (dates.hasNext()) {
+                heads.add(new Head(booking, dates, dates.next()));
+            }
+        }
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return !heads.isEmpty();
+            }
+
+            @Override
+            public OccurrenceDTO next() {
+                Head head = heads.poll();
+                if (head == null) {
+                    throw new NoSuchElementException();
+                }
+                OccurrenceDTO occurrence = convertToOccurrenceDTO(head.booking, head.date);
+                if (head.dates.hasNext()) {
+                    head.date = head.dates.next();
+                    heads.add(head);
+                }
+                return occurrence;
+            }
+        };
+    }
+
+    private static OccurrenceDTO convertToOccurrenceDTO(Booking booking, LocalDate date) {
+        return new OccurrenceDTO(booking.getId(), booking.getTitle(), booking.getDescription(), Date.valueOf(date),
+                booking.getStartTime(), booking.getEndTime(), booking.getParticipants(), booking.getRepeat_pattern());
+    }
+
+    /**
+     * Next occurrence of a booking, with the dates following it
+     */
+    private static final class Head {
+        private final Booking booking;
+        private final Iterator<LocalDate> dates;
+        private LocalDate date;
+
+        private Head(Booking booking, Iterator<LocalDate> dates, LocalDate date) {
+            this.booking = booking;
+            this.dates = dates;
+            this.date = date;
+        }
+    }
+
+    private static final class DateIterator implements Iterator<LocalDate> {
+        private final LocalDate last;
+        private final int step;
+        private LocalDate next;
+
+        private DateIterator(LocalDate first, LocalDate last, int step) {
+            this.next = first;
+            this.last = last;
+            this.step = step;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !next.isAfter(last);
+        }
+
+        @Override
+        public LocalDate next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            LocalDate date = next;
+            next = next.plus(step, ChronoUnit.DAYS);
+            return date;
+        }
+    }
+}
@@ -1,44 +1,147 @@
 package com.onelity.bookme.service;
 
+import static com.onelity.bookme.metrics.ServiceStages.BOOKING_STAGE;
+import static com.onelity.bookme.service.DataVersionService.BOOKINGS;
+import static com.onelity.bookme.service.DataVersionService.BOOKINGS_PURGED;
+
+import java.net.URI;
+import java.sql.Date;
+import java.time.LocalDate;
 import java.util.ArrayList;
-import java.util.Calendar;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 
-import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.User;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.WebRequest;
 
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.onelity.bookme.dto.BookingChangesDTO;
 import com.onelity.bookme.dto.BookingDTO;
+import com.onelity.bookme.dto.BulkDeleteDTO;
+import com.onelity.bookme.dto.ChangeDTO;
 import com.onelity.bookme.exception.BookingNotFoundException;
+import com.onelity.bookme.exception.ChangesExpiredException;
 import com.onelity.bookme.exception.ConflictingBookingsException;
 import com.onelity.bookme.exception.InvalidBookingException;
+import com.onelity.bookme.exception.PreconditionFailedException;
 import com.onelity.bookme.exception.UnauthorizedUserException;
+import com.onelity.bookme.jfr.BookingOperationEvent;
+import com.onelity.bookme.jfr.ConflictCheckEvent;
+import com.onelity.bookme.metrics.ServiceStages;
 import com.onelity.bookme.model.Booking;
+import com.onelity.bookme.model.BookingSlot;
 import com.onelity.bookme.model.CustomUserDetails;
+import com.onelity.bookme.model.RepeatPattern;
 import com.onelity.bookme.model.Room;
+import com.onelity.bookme.model.RoomName;
 import com.onelity.bookme.repository.BookingRepository;
+import com.onelity.bookme.repository.BookingRepository.DeletedBooking;
+import com.onelity.bookme.repository.BookingSpecifications;
+import com.onelity.bookme.repository.RoomNameRepository;
 import com.onelity.bookme.repository.RoomRepository;
+import com.onelity.bookme.repository.UserRepository;
+import com.onelity.bookme.sharding.Shards;
 
 /**
- * BookingService handles all business logic required for interacting with bookings
+ * BookingService handles all business logic required for interacting with bookings. When bookings are sharded by
+ * location, see Shards, each operation runs against the database of the location of its room, and lists are read from
+ * the databases of all locations.
  */
 public class BookingService {
 
+    // Rejections with a fixed message are preallocated, see RejectionException
+    private static final InvalidBookingException BOOKING_REQUIRED = new InvalidBookingException("booking_required",
+            "Booking cannot be null");
+    private static final InvalidBookingException ROOM_REQUIRED = new InvalidBookingException("room_required",
+            "Room can not be null");
+    private static final InvalidBookingException FIELDS_REQUIRED = new InvalidBookingException("fields_required",
+            "Fields of booking cannot be null (except description or repeat option)");
+    private static final InvalidBookingException TITLE_TOO_LONG = new InvalidBookingException("title_too_long",
+            "Booking title cannot be more than 100 characters");
+    private static final InvalidBookingException INVALID_REPEAT_PATTERN = new InvalidBookingException(
+            "invalid_repeat_pattern",
+            "Repeat option must either be null, 'every day', or 'every same day of the week'");
+    private static final InvalidBookingException START_DATE_AFTER_END_DATE = new InvalidBookingException(
+            "start_date_after_end_date", "Booking start date cannot be after booking end date");
+    private static final InvalidBookingException START_TIME_AFTER_END_TIME = new InvalidBookingException(
+            "start_time_after_end_time", "Booking start time must be before booking end time");
+    private static final InvalidBookingException NEGATIVE_PARTICIPANTS = new InvalidBookingException(
+            "negative_participants", "Participants cannot be less than 0");
+    private static final InvalidBookingException DATES_DIFFER_WITHOUT_REPEAT = new InvalidBookingException(
+            "dates_differ_without_repeat", "If booking does not repeat, start date should be same as end date");
+    private static final InvalidBookingException PARTICIPANTS_EXCEED_CAPACITY = new InvalidBookingException(
+            "participants_exceed_capacity", "Number of participants in booking exceeds meeting room capacity");
+    private static final UnauthorizedUserException ACCESS_DENIED = new UnauthorizedUserException("Access denied");
+    private static final InvalidBookingException PATCH_NOT_OBJECT = new InvalidBookingException("patch_not_object",
+            "Patch must be a JSON object");
+    private static final InvalidBookingException TOO_MANY_IDS = new InvalidBookingException("too_many_ids",
+            "Cannot get more than " + IdBatches.MAX_IDS + " bookings at once");
+    private static final InvalidBookingException FILTER_REQUIRED = new InvalidBookingException("filter_required",
+            "At least one of room, from, to or creator is required to delete bookings");
+    private static final InvalidBookingException CHANGES_NOT_SHARDED = new InvalidBookingException(
+            "changes_not_sharded", "Changes cannot be listed while bookings are sharded by location");
+    private static final Comparator<BookingDTO> BY_START = Comparator.comparing(BookingDTO::getStartDate)
+            .thenComparing(BookingDTO::getStartTime);
+
+    /** Fields of BookingDTO which PATCH /bookings/{id} may change */
+    private static final Set<String> PATCHABLE_FIELDS = Set.of("room", "title", "description", "startDate", "endDate",
+            "startTime", "endTime", "participants", "repeat_pattern");
+
     @Autowired
     private BookingRepository repo;
 
     @Autowired
     private RoomRepository roomRepo;
 
+    @Autowired
+    private RoomNameRepository roomNames;
+
+    @Autowired
+    private UserRepository userRepo;
+
     @Autowired
     private CustomUserDetailsService customUserDetailsService;
 
+    @Autowired
+    private ServiceStages stages;
+
+    @Autowired
+    private DataVersionService dataVersions;
+
+    @Autowired
+    private BookingArchiveService archive;
+
+    @Autowired
+    private ApplicationEventPublisher events;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private Shards shards;
+
     public BookingService() {
     }
 
@@ -48,28 +151,203 @@ public class BookingService {
      * @param id
      *            id of requested booking
      *
-     * @return returns BookingDTO with OK status if booking is present, or throws BookingNotFoundException
+     * @return returns BookingDTO with OK status and ETag if booking is present, or throws BookingNotFoundException
      */
     public ResponseEntity<BookingDTO> getBookingFromDatabase(Long id) throws Exception {
-        Optional<Booking> booking = repo.findById(id);
-        if (booking.isEmpty()) {
-            throw new BookingNotFoundException("Booking with id " + id + " not found");
-        }
-        return new ResponseEntity<>(convertBookingToBookingDTO(booking.get()), HttpStatus.OK);
+        return shards.on(shards.locationOfId(id), () -> {
+            Booking booking = stages.call(BOOKING_STAGE, "get", "load",
+                    () -> repo.findInAvailableRoomById(id).orElse(null));
+            if (booking == null) {
+                throw new BookingNotFoundException("Booking with id " + id + " not found");
+            }
+            return ResponseEntity.ok().eTag(ETags.of(booking.getVersion())).body(convertBookingToBookingDTO(booking));
+        });
     }
 
     /**
-     * Gets all bookings existing in database
+     * Gets the bookings existing in database which match the given filters, unless the client already has the current
+     * list. Repeating bookings match a date range if any of their repetitions falls within it. Archived bookings, see
+     * BookingArchiveService, are only included if asked for.
      *
-     * @return returns list of booking DTOs with OK status
+     * @param request
+     *            request whose If-None-Match header is compared with the ETag of the current booking list
+     * @param room
+     *            id of the room to get the bookings of, or null for all rooms
+     * @param from
+     *            first date to get the bookings of, or null for no lower bound
+     * @param to
+     *            last date to get the bookings of, or null for no upper bound
+     * @param creator
+     *            username of the creator to get the bookings of, 'me' for the current user, or null for all users
+     * @param includeArchived
+     *            whether to also get archived bookings, which are read from bookings_archive
+     *
+     * @return returns list of booking DTOs ordered by start date and time with OK status and ETag, or Not Modified
+     *         status without body; throws InvalidBookingException if from is after to
+     */
+    public ResponseEntity<List<BookingDTO>> getAllBookingsFromDatabase(WebRequest request, Long room, LocalDate from,
+            LocalDate to, String creator, boolean includeArchived) throws Exception {
+        if (from != null && to != null && from.isAfter(to)) {
+            throw new InvalidBookingException("Start of date range cannot be after its end");
+        }
+        String eTag = includeArchived ? dataVersions.eTag(BOOKINGS, "archived") : dataVersions.eTag(BOOKINGS);
+        if (request.checkNotModified(eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+        }
+        List<BookingDTO> allBookingsDTO = stages.call(BOOKING_STAGE, "list", "load", () -> {
+            if (room != null) {
+                return shards.on(shards.locationOfId(room),
+                        () -> loadBookings(room, from, to, creator, includeArchived));
+            }
+            List<BookingDTO> bookingDTOs = shards.fanOut(() -> loadBookings(room, from, to, creator, includeArchived));
+            if (shards.isEnabled()) {
+                // The bookings of each location are ordered, but not those of all locations
+                bookingDTOs.sort(BY_START);
+            }
+            return bookingDTOs;
+        });
+        return ResponseEntity.ok().eTag(eTag).body(allBookingsDTO);
+    }
+
+    /**
+     * Loads the bookings of the current location matching the given filters, see getAllBookingsFromDatabase
      */
-    public ResponseEntity<List<BookingDTO>> getAllBookingsFromDatabase() {
-        List<Booking> allBookings = repo.findAll();
-        List<BookingDTO> allBookingsDTO = new ArrayList<>();
+    private List<BookingDTO> loadBookings(Long room, LocalDate from, LocalDate to, String creator,
+            boolean includeArchived) {
+        Specification<Booking> filters = BookingSpecifications.inAvailableRoom();
+        if (room != null) {
+            filters = filters.and(BookingSpecifications.inRoom(room));
+        }
+        if (from != null || to != null) {
+            filters = filters.and(BookingSpecifications.overlapping(from, to));
+        }
+        if (creator != null) {
+            filters = filters.and(BookingSpecifications.createdBy("me".equals(creator) ? currentUsername() : creator));
+        }
+        List<Booking> allBookings = repo.findAll(filters, Sort.by("startDate", "startTime"));
+        List<BookingDTO> bookingDTOs = new ArrayList<>();
         for (Booking booking : allBookings) {
-            allBookingsDTO.add(convertBookingToBookingDTO(booking));
+            if (occursWithin(booking, from, to)) {
+                bookingDTOs.add(convertBookingToBookingDTO(booking));
+            }
+        }
+        if (includeArchived) {
+            bookingDTOs.addAll(getArchivedBookings(room, from, to, creator));
+            bookingDTOs.sort(BY_START);
         }
-        return new ResponseEntity<>(allBookingsDTO, HttpStatus.OK);
+        return bookingDTOs;
+    }
+
+    /**
+     * Gets the archived bookings matching the given filters. Archived bookings do not repeat, so they all occur within
+     * the date range they overlap with. Their rooms are loaded with one query rather than one per booking.
+     */
+    private List<BookingDTO> getArchivedBookings(Long room, LocalDate from, LocalDate to, String creator) {
+        List<Booking> archived = repo.findArchived(room, from == null ? null : Date.valueOf(from),
+                to == null ? null : Date.valueOf(to), "me".equals(creator) ? currentUsername() : creator);
+        Set<Long> roomIds = new HashSet<>();
+        for (Booking booking : archived) {
+            roomIds.add(booking.getRoom().getId());
+        }
+        Map<Long, String> roomNames = new HashMap<>();
+        for (Room archivedRoom : roomRepo.findAllById(roomIds)) {
+            roomNames.put(archivedRoom.getId(), archivedRoom.getName());
+        }
+        List<BookingDTO> bookingDTOs = new ArrayList<>(archived.size());
+        for (Booking booking : archived) {
+            bookingDTOs.add(convertBookingToBookingDTO(booking, roomNames.get(booking.getRoom().getId())));
+        }
+        return bookingDTOs;
+    }
+
+    /**
+     * Gets several bookings by id with one query, so that clients showing a list of referenced bookings do not need
+     * one request per booking. The bookings and their rooms are loaded together.
+     *
+     * @param request
+     *            request whose If-None-Match header is compared with the ETag of the current booking list
+     * @param ids
+     *            ids of the bookings, at most IdBatches.MAX_IDS; duplicates are ignored
+     *
+     * @return returns the found bookings in the order of the ids with OK status, ETag and the ids which were not found
+     *         in the X-Missing-Ids header, or Not Modified status without body; throws InvalidBookingException if too
+     *         many ids are given
+     */
+    public ResponseEntity<List<BookingDTO>> getBookingsByIdFromDatabase(WebRequest request, List<Long> ids)
+            throws Exception {
+        List<Long> distinctIds = IdBatches.distinct(ids);
+        if (distinctIds.size() > IdBatches.MAX_IDS) {
+            throw TOO_MANY_IDS;
+        }
+        String eTag = dataVersions.eTag(BOOKINGS);
+        if (request.checkNotModified(eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+        }
+        List<Long> missing = new ArrayList<>();
+        List<BookingDTO> bookingDTOs = stages.call(BOOKING_STAGE, "batch", "load", () -> {
+            List<Booking> bookings = distinctIds.isEmpty() ? List.of()
+                    : shards.fanOut(() -> repo.findAllWithRoomByIdIn(distinctIds));
+            return IdBatches.inRequestOrder(distinctIds, bookings, Booking::getId, this::convertBookingToBookingDTO,
+                    missing);
+        });
+        return IdBatches.ok(eTag, bookingDTOs, missing);
+    }
+
+    /**
+     * Gets the bookings created, updated or deleted after a given version of the booking list, so that clients can
+     * keep their copy up to date without downloading all bookings. The version is read before the bookings, so
+     * changes committed in between are sent again on the next sync rather than missed. Runs in one read-only
+     * transaction so that each room is loaded only once. The transaction is programmatic: with @Transactional, every
+     * method of this service would be called through a proxy, which wraps each rejection thrown by it in an
+     * InvocationTargetException with a full stack trace.
+     *
+     * @param since
+     *            version returned by the previous sync, or 0 to get all bookings
+     *
+     * @return returns the changed bookings, the ids of deleted and archived bookings and the version to pass on the
+     *         next sync with OK status, or throws ChangesExpiredException if bookings were deleted for good since that
+     *         version
+     */
+    public ResponseEntity<BookingChangesDTO> getBookingChangesFromDatabase(Long since) throws Exception {
+        if (shards.isEnabled()) {
+            // Each location has its own change sequence, so no single version covers the changes of all of them
+            throw CHANGES_NOT_SHARDED;
+        }
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        BookingChangesDTO changes = readOnly.execute(status -> {
+            long version = dataVersions.version(BOOKINGS);
+            List<BookingDTO> bookingDTOs = new ArrayList<>();
+            List<Long> deleted = new ArrayList<>();
+            if (since <= 0) {
+                for (Booking booking : stages.call(BOOKING_STAGE, "changes", "load",
+                        () -> repo.findAll(BookingSpecifications.inAvailableRoom()))) {
+                    bookingDTOs.add(convertBookingToBookingDTO(booking));
+                }
+                return new BookingChangesDTO(version, bookingDTOs, deleted, List.of());
+            }
+            List<Booking> changed = stages.call(BOOKING_STAGE, "changes", "load",
+                    () -> repo.findAllChangedSince(since));
+            List<Long> archived = stages.call(BOOKING_STAGE, "changes", "load",
+                    () -> repo.findArchivedIdsSince(since));
+            // Read after the changes, so a purge committed before any of them is seen
+            if (since < dataVersions.version(BOOKINGS_PURGED)) {
+                return null;
+            }
+            for (Booking booking : changed) {
+                if (booking.isDeleted()) {
+                    deleted.add(booking.getId());
+                } else {
+                    bookingDTOs.add(convertBookingToBookingDTO(booking));
+                }
+            }
+            return new BookingChangesDTO(version, bookingDTOs, deleted, archived);
+        });
+        if (changes == null) {
+            throw new ChangesExpiredException(
+                    "Changes since version " + since + " are no longer available, sync again with since=0");
+        }
+        return ResponseEntity.ok(changes);
     }
 
     /**
@@ -78,68 +356,377 @@ public class BookingService {
      * @param bookingDTO
      *            bookingDTO object that user would like to add to database
      *
-     * @return returns same bookingDTO object with its new id and Created status, or throws InvalidBookingException or
-     *         ConflictingBookingException
+     * @return returns same bookingDTO object with its new id and Created status, its ETag and its Location, or throws
+     *         InvalidBookingException or ConflictingBookingException
      */
     public ResponseEntity<BookingDTO> createBookingInDatabase(BookingDTO bookingDTO) throws Exception {
-        checkForValidBooking(bookingDTO);
-        checkForConflictingBookings(0L, bookingDTO, false);
-        Booking newBooking = repo.saveAndFlush(convertBookingDTOToBooking(bookingDTO));
-        BookingDTO newBookingDTO = convertBookingToBookingDTO(newBooking);
-        return new ResponseEntity<>(newBookingDTO, HttpStatus.CREATED);
+        BookingOperationEvent event = new BookingOperationEvent("create");
+        event.begin();
+        try {
+            String location = locationOfRoom(bookingDTO);
+            return shards.on(location, () -> {
+                BookingSlot slot = stages.call(BOOKING_STAGE, "create", "validation",
+                        () -> checkForValidBooking(bookingDTO));
+                stages.run(BOOKING_STAGE, "create", "conflict_check",
+                        () -> checkForConflictingBookings(0L, bookingDTO, slot, false));
+                CustomUserDetails user = loadCurrentUser(location);
+                return stages.call(BOOKING_STAGE, "create", "persist",
+                        () -> dataVersions.change(seq -> {
+                            Booking booking = convertBookingDTOToBooking(bookingDTO, user);
+                            booking.setChangeSeq(seq);
+                            Booking newBooking = repo.saveAndFlush(booking);
+                            event.bookingId = newBooking.getId();
+                            event.roomId = newBooking.getRoom().getId();
+                            BookingDTO createdBookingDTO = convertBookingToBookingDTO(newBooking);
+                            publishChange("created", newBooking.getRoom(), createdBookingDTO);
+                            return ResponseEntity.created(URI.create("/bookings/" + newBooking.getId()))
+                                    .eTag(ETags.of(newBooking.getVersion())).body(createdBookingDTO);
+                        }, BOOKINGS));
+            });
+        } catch (Exception e) {
+            event.failed(e);
+            throw e;
+        } finally {
+            event.commit();
+        }
     }
 
     /**
-     * Deletes a booking in database, or throws UnauthorizedUserException
+     * Deletes a booking in database, or throws UnauthorizedUserException. The booking is only marked as deleted, so the
+     * deletion can be synced through /bookings/changes.
      *
      * @param id
      *            id of booking that user wants to delete
      */
     public void deleteBookingInDatabase(Long id) throws Exception {
-        Optional<Booking> optionalBooking = repo.findById(id);
-        if (optionalBooking.isPresent()) {
-            Booking booking = optionalBooking.get();
-            checkIfAuthenticatedUser(booking);
-            repo.deleteById(id);
+        BookingOperationEvent event = new BookingOperationEvent("delete");
+        event.begin();
+        event.bookingId = id;
+        try {
+            String location = shards.locationOfId(id);
+            shards.on(location, () -> {
+                Optional<Booking> optionalBooking = stages.call(BOOKING_STAGE, "delete", "load",
+                        () -> repo.findById(id));
+                if (optionalBooking.isPresent()) {
+                    Booking booking = optionalBooking.get();
+                    event.roomId = booking.getRoom().getId();
+                    stages.run(BOOKING_STAGE, "delete", "authorization",
+                            () -> checkIfAuthenticatedUser(booking, loadCurrentUser(location)));
+                    stages.run(BOOKING_STAGE, "delete", "persist", () -> dataVersions.change(seq -> {
+                        repo.markDeleted(id, seq);
+                        Room room = booking.getRoom();
+                        events.publishEvent(new ChangeDTO("booking", "deleted", id, room.getId(), room.getLocation()));
+                        return null;
+                    }, BOOKINGS));
+                }
+                return null;
+            });
+        } catch (Exception e) {
+            event.failed(e);
+            throw e;
+        } finally {
+            event.commit();
         }
     }
 
+    /**
+     * Deletes all bookings matching the given filters with one statement, instead of loading and authorizing each
+     * booking. Admins may delete the bookings of any user; for other users the statement only matches their own
+     * bookings, so ownership is enforced by the database. Like single deletions, the bookings are only marked as
+     * deleted and each deletion is pushed to the change stream.
+     *
+     * @param room
+     *            id of the room to delete the bookings of, or null for all rooms
+     * @param from
+     *            first date of the range to delete the bookings of, or null for no lower bound
+     * @param to
+     *            last date of the range to delete the bookings of, or null for no upper bound; only bookings lying
+     *            entirely within the range are deleted
+     * @param creator
+     *            username of the creator to delete the bookings of, 'me' for the current user, or null for all users
+     *
+     * @return returns the number of deleted bookings with OK status; throws InvalidBookingException if no filter is
+     *         given or from is after to, or UnauthorizedUserException if a user who is not admin names another creator
+     */
+    public ResponseEntity<BulkDeleteDTO> deleteBookingsInDatabase(Long room, LocalDate from, LocalDate to,
+            String creator) throws Exception {
+        BookingOperationEvent event = new BookingOperationEvent("bulk-delete");
+        event.begin();
+        try {
+            if (room == null && from == null && to == null && creator == null) {
+                throw FILTER_REQUIRED;
+            }
+            if (from != null && to != null && from.isAfter(to)) {
+                throw new InvalidBookingException("Start of date range cannot be after its end");
+            }
+            String username = currentUsername();
+            String owner = "me".equals(creator) ? username : creator;
+            boolean admin = isAdmin(loadCurrentUser(null));
+            if (!admin) {
+                if (owner != null && !owner.equals(username)) {
+                    throw ACCESS_DENIED;
+                }
+                owner = username;
+            }
+            String matchedOwner = owner;
+            Shards.Work<List<Integer>, Exception> delete = () -> {
+                int deletedInLocation = dataVersions.change(seq -> {
+                    List<DeletedBooking> bookings = repo.markAllDeleted(seq, room,
+                            from == null ? null : Date.valueOf(from), to == null ? null : Date.valueOf(to),
+                            matchedOwner);
+                    for (DeletedBooking booking : bookings) {
+                        events.publishEvent(new ChangeDTO("booking", "deleted", booking.getId(), booking.getRoom(),
+                                booking.getLocation()));
+                    }
+                    return bookings.size();
+                }, BOOKINGS);
+                return List.of(deletedInLocation);
+            };
+            // Without a room, the bookings of every location are deleted in parallel, each in its own transaction
+            int deleted = stages.call(BOOKING_STAGE, "bulk-delete", "persist",
+                    () -> (room == null ? shards.fanOut(delete) : shards.on(shards.locationOfId(room), delete))
+                            .stream().mapToInt(Integer::intValue).sum());
+            return ResponseEntity.ok(new BulkDeleteDTO(deleted));
+        } catch (Exception e) {
+            event.failed(e);
+            throw e;
+        } finally {
+            event.commit();
+        }
+    }
+
+    public ResponseEntity<BookingDTO> updateBookingInDatabase(Long id, BookingDTO bookingDTO) throws Exception {
+        return updateBookingInDatabase(id, bookingDTO, null);
+    }
+
     /**
      * Updates a booking in database, checking that booking actually exists, user is authorized to update this, and the
-     * new booking information is all valid
+     * new booking information is all valid. The booking is read once for these checks and then updated with a single
+     * conditional update, which fails if the booking was changed in the meantime.
      *
      * @param id
      *            id of booking user wants to update
      * @param bookingDTO
      *            information that user wants to update the booking with
+     * @param ifMatch
+     *            value of the If-Match header, or null to update whatever version was read
      *
-     * @return Returns new bookingDTO object and Ok status if successful update, or throws UnauthorizedUserException or
+     * @return Returns new bookingDTO object with Ok status and the new ETag if successful update, or throws
+     *         BookingNotFoundException, PreconditionFailedException, UnauthorizedUserException,
      *         InvalidBookingException or ConflictingBookingsException
      */
-    public ResponseEntity<BookingDTO> updateBookingInDatabase(Long id, BookingDTO bookingDTO) throws Exception {
-        Optional<Booking> optionalBooking = repo.findById(id);
-        if (optionalBooking.isPresent()) {
-            Booking booking = optionalBooking.get();
-            checkIfAuthenticatedUser(booking);
-        }
-        // If existingBooking not found, exception is handled in BookingController
-        Booking existingBooking = repo.getReferenceById(id);
-        checkForValidBooking(bookingDTO);
-        // If any dates or times of booking have been changed, do check for conflicting bookings
-        if (!existingBooking.getStartDate().toLocalDate().equals(bookingDTO.getStartDate().toLocalDate())
-                || !existingBooking.getEndDate().toLocalDate().equals(bookingDTO.getEndDate().toLocalDate())
-                || !existingBooking.getStartTime().equals(bookingDTO.getStartTime())
-                || !existingBooking.getEndTime().equals(bookingDTO.getEndTime())) {
-            checkForConflictingBookings(id, bookingDTO, true);
-        }
-        BeanUtils.copyProperties(convertBookingDTOToBooking(bookingDTO), existingBooking, "id");
-        return new ResponseEntity<>(convertBookingToBookingDTO(repo.saveAndFlush(existingBooking)), HttpStatus.OK);
+    public ResponseEntity<BookingDTO> updateBookingInDatabase(Long id, BookingDTO bookingDTO, String ifMatch)
+            throws Exception {
+        BookingOperationEvent event = new BookingOperationEvent("update");
+        event.begin();
+        event.bookingId = id;
+        try {
+            String location = shards.locationOfId(id);
+            return shards.on(location, () -> {
+                Long expectedVersion = ETags.parseIfMatch(ifMatch);
+                Booking existingBooking = stages.call(BOOKING_STAGE, "update", "load", () -> repo.findById(id))
+                        .orElseThrow(() -> new BookingNotFoundException("Booking with id " + id + " not found"));
+                if (expectedVersion != null && !expectedVersion.equals(existingBooking.getVersion())) {
+                    throw new PreconditionFailedException("Booking with id " + id + " has been modified");
+                }
+                CustomUserDetails user = loadCurrentUser(location);
+                stages.run(BOOKING_STAGE, "update", "authorization",
+                        () -> checkIfAuthenticatedUser(existingBooking, user));
+                BookingSlot slot = stages.call(BOOKING_STAGE, "update", "validation",
+                        () -> checkForValidBooking(bookingDTO));
+                BookingSlot existingSlot = new BookingSlot(existingBooking.getStartDate(),
+                        existingBooking.getEndDate(), existingBooking.getStartTime(), existingBooking.getEndTime(),
+                        existingBooking.getRepeat_pattern());
+                Booking booking = convertBookingDTOToBooking(bookingDTO, user);
+                booking.setId(id);
+                event.roomId = booking.getRoom().getId();
+                // If the room, dates, times or repeat option of booking have been changed, check for conflicts
+                boolean moved = !booking.getRoom().getId().equals(existingBooking.getRoom().getId())
+                        || !slot.equals(existingSlot);
+                if (moved) {
+                    stages.run(BOOKING_STAGE, "update", "conflict_check",
+                            () -> checkForConflictingBookings(id, bookingDTO, slot, true));
+                }
+                Long version = stages.call(BOOKING_STAGE, "update", "persist", () -> dataVersions.change(seq -> {
+                    Long newVersion = repo.updateIfVersion(id, existingBooking.getVersion(), seq,
+                            booking.getRoom().getId(), booking.getTitle(), booking.getDescription(),
+                            booking.getStartDate(), booking.getEndDate(), booking.getStartTime(), booking.getEndTime(),
+                            booking.getParticipants(), booking.getRepeat_pattern(), booking.getCreator().getId());
+                    if (newVersion == null) {
+                        throw new PreconditionFailedException("Booking with id " + id + " has been modified");
+                    }
+                    publishChange("updated", booking.getRoom(), convertBookingToBookingDTO(booking));
+                    return newVersion;
+                }, BOOKINGS));
+                return ResponseEntity.ok().eTag(ETags.of(version)).body(convertBookingToBookingDTO(booking));
+            });
+        } catch (Exception e) {
+            event.failed(e);
+            throw e;
+        } finally {
+            event.commit();
+        }
+    }
+
+    /**
+     * Applies a JSON Merge Patch (RFC 7386) to a booking. Only the fields in the patch are validated, the conflict
+     * check only runs if the room, dates, times or repeat option change, and the update only writes the changed
+     * columns. The creator of the booking stays the same.
+     *
+     * @param id
+     *            id of booking user wants to patch
+     * @param patch
+     *            JSON object with the fields to change; fields set to null are cleared
+     * @param ifMatch
+     *            value of the If-Match header, or null to patch whatever version was read
+     *
+     * @return Returns the patched bookingDTO object with Ok status and the new ETag, or throws
+     *         BookingNotFoundException, PreconditionFailedException, UnauthorizedUserException,
+     *         InvalidBookingException or ConflictingBookingsException
+     */
+    public ResponseEntity<BookingDTO> patchBookingInDatabase(Long id, JsonNode patch, String ifMatch)
+            throws Exception {
+        BookingOperationEvent event = new BookingOperationEvent("patch");
+        event.begin();
+        event.bookingId = id;
+        try {
+            String location = shards.locationOfId(id);
+            return shards.on(location, () -> {
+                if (patch == null || !patch.isObject()) {
+                    throw PATCH_NOT_OBJECT;
+                }
+                Long expectedVersion = ETags.parseIfMatch(ifMatch);
+                Booking existingBooking = stages.call(BOOKING_STAGE, "patch", "load", () -> repo.findById(id))
+                        .orElseThrow(() -> new BookingNotFoundException("Booking with id " + id + " not found"));
+                if (expectedVersion != null && !expectedVersion.equals(existingBooking.getVersion())) {
+                    throw new PreconditionFailedException("Booking with id " + id + " has been modified");
+                }
+                stages.run(BOOKING_STAGE, "patch", "authorization",
+                        () -> checkIfAuthenticatedUser(existingBooking, loadCurrentUser(location)));
+                BookingDTO existingDTO = convertBookingToBookingDTO(existingBooking);
+                Set<String> fields = new HashSet<>();
+                patch.fieldNames().forEachRemaining(fields::add);
+                // A merge patch of a flat object replaces the fields it contains, which is what updating a copy does
+                BookingDTO patched;
+                try {
+                    patched = objectMapper.readerForUpdating(convertBookingToBookingDTO(existingBooking))
+                            .readValue(patch);
+                } catch (JsonProcessingException e) {
+                    throw new InvalidBookingException("invalid_field", e.getOriginalMessage());
+                }
+                Room room = stages.call(BOOKING_STAGE, "patch", "validation",
+                        () -> checkForValidPatch(patched, fields, existingBooking));
+                event.roomId = room.getId();
+                BookingSlot slot = new BookingSlot(patched.getStartDate(), patched.getEndDate(), patched.getStartTime(),
+                        patched.getEndTime(), patched.getRepeat_pattern());
+                BookingSlot existingSlot = new BookingSlot(existingBooking.getStartDate(),
+                        existingBooking.getEndDate(), existingBooking.getStartTime(), existingBooking.getEndTime(),
+                        existingBooking.getRepeat_pattern());
+                boolean moved = !room.getId().equals(existingBooking.getRoom().getId()) || !slot.equals(existingSlot);
+                if (moved) {
+                    stages.run(BOOKING_STAGE, "patch", "conflict_check",
+                            () -> checkForConflictingBookings(id, patched, slot, true));
+                }
+                if (!moved && Objects.equals(patched.getTitle(), existingDTO.getTitle())
+                        && Objects.equals(patched.getDescription(), existingDTO.getDescription())
+                        && Objects.equals(patched.getParticipants(), existingDTO.getParticipants())) {
+                    // Nothing changes, so neither the version nor the change sequence moves
+                    return ResponseEntity.ok().eTag(ETags.of(existingBooking.getVersion())).body(existingDTO);
+                }
+                Booking booking = stages.call(BOOKING_STAGE, "patch", "persist", () -> dataVersions.change(seq -> {
+                    // Loaded again in this transaction, so that only the changed columns are written, see Booking
+                    Booking managed = repo.findById(id).orElse(null);
+                    if (managed == null || !managed.getVersion().equals(existingBooking.getVersion())) {
+                        throw new PreconditionFailedException("Booking with id " + id + " has been modified");
+                    }
+                    managed.setRoom(room);
+                    managed.setTitle(patched.getTitle());
+                    managed.setDescription(patched.getDescription());
+                    managed.setStartDate(patched.getStartDate());
+                    managed.setEndDate(patched.getEndDate());
+                    managed.setStartTime(patched.getStartTime());
+                    managed.setEndTime(patched.getEndTime());
+                    managed.setParticipants(patched.getParticipants());
+                    managed.setRepeat_pattern(patched.getRepeat_pattern());
+                    managed.setChangeSeq(seq);
+                    Booking saved = repo.saveAndFlush(managed);
+                    publishChange("updated", room, convertBookingToBookingDTO(saved));
+                    return saved;
+                }, BOOKINGS));
+                return ResponseEntity.ok().eTag(ETags.of(booking.getVersion()))
+                        .body(convertBookingToBookingDTO(booking));
+            });
+        } catch (Exception e) {
+            event.failed(e);
+            throw e;
+        } finally {
+            event.commit();
+        }
+    }
+
+    /**
+     * Finds the location whose database holds the room of a booking, by the name claimed for it in the default
+     * database, see RoomService
+     *
+     * @return returns the location, or null if sharding is disabled or the room does not exist
+     */
+    private String locationOfRoom(BookingDTO bookingDTO) {
+        if (!shards.isEnabled() || bookingDTO == null || bookingDTO.getRoom() == null) {
+            return null;
+        }
+        return shards.on(null, () -> roomNames.findById(bookingDTO.getRoom()).map(RoomName::getLocation).orElse(null));
+    }
+
+    /**
+     * Publishes a created or updated booking to the subscribers of /bookings/stream once the surrounding transaction
+     * commits
+     *
+     * @param action
+     *            either 'created' or 'updated'
+     * @param room
+     *            room of the booking
+     * @param bookingDTO
+     *            the booking after the change
+     */
+    private void publishChange(String action, Room room, BookingDTO bookingDTO) {
+        events.publishEvent(ChangeDTO.bookingChanged(action, room.getId(), room.getLocation(), bookingDTO));
+    }
+
+    /**
+     * Checks whether a booking which overlaps with a date range actually occurs within it. Only bookings repeating
+     * every same day of the week can overlap with a range of less than a week without occurring in it.
+     */
+    private boolean occursWithin(Booking booking, LocalDate from, LocalDate to) {
+        if (RepeatPattern.fromLabel(booking.getRepeat_pattern()) != RepeatPattern.EVERY_SAME_DAY_OF_WEEK) {
+            return true;
+        }
+        LocalDate start = booking.getStartDate().toLocalDate();
+        LocalDate first = from == null || start.isAfter(from) ? start : from;
+        LocalDate end = booking.getEndDate().toLocalDate();
+        LocalDate last = to == null || end.isBefore(to) ? end : to;
+        for (LocalDate date = first; !date.isAfter(last) && date.isBefore(first.plusDays(7)); date = date.plusDays(1)) {
+            if (date.getDayOfWeek() == start.getDayOfWeek()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private String currentUsername() {
+        return SecurityContextHolder.getContext().getAuthentication().getName();
     }
 
     private BookingDTO convertBookingToBookingDTO(Booking booking) {
-        return new BookingDTO(booking.getId(), booking.getRoom().getName(), booking.getTitle(),
-                booking.getDescription(), booking.getStartDate(), booking.getEndDate(), booking.getStartTime(),
-                booking.getEndTime(), booking.getParticipants(), booking.getRepeat_pattern());
+        return convertBookingToBookingDTO(booking, booking.getRoom().getName());
+    }
+
+    /**
+     * Converts a booking whose room is not loaded, e.g. an archived one, using the name of its room
+     */
+    private static BookingDTO convertBookingToBookingDTO(Booking booking, String roomName) {
+        return new BookingDTO(booking.getId(), roomName, booking.getTitle(), booking.getDescription(),
+                booking.getStartDate(), booking.getEndDate(), booking.getStartTime(), booking.getEndTime(),
+                booking.getParticipants(), booking.getRepeat_pattern());
     }
 
     /**
@@ -148,15 +735,13 @@ public class BookingService {
      *
      * @param bookingDTO
      *            bookingDTO being converted
+     * @param customUserDetails
+     *            the current authenticated user, see loadCurrentUser
      *
      * @return returns equivalent Booking object
      */
-    private Booking convertBookingDTOToBooking(BookingDTO bookingDTO) {
-        Room room = roomRepo.findByName(bookingDTO.getRoom());
-        org.springframework.security.core.userdetails.User creator = (User) SecurityContextHolder.getContext()
-                .getAuthentication().getPrincipal();
-        CustomUserDetails customUserDetails = (CustomUserDetails) customUserDetailsService
-                .loadUserByUsername(creator.getUsername());
+    private Booking convertBookingDTOToBooking(BookingDTO bookingDTO, CustomUserDetails customUserDetails) {
+        Room room = roomRepo.findByNameAndAvailableTrue(bookingDTO.getRoom());
         return new Booking(bookingDTO.getId(), room, bookingDTO.getTitle(), bookingDTO.getDescription(),
                 bookingDTO.getStartDate(), bookingDTO.getEndDate(), bookingDTO.getStartTime(), bookingDTO.getEndTime(),
                 bookingDTO.getParticipants(), bookingDTO.getRepeat_pattern(), customUserDetails.getUser());
@@ -167,18 +752,43 @@ public class BookingService {
      *
      * @param booking
      *            Booking a user is trying to update or delete
+     * @param customUserDetails
+     *            the current authenticated user, see loadCurrentUser
      */
-    private void checkIfAuthenticatedUser(Booking booking) throws Exception {
+    private void checkIfAuthenticatedUser(Booking booking, CustomUserDetails customUserDetails) throws Exception {
+        if (!isAdmin(customUserDetails)
+                && !customUserDetails.getUser().getUsername().equals(booking.getCreator().getUsername())) {
+            throw ACCESS_DENIED;
+        }
+    }
+
+    /**
+     * Loads the current authenticated user from the default database, which authenticates users. While bookings are
+     * sharded, the user is copied to the database of the location about to be changed, as bookings reference their
+     * creator there. Must be called outside of any transaction, which would stay on the database it started on.
+     *
+     * @param location
+     *            location whose bookings are about to be changed, or null for the default database
+     *
+     * @return returns the details of the current authenticated user
+     */
+    private CustomUserDetails loadCurrentUser(String location) {
         org.springframework.security.core.userdetails.User creator = (User) SecurityContextHolder.getContext()
                 .getAuthentication().getPrincipal();
-        CustomUserDetails customUserDetails = (CustomUserDetails) customUserDetailsService
-                .loadUserByUsername(creator.getUsername());
-        System.out.println(customUserDetails.getUser().getUsername());
-        System.out.println(booking.getCreator().getUsername());
-        if (!customUserDetails.getAuthorities().contains(new SimpleGrantedAuthority("ROLE_ADMIN"))
-                && !customUserDetails.getUser().getUsername().equals(booking.getCreator().getUsername())) {
-            throw new UnauthorizedUserException("Access denied");
+        CustomUserDetails customUserDetails = shards.on(null,
+                () -> (CustomUserDetails) customUserDetailsService.loadUserByUsername(creator.getUsername()));
+        if (location != null) {
+            com.onelity.bookme.model.User user = customUserDetails.getUser();
+            shards.on(location, () -> {
+                userRepo.copy(user.getId(), user.getUsername(), user.getRole());
+                return null;
+            });
         }
+        return customUserDetails;
+    }
+
+    private static boolean isAdmin(CustomUserDetails customUserDetails) {
+        return customUserDetails.getAuthorities().contains(new SimpleGrantedAuthority("ROLE_ADMIN"));
     }
 
     /**
@@ -186,58 +796,139 @@ public class BookingService {
      *
      * @param bookingDTO
      *            bookingDTO object that needs to be verified
+     *
+     * @return returns the slot of the booking
      */
-    private void checkForValidBooking(BookingDTO bookingDTO) throws Exception {
+    private BookingSlot checkForValidBooking(BookingDTO bookingDTO) throws Exception {
         if (bookingDTO == null) {
-            throw new InvalidBookingException("Booking cannot be null");
+            throw BOOKING_REQUIRED;
         }
         if (bookingDTO.getRoom() == null) {
-            throw new InvalidBookingException("Room can not be null");
-        }
-        Room room = roomRepo.findByName(bookingDTO.getRoom());
-        // Checks that meeting room exists
-        if (room == null) {
-            throw new InvalidBookingException("Meeting room with name '" + bookingDTO.getRoom() + "' does not exist");
+            throw ROOM_REQUIRED;
         }
         if (bookingDTO.getTitle() == null || bookingDTO.getStartDate() == null || bookingDTO.getEndDate() == null
                 || bookingDTO.getStartTime() == null || bookingDTO.getEndTime() == null
                 || bookingDTO.getParticipants() == null) {
-            throw new InvalidBookingException("Fields of booking cannot be null (except description or repeat option)");
+            throw FIELDS_REQUIRED;
         }
         // Checks that booking title is no more than 100 characters
         if (bookingDTO.getTitle().length() > 100) {
-            throw new InvalidBookingException("Booking title cannot be more than 100 characters");
-        }
-        // Checks that booking start date is not after end date
-        if (bookingDTO.getStartDate().after(bookingDTO.getEndDate())) {
-            throw new InvalidBookingException("Booking start date cannot be after booking end date");
-        }
-        // Checks that booking start time is before end time
-        if (bookingDTO.getStartTime().after(bookingDTO.getEndTime())) {
-            throw new InvalidBookingException("Booking start time must be before booking end time");
+            throw TITLE_TOO_LONG;
         }
         if (bookingDTO.getParticipants() < 0) {
-            throw new InvalidBookingException("Participants cannot be less than 0");
+            throw NEGATIVE_PARTICIPANTS;
+        }
+        BookingSlot slot = checkForValidSlot(bookingDTO);
+        // The checks needing the room come last, so that invalid payloads are rejected without a query
+        Room room = roomRepo.findByNameAndAvailableTrue(bookingDTO.getRoom());
+        // Checks that meeting room exists
+        if (room == null) {
+            throw new InvalidBookingException("room_not_found",
+                    "Meeting room with name '" + bookingDTO.getRoom() + "' does not exist");
         }
         // Checks that participants size does not exceed meeting room capacity
         if (bookingDTO.getParticipants() > room.getCapacity()) {
-            throw new InvalidBookingException("Number of participants in booking exceeds meeting room capacity");
+            throw PARTICIPANTS_EXCEED_CAPACITY;
         }
+        return slot;
+    }
+
+    /**
+     * Throws InvalidBookingException if the dates, times or repeat option of bookingDTO are not valid. The dates and
+     * times must not be null.
+     *
+     * @param bookingDTO
+     *            bookingDTO object whose dates, times and repeat option need to be verified
+     *
+     * @return returns the slot of the booking
+     */
+    private BookingSlot checkForValidSlot(BookingDTO bookingDTO) throws Exception {
         // Checks that repeat option is either null, 'every day', or 'every same day of the week'
-        String repeatPattern = bookingDTO.getRepeat_pattern();
-        if (repeatPattern != null && !repeatPattern.equals("every day")
-                && !repeatPattern.equals("every same day of the week")) {
-            throw new InvalidBookingException(
-                    "Repeat option must either be null, 'every day', or 'every same day of the week'");
+        RepeatPattern repeatPattern = RepeatPattern.fromLabel(bookingDTO.getRepeat_pattern());
+        if (repeatPattern == null) {
+            throw INVALID_REPEAT_PATTERN;
+        }
+        BookingSlot slot = new BookingSlot(bookingDTO.getStartDate(), bookingDTO.getEndDate(),
+                bookingDTO.getStartTime(), bookingDTO.getEndTime(), repeatPattern);
+        // Checks that booking start date is not after end date
+        if (slot.startDay() > slot.endDay()) {
+            throw START_DATE_AFTER_END_DATE;
+        }
+        // Checks that booking start time is before end time
+        if (slot.startSecond() > slot.endSecond()) {
+            throw START_TIME_AFTER_END_TIME;
         }
         // Checks that if repeat option is null, start date is same as end date
-        if (repeatPattern == null
-                && !bookingDTO.getStartDate().toLocalDate().isEqual(bookingDTO.getEndDate().toLocalDate())) {
-            throw new InvalidBookingException("If booking does not repeat, start date should be same as end date");
+        if (repeatPattern == RepeatPattern.NONE && slot.startDay() != slot.endDay()) {
+            throw DATES_DIFFER_WITHOUT_REPEAT;
         }
+        return slot;
     }
 
-    // When isUpdate is true, the id will be used so that if the new booking times overlap with itself, won't be counted
+    /**
+     * Throws InvalidBookingException if any field touched by a patch is not valid. Fields the patch does not touch were
+     * validated when they were last written and are not checked again; the room is only looked up if the patch changes
+     * it, and its capacity only checked if the room or the participants change.
+     *
+     * @param patched
+     *            the booking with the patch applied
+     * @param fields
+     *            names of the fields in the patch
+     * @param existingBooking
+     *            the booking before the patch
+     *
+     * @return returns the room of the patched booking
+     */
+    private Room checkForValidPatch(BookingDTO patched, Set<String> fields, Booking existingBooking)
+            throws Exception {
+        for (String field : fields) {
+            if (!PATCHABLE_FIELDS.contains(field)) {
+                throw new InvalidBookingException("field_not_patchable", "Field '" + field + "' cannot be patched");
+            }
+        }
+        if (fields.contains("title")) {
+            if (patched.getTitle() == null) {
+                throw FIELDS_REQUIRED;
+            }
+            if (patched.getTitle().length() > 100) {
+                throw TITLE_TOO_LONG;
+            }
+        }
+        if (fields.contains("participants")) {
+            if (patched.getParticipants() == null) {
+                throw FIELDS_REQUIRED;
+            }
+            if (patched.getParticipants() < 0) {
+                throw NEGATIVE_PARTICIPANTS;
+            }
+        }
+        if (fields.contains("startDate") || fields.contains("endDate") || fields.contains("startTime")
+                || fields.contains("endTime") || fields.contains("repeat_pattern")) {
+            if (patched.getStartDate() == null || patched.getEndDate() == null || patched.getStartTime() == null
+                    || patched.getEndTime() == null) {
+                throw FIELDS_REQUIRED;
+            }
+            checkForValidSlot(patched);
+        }
+        Room room = existingBooking.getRoom();
+        if (fields.contains("room")) {
+            if (patched.getRoom() == null) {
+                throw ROOM_REQUIRED;
+            }
+            if (!patched.getRoom().equals(room.getName())) {
+                room = roomRepo.findByNameAndAvailableTrue(patched.getRoom());
+                if (room == null) {
+                    throw new InvalidBookingException("room_not_found",
+                            "Meeting room with name '" + patched.getRoom() + "' does not exist");
+                }
+            }
+        }
+        if ((fields.contains("room") || fields.contains("participants"))
+                && patched.getParticipants() > room.getCapacity()) {
+            throw PARTICIPANTS_EXCEED_CAPACITY;
+        }
+        return room;
+    }
 
     /**
      * Throws ConflictingBookingsException if booking will overlap times and room with any existing bookings in database
@@ -246,52 +937,50 @@ public class BookingService {
      *            used in case of PUT method for bookings, the id of booking being updated
      * @param bookingDTO
      *            bookingDTO that is being checked for conflicts
+     * @param slot
+     *            slot of bookingDTO, as returned by checkForValidBooking
      * @param isUpdate
      *            when true, the id will be used so that if a booking's new times overlap with its previous times, this
      *            conflict will be ignored
      */
-    private void checkForConflictingBookings(Long id, BookingDTO bookingDTO, boolean isUpdate) throws Exception {
-        Room room = roomRepo.findByName(bookingDTO.getRoom());
-        String repeatPattern = bookingDTO.getRepeat_pattern();
-        // Gets all bookings with same room with overlapping dates and times
-        // These are potential conflicts, depending on their repeat patterns
-        List<Booking> overlappingBookings;
-        if (isUpdate) {
-            overlappingBookings = repo.findOverlappingBookingsUpdate(bookingDTO.getStartDate(), bookingDTO.getEndDate(),
-                    bookingDTO.getStartTime(), bookingDTO.getEndTime(), room, id);
-        } else {
-            overlappingBookings = repo.findOverlappingBookingsCreate(bookingDTO.getStartDate(), bookingDTO.getEndDate(),
-                    bookingDTO.getStartTime(), bookingDTO.getEndTime(), room);
-        }
-        Calendar c = Calendar.getInstance();
-        c.setTime(bookingDTO.getStartDate());
-        int dayOfWeek = c.get(Calendar.DAY_OF_WEEK);
-        for (Booking booking : overlappingBookings) {
-            // All bookings in overlappingBookings have time conflicts, so must only check for date conflicts
-            String otherRepeatPattern = booking.getRepeat_pattern();
-            // If either repeat pattern is 'every day', there will be conflict
-            if (repeatPattern != null && repeatPattern.equals("every day")) {
-                throw new ConflictingBookingsException(
-                        "Meeting room with name " + bookingDTO.getRoom() + " is already booked " + "for the same time");
+    private void checkForConflictingBookings(Long id, BookingDTO bookingDTO, BookingSlot slot, boolean isUpdate)
+            throws Exception {
+        ConflictCheckEvent event = new ConflictCheckEvent();
+        event.begin();
+        try {
+            Room room = roomRepo.findByNameAndAvailableTrue(bookingDTO.getRoom());
+            event.roomId = room.getId();
+            // Gets the slots of all bookings with same room with overlapping dates and times
+            // These are potential conflicts, depending on their repeat patterns
+            List<BookingSlot> overlappingSlots;
+            if (isUpdate) {
+                overlappingSlots = repo.findOverlappingBookingsUpdate(bookingDTO.getStartDate(),
+                        bookingDTO.getEndDate(), bookingDTO.getStartTime(), bookingDTO.getEndTime(), room, id);
+            } else {
+                overlappingSlots = repo.findOverlappingBookingsCreate(bookingDTO.getStartDate(),
+                        bookingDTO.getEndDate(), bookingDTO.getStartTime(), bookingDTO.getEndTime(), room);
             }
-            if (otherRepeatPattern != null && otherRepeatPattern.equals("every day")) {
-                throw new ConflictingBookingsException(
-                        "Meeting room with name " + bookingDTO.getRoom() + " is already booked " + "for the same time");
+            // Bookings reaching back before the archived range may overlap archived bookings as well
+            if (bookingDTO.getStartDate().toLocalDate().isBefore(archive.archivedBefore())) {
+                overlappingSlots = new ArrayList<>(overlappingSlots);
+                for (Booking archived : repo.findOverlappingArchived(bookingDTO.getStartDate(),
+                        bookingDTO.getEndDate(), bookingDTO.getStartTime(), bookingDTO.getEndTime(), room.getId())) {
+                    overlappingSlots.add(new BookingSlot(archived.getStartDate(), archived.getEndDate(),
+                            archived.getStartTime(), archived.getEndTime(), archived.getRepeat_pattern()));
+                }
             }
-            // If either repeat pattern is 'every same day of the week', conflict if start dates are same day of week
-            c.setTime(booking.getStartDate());
-            int otherDayOfWeek = c.get(Calendar.DAY_OF_WEEK);
-            if (otherRepeatPattern != null || repeatPattern != null) {
-                if (dayOfWeek == otherDayOfWeek) {
+            for (BookingSlot other : overlappingSlots) {
+                event.candidates++;
+                if (slot.conflictsWith(other)) {
                     throw new ConflictingBookingsException("Meeting room with name " + bookingDTO.getRoom()
                             + " is already booked " + "for the same time");
                 }
             }
-            // This else only occurs when both repeat patterns are null, meaning there must be overlap
-            else {
-                throw new ConflictingBookingsException(
-                        "Meeting room with name " + bookingDTO.getRoom() + " is already booked " + "for the same time");
-            }
+        } catch (ConflictingBookingsException e) {
+            event.conflict = true;
+            throw e;
+        } finally {
+            event.commit();
         }
     }
 
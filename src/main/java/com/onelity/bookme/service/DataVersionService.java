@@ -0,0 +1,130 @@
+package com.onelity.bookme.service;
+
+import com.onelity.bookme.model.DataVersion;
+import com.onelity.bookme.repository.DataVersionRepository;
+import com.onelity.bookme.sharding.Shards;
+import java.util.List;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * DataVersionService keeps a version per resource which changes whenever the resource does, and derives the strong
+ * ETags of the room and booking lists from it. Clients that send the current ETag in If-None-Match get a 304 response
+ * without the lists being loaded. The version of BOOKINGS also serves as the change sequence of /bookings/changes.
+ * <p>
+ * When bookings are sharded by location, see Shards, each location's database keeps its own versions, which are
+ * changed together with its rooms and bookings, and the ETags of the lists combine the versions of all locations.
+ */
+public class DataVersionService {
+
+    public static final String ROOMS = "rooms";
+    public static final String BOOKINGS = "bookings";
+    /**
+     * Version of BOOKINGS at which bookings were last deleted for good rather than marked deleted, e.g. by deleting
+     * their room. Changes since an earlier version cannot be listed anymore.
+     */
+    public static final String BOOKINGS_PURGED = "bookings.purged";
+
+    @Autowired
+    private DataVersionRepository repo;
+
+    @Autowired
+    private Shards shards;
+
+    @Autowired
+    private IdempotencyService idempotency;
+
+    public DataVersionService() {
+    }
+
+    /**
+     * Makes a change and increments the versions of the changed resources in one transaction, so the new versions
+     * become visible together with the change. Resources are always passed in the order ROOMS, BOOKINGS so that
+     * concurrent writers lock the version rows in the same order. The versions are incremented before the change is
+     * made and stay locked until commit, so changes stamped with the new version are committed in version order. If
+     * the change returns the response of a request with an Idempotency-Key, the response is stored in the same
+     * transaction, see IdempotencyService.
+     *
+     * @param change
+     *            the change to make, e.g. saving an entity; if it throws, neither it nor the versions are committed
+     * @param resources
+     *            resources affected by the change
+     *
+     * @return returns whatever the change returned
+     */
+    @Transactional(rollbackFor = Exception.class)
+    public <T> T change(Change<T> change, String... resources) throws Exception {
+        long version = 0;
+        for (String resource : resources) {
+            version = repo.increment(resource);
+        }
+        T result = change.apply(version);
+        idempotency.storeResponse(result);
+        return result;
+    }
+
+    /**
+     * Records that rows of a resource were deleted for good by the change which produced the given version. Must be
+     * called inside change().
+     *
+     * @param resource
+     *            resource whose rows were deleted, e.g. BOOKINGS
+     * @param version
+     *            the new version of the resource passed to the change
+     */
+    public void markPurged(String resource, long version) {
+        repo.set(resource + ".purged", version);
+    }
+
+    /**
+     * Gets the current version of a resource
+     *
+     * @param resource
+     *            e.g. ROOMS, BOOKINGS or BOOKINGS_PURGED
+     *
+     * @return returns the version, or 0 if the resource never changed
+     */
+    public long version(String resource) {
+        return repo.findById(resource).map(DataVersion::getVersion).orElse(0L);
+    }
+
+    /**
+     * Gets the ETag for the current version of a resource. The version must be read before the resource itself, so
+     * that a change in between results in an older ETag rather than in a stale body.
+     *
+     * @param resource
+     *            either ROOMS or BOOKINGS
+     *
+     * @return returns the quoted ETag, e.g. "rooms-42", or "rooms-42.17" with two locations
+     */
+    public String eTag(String resource) {
+        return "\"" + resource + "-" + versions(resource) + "\"";
+    }
+
+    /**
+     * Gets the ETag of a variant of the list of a resource, e.g. the booking list including archived bookings, which
+     * changes with the resource but never matches the ETag of the plain list
+     */
+    public String eTag(String resource, String variant) {
+        return "\"" + resource + "-" + variant + "-" + versions(resource) + "\"";
+    }
+
+    private String versions(String resource) {
+        return String.join(".", shards.fanOut(() -> List.of(String.valueOf(version(resource)))));
+    }
+
+    /**
+     * A change made by change()
+     */
+    @FunctionalInterface
+    public interface Change<T> {
+        /**
+         * @param version
+         *            the new version of the last resource passed to change(), e.g. the change sequence to stamp
+         *            changed bookings with
+         *
+         * @return returns the result passed on by change()
+         */
+        T apply(long version) throws Exception;
+    }
+}
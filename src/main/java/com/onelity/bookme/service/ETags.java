@@ -0,0 +1,43 @@
+package com.onelity.bookme.service;
+
+import com.onelity.bookme.exception.PreconditionFailedException;
+
+/**
+ * Converts between entity versions and the strong ETags of single rooms and bookings, e.g. "3"
+ */
+public final class ETags {
+
+    private ETags() {
+    }
+
+    public static String of(Long version) {
+        return "\"" + version + "\"";
+    }
+
+    /**
+     * Gets the version an If-Match header requires. Only a single strong ETag or '*' is supported; weak ETags never
+     * match, as If-Match uses strong comparison.
+     *
+     * @param ifMatch
+     *            value of the If-Match header, or null if the header was not sent
+     *
+     * @return returns the required version, or null if any version is accepted
+     *
+     * @throws PreconditionFailedException
+     *             if the header cannot match any version
+     */
+    public static Long parseIfMatch(String ifMatch) throws PreconditionFailedException {
+        if (ifMatch == null || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String eTag = ifMatch.trim();
+        if (eTag.length() > 2 && eTag.startsWith("\"") && eTag.endsWith("\"")) {
+            try {
+                return Long.parseLong(eTag.substring(1, eTag.length() - 1));
+            } catch (NumberFormatException e) {
+                // Falls through to the exception below
+            }
+        }
+        throw new PreconditionFailedException("If-Match " + ifMatch + " does not match the current version");
+    }
+}
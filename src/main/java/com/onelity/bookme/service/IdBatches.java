@@ -0,0 +1,87 @@
+package com.onelity.bookme.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.function.Function;
+import org.springframework.http.ResponseEntity;
+
+/**
+ * Helpers for getting several bookings or rooms by id in one request, e.g. GET /bookings?ids=1,2,3. The entities are
+ * loaded with one IN query, which returns them in no particular order and skips ids which do not exist, so the results
+ * are put back in the order of the request and the ids which were not found are reported in a header.
+ */
+public final class IdBatches {
+
+    /** Header listing the requested ids which were not found, comma separated */
+    public static final String MISSING_IDS_HEADER = "X-Missing-Ids";
+
+    /** Most ids which can be requested at once, so that one request cannot load a whole table */
+    public static final int MAX_IDS = 100;
+
+    private IdBatches() {
+    }
+
+    /**
+     * Removes duplicate ids, keeping the first occurrence of each
+     *
+     * @return returns the distinct ids in the order of the request
+     */
+    public static List<Long> distinct(List<Long> ids) {
+        return new ArrayList<>(new LinkedHashSet<>(ids));
+    }
+
+    /**
+     * Converts entities loaded by id in the order their ids were requested, collecting the ids which were not found
+     *
+     * @param ids
+     *            distinct requested ids, in the order of the request
+     * @param found
+     *            entities loaded for these ids, in any order
+     * @param idOf
+     *            gets the id of an entity
+     * @param convert
+     *            converts an entity to its DTO
+     * @param missing
+     *            list the ids without entity are added to
+     *
+     * @return returns the DTOs in the order of the requested ids
+     */
+    public static <E, D> List<D> inRequestOrder(List<Long> ids, List<E> found, Function<E, Long> idOf,
+            Function<E, D> convert, List<Long> missing) {
+        Map<Long, E> byId = new HashMap<>(found.size() * 2);
+        for (E entity : found) {
+            byId.put(idOf.apply(entity), entity);
+        }
+        List<D> dtos = new ArrayList<>(found.size());
+        for (Long id : ids) {
+            E entity = byId.get(id);
+            if (entity == null) {
+                missing.add(id);
+            } else {
+                dtos.add(convert.apply(entity));
+            }
+        }
+        return dtos;
+    }
+
+    /**
+     * Builds the response to a batch request, listing the ids which were not found in the X-Missing-Ids header
+     *
+     * @return returns the DTOs with OK status, the ETag and the header if any id is missing
+     */
+    public static <D> ResponseEntity<List<D>> ok(String eTag, List<D> dtos, List<Long> missing) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok().eTag(eTag);
+        if (!missing.isEmpty()) {
+            StringJoiner header = new StringJoiner(",");
+            for (Long id : missing) {
+                header.add(id.toString());
+            }
+            response.header(MISSING_IDS_HEADER, header.toString());
+        }
+        return response.body(dtos);
+    }
+}
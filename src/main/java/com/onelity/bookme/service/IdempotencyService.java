@@ -0,0 +1,290 @@
+package com.onelity.bookme.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.onelity.bookme.exception.IdempotencyKeyInProgressException;
+import com.onelity.bookme.exception.IdempotencyKeyMismatchException;
+import com.onelity.bookme.exception.InvalidIdempotencyKeyException;
+import com.onelity.bookme.model.IdempotencyKey;
+import com.onelity.bookme.repository.IdempotencyKeyRepository;
+import com.onelity.bookme.sharding.Shards;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+/**
+ * IdempotencyService makes POST requests safe to retry. The response to a request sent with an Idempotency-Key header
+ * is stored in the database, and a retry with the same key returns it without executing the request again. Keys are
+ * scoped to the operation and the authenticated user, and are evicted after a TTL or when there are too many.
+ * <p>
+ * Duplicates arriving while the first request still runs are coalesced: on the same instance they wait up to
+ * bookme.idempotency.wait-timeout for it and receive its outcome, on other instances or after the wait they are
+ * rejected with IdempotencyKeyInProgressException. Replays keep the ETag and Location headers of the first response.
+ * <p>
+ * The response is stored by DataVersionService in the transaction making the change, so a retry never executes a
+ * request again whose change was committed. While bookings are sharded, the key is claimed in the default database but
+ * the response is stored in the database of the location the change was made in, and looked up there when a retry
+ * claims the key again after its lock ran out.
+ */
+public class IdempotencyService {
+
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private static final int MAX_KEY_LENGTH = 255;
+
+    @Autowired
+    private IdempotencyKeyRepository repo;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private Shards shards;
+
+    @Value("${bookme.idempotency.ttl:24h}")
+    private Duration ttl;
+
+    @Value("${bookme.idempotency.lock-timeout:1m}")
+    private Duration lockTimeout;
+
+    @Value("${bookme.idempotency.wait-timeout:5s}")
+    private Duration waitTimeout;
+
+    @Value("${bookme.idempotency.max-entries:100000}")
+    private int maxEntries;
+
+    /** Requests being executed by this instance, by key id */
+    private final Map<String, Running> running = new ConcurrentHashMap<>();
+
+    /** Key of the request the current thread executes, whose response is stored together with its change */
+    private final ThreadLocal<Pending> pending = new ThreadLocal<>();
+
+    public IdempotencyService() {
+    }
+
+    /**
+     * Executes a request once per idempotency key
+     *
+     * @param operation
+     *            name of the operation, e.g. 'create-booking'
+     * @param key
+     *            value of the Idempotency-Key header, or null to simply execute the request
+     * @param request
+     *            body of the request, which must be the same for all requests with the key
+     * @param type
+     *            type of the response body
+     * @param action
+     *            executes the request
+     *
+     * @return returns the response of the action, or the stored response with the Idempotent-Replayed header if the
+     *         key was used before; throws InvalidIdempotencyKeyException, IdempotencyKeyMismatchException,
+     *         IdempotencyKeyInProgressException, or whatever the action threw
+     */
+    public <T> ResponseEntity<T> execute(String operation, String key, Object request, Class<T> type,
+            Callable<ResponseEntity<T>> action) throws Exception {
+        if (key == null) {
+            return action.call();
+        }
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new InvalidIdempotencyKeyException(
+                    "Idempotency-Key must be between 1 and " + MAX_KEY_LENGTH + " characters");
+        }
+        String id = operation + ":" + currentUsername() + ":" + key;
+        String requestHash = hash(request);
+        Running current = new Running(requestHash, new CompletableFuture<>());
+        Running first = running.putIfAbsent(id, current);
+        if (first != null) {
+            checkSameRequest(first.requestHash(), requestHash);
+            return replay(await(first.response()), type);
+        }
+        try {
+            StoredResponse stored = claimOrGetStored(id, requestHash);
+            if (stored != null) {
+                current.response().complete(stored);
+                return replay(stored, type);
+            }
+            Pending claimed = new Pending(id, requestHash);
+            ResponseEntity<T> response;
+            pending.set(claimed);
+            try {
+                response = action.call();
+            } catch (Exception e) {
+                repo.release(id);
+                throw e;
+            } finally {
+                pending.remove();
+            }
+            stored = toStored(response);
+            if (!claimed.stored || shards.isEnabled()) {
+                repo.complete(id, stored.status(), stored.body(), stored.eTag(), stored.location());
+            }
+            current.response().complete(stored);
+            return response;
+        } catch (Exception e) {
+            current.response().completeExceptionally(e);
+            throw e;
+        } finally {
+            running.remove(id, current);
+        }
+    }
+
+    /**
+     * Stores the response of the request the current thread executes with an idempotency key, if any, in the current
+     * transaction. Called by DataVersionService with the result of each change, so that the response is committed or
+     * rolled back together with the change.
+     *
+     * @param result
+     *            the result of the change, which is only stored if it is a response
+     */
+    public void storeResponse(Object result) throws Exception {
+        Pending key = pending.get();
+        if (key == null || key.stored || !(result instanceof ResponseEntity<?> response)) {
+            return;
+        }
+        StoredResponse stored = toStored(response);
+        repo.store(key.id, key.requestHash, stored.status(), stored.body(), stored.eTag(), stored.location(),
+                Instant.now());
+        key.stored = true;
+    }
+
+    /**
+     * Deletes expired keys, then the oldest keys beyond the maximum number of entries, in the database of every
+     * location the responses may be stored in
+     */
+    @Scheduled(fixedDelayString = "${bookme.idempotency.eviction-interval:PT1M}")
+    public void evictExpired() {
+        Instant now = Instant.now();
+        evict(now);
+        if (shards.isEnabled()) {
+            shards.forEach(() -> evict(now));
+        }
+    }
+
+    private int evict(Instant now) {
+        return repo.deleteExpired(now.minus(ttl), now) + repo.deleteOldestBeyond(maxEntries);
+    }
+
+    /**
+     * Claims a key for executing its request, or gets the response stored for it
+     *
+     * @return returns null if the key was claimed, or the stored response
+     */
+    private StoredResponse claimOrGetStored(String id, String requestHash) throws Exception {
+        Instant now = Instant.now();
+        if (repo.claim(id, requestHash, now.plus(lockTimeout), now, now.minus(ttl)) != null) {
+            return shards.isEnabled() ? storedInLocation(id, requestHash, now) : null;
+        }
+        IdempotencyKey existing = repo.findById(id).orElse(null);
+        if (existing == null || existing.getStatus() == null) {
+            throw new IdempotencyKeyInProgressException(
+                    "A request with this Idempotency-Key is still being processed, retry later");
+        }
+        checkSameRequest(existing.getRequestHash(), requestHash);
+        return new StoredResponse(existing.getStatus(), existing.getResponseBody(), existing.getResponseEtag(),
+                existing.getResponseLocation());
+    }
+
+    /**
+     * Looks for the response of a key just claimed again in the databases of the locations, where it is stored if the
+     * change was committed but storing the response in the default database failed
+     *
+     * @return returns null if the request was never executed, or the stored response, which is then stored in the
+     *         default database as well
+     */
+    private StoredResponse storedInLocation(String id, String requestHash, Instant now) throws Exception {
+        List<IdempotencyKey> found = shards.fanOut(() -> repo.findStored(id, requestHash, now.minus(ttl)).stream()
+                .toList());
+        if (found.isEmpty()) {
+            return null;
+        }
+        IdempotencyKey existing = found.get(0);
+        repo.complete(id, existing.getStatus(), existing.getResponseBody(), existing.getResponseEtag(),
+                existing.getResponseLocation());
+        return new StoredResponse(existing.getStatus(), existing.getResponseBody(), existing.getResponseEtag(),
+                existing.getResponseLocation());
+    }
+
+    private StoredResponse toStored(ResponseEntity<?> response) throws Exception {
+        return new StoredResponse(response.getStatusCode().value(),
+                objectMapper.writeValueAsString(response.getBody()), response.getHeaders().getETag(),
+                response.getHeaders().getFirst(HttpHeaders.LOCATION));
+    }
+
+    private void checkSameRequest(String expectedHash, String requestHash) throws Exception {
+        if (!expectedHash.equals(requestHash)) {
+            throw new IdempotencyKeyMismatchException("Idempotency-Key was already used for a different request");
+        }
+    }
+
+    /**
+     * Waits for the first request with a key to finish on this instance, but only up to the wait timeout, so that a
+     * stuck request does not hold on to the threads of all its retries
+     */
+    private StoredResponse await(CompletableFuture<StoredResponse> response) throws Exception {
+        try {
+            return response.get(waitTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new IdempotencyKeyInProgressException(
+                    "A request with this Idempotency-Key is still being processed, retry later");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private <T> ResponseEntity<T> replay(StoredResponse stored, Class<T> type) throws Exception {
+        ResponseEntity.BodyBuilder builder = ResponseEntity.status(stored.status()).header(REPLAYED_HEADER, "true");
+        if (stored.eTag() != null) {
+            builder.eTag(stored.eTag());
+        }
+        if (stored.location() != null) {
+            builder.header(HttpHeaders.LOCATION, stored.location());
+        }
+        return builder.body(objectMapper.readValue(stored.body(), type));
+    }
+
+    private String hash(Object request) throws Exception {
+        MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        return HexFormat.of().formatHex(digest.digest(objectMapper.writeValueAsBytes(request)));
+    }
+
+    private String currentUsername() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication == null ? "anonymous" : authentication.getName();
+    }
+
+    private record Running(String requestHash, CompletableFuture<StoredResponse> response) {
+    }
+
+    private static final class Pending {
+
+        private final String id;
+        private final String requestHash;
+        private boolean stored;
+
+        private Pending(String id, String requestHash) {
+            this.id = id;
+            this.requestHash = requestHash;
+        }
+    }
+
+    private record StoredResponse(int status, String body, String eTag, String location) {
+    }
+}
@@ -0,0 +1,133 @@
+package com.onelity.bookme.service;
+
+import com.onelity.bookme.dto.BookingDTO;
+import com.onelity.bookme.dto.RoomDTO;
+import com.onelity.bookme.exception.BookingNotFoundException;
+import com.onelity.bookme.exception.InvalidBookingException;
+import com.onelity.bookme.exception.RoomNotFoundException;
+import com.onelity.bookme.sharding.Shards;
+import io.r2dbc.spi.Readable;
+import java.sql.Date;
+import java.sql.Time;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * ReactiveReadService reads rooms and bookings through the non-blocking R2DBC connection pool, so that waiting for
+ * Postgres does not hold a request thread. It only reads; all changes go through RoomService and BookingService.
+ * Results use the same DTOs as the blocking endpoints. The R2DBC pool only reaches the default database, so all reads
+ * are rejected while rooms and bookings are sharded by location.
+ */
+public class ReactiveReadService {
+
+    private static final String ROOM_COLUMNS = "SELECT r.id, r.name, r.location, r.capacity FROM meeting_rooms r "
+            + "WHERE r.available = true";
+    private static final String BOOKING_COLUMNS = "SELECT b.id, r.name AS room, b.title, b.description, "
+            + "b.start_date, b.end_date, b.start_time, b.end_time, b.participants, b.repeat_pattern "
+            + "FROM bookings b JOIN meeting_rooms r ON r.id = b.room WHERE b.deleted = false AND r.available = true";
+    private static final InvalidBookingException NOT_SHARDED = new InvalidBookingException("reactive_not_sharded",
+            "Reactive reads are not available while rooms and bookings are sharded by location");
+
+    @Autowired
+    private DatabaseClient databaseClient;
+
+    @Autowired
+    private Shards shards;
+
+    public ReactiveReadService() {
+    }
+
+    /**
+     * Gets room with a specific id
+     *
+     * @param id
+     *            id of requested room
+     *
+     * @return returns RoomDTO if room is present, or an error with RoomNotFoundException
+     */
+    public Mono<RoomDTO> getRoom(Long id) {
+        if (shards.isEnabled()) {
+            return Mono.error(NOT_SHARDED);
+        }
+        return databaseClient.sql(ROOM_COLUMNS + " AND r.id = :id").bind("id", id).map(this::convertToRoomDTO).one()
+                .switchIfEmpty(Mono.error(() -> new RoomNotFoundException("Room with id " + id + " not found")));
+    }
+
+    public Flux<RoomDTO> getAllRooms() {
+        if (shards.isEnabled()) {
+            return Flux.error(NOT_SHARDED);
+        }
+        return databaseClient.sql(ROOM_COLUMNS + " ORDER BY r.id").map(this::convertToRoomDTO).all();
+    }
+
+    /**
+     * Gets booking with a specific id
+     *
+     * @param id
+     *            id of requested booking
+     *
+     * @return returns BookingDTO if booking is present, or an error with BookingNotFoundException
+     */
+    public Mono<BookingDTO> getBooking(Long id) {
+        if (shards.isEnabled()) {
+            return Mono.error(NOT_SHARDED);
+        }
+        return databaseClient.sql(BOOKING_COLUMNS + " AND b.id = :id").bind("id", id)
+                .map(this::convertToBookingDTO).one().switchIfEmpty(
+                        Mono.error(() -> new BookingNotFoundException("Booking with id " + id + " not found")));
+    }
+
+    public Flux<BookingDTO> getAllBookings() {
+        if (shards.isEnabled()) {
+            return Flux.error(NOT_SHARDED);
+        }
+        return databaseClient.sql(BOOKING_COLUMNS + " ORDER BY b.id").map(this::convertToBookingDTO).all();
+    }
+
+    /**
+     * Gets the bookings which occupy a room on a given date, ordered by start time. The room is free at all times
+     * between them. A booking occupies a date within its start and end dates if it repeats every day, or if it repeats
+     * every same day of the week and the date falls on the weekday of its start date. Bookings without repeat option
+     * start and end on the same date.
+     *
+     * @param roomId
+     *            id of the room
+     * @param date
+     *            date to get the bookings of
+     *
+     * @return returns the bookings of the room on that date, or an error with RoomNotFoundException
+     */
+    public Flux<BookingDTO> getRoomAvailability(Long roomId, LocalDate date) {
+        if (shards.isEnabled()) {
+            return Flux.error(NOT_SHARDED);
+        }
+        Flux<BookingDTO> bookings = databaseClient.sql(BOOKING_COLUMNS
+                + " AND b.room = :room AND b.start_date <= :date AND b.end_date >= :date AND ("
+                + "b.repeat_pattern IS NULL OR b.repeat_pattern = 'every day' OR "
+                + "EXTRACT(DOW FROM b.start_date) = EXTRACT(DOW FROM CAST(:date AS date))) ORDER BY b.start_time")
+                .bind("room", roomId).bind("date", date).map(this::convertToBookingDTO).all();
+        return getRoom(roomId).thenMany(bookings);
+    }
+
+    private RoomDTO convertToRoomDTO(Readable row) {
+        RoomDTO roomDTO = new RoomDTO();
+        roomDTO.setId(row.get("id", Long.class));
+        roomDTO.setName(row.get("name", String.class));
+        roomDTO.setLocation(row.get("location", String.class));
+        roomDTO.setCapacity(row.get("capacity", Integer.class));
+        return roomDTO;
+    }
+
+    private BookingDTO convertToBookingDTO(Readable row) {
+        return new BookingDTO(row.get("id", Long.class), row.get("room", String.class), row.get("title", String.class),
+                row.get("description", String.class), Date.valueOf(row.get("start_date", LocalDate.class)),
+                Date.valueOf(row.get("end_date", LocalDate.class)),
+                Time.valueOf(row.get("start_time", LocalTime.class)),
+                Time.valueOf(row.get("end_time", LocalTime.class)), row.get("participants", Integer.class),
+                row.get("repeat_pattern", String.class));
+    }
+}
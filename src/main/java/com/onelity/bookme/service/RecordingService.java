@@ -0,0 +1,146 @@
+package com.onelity.bookme.service;
+
+import com.onelity.bookme.dto.RecordingDTO;
+import com.onelity.bookme.exception.RecordingNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.text.ParseException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+/**
+ * Manages JDK Flight Recorder recordings started through /admin/recordings. Recordings include the Bookme events from
+ * the jfr package next to the JDK's own allocation, GC and thread events, so booking operations can be correlated with
+ * them. Only recordings started by this service can be stopped, downloaded or closed.
+ */
+public class RecordingService {
+
+    private static final Duration MAX_AGE = Duration.ofHours(1);
+
+    private final Map<Long, Recording> recordings = new ConcurrentHashMap<>();
+
+    /**
+     * Starts a new recording
+     *
+     * @param settings
+     *            name of the JDK settings to record with, either 'default' (low overhead) or 'profile'
+     * @param duration
+     *            optional duration after which the recording stops on its own
+     *
+     * @return returns response entity with the started recording and Created status
+     *
+     * @throws IOException
+     *             if the settings could not be read
+     * @throws ParseException
+     *             if the settings could not be parsed
+     */
+    public ResponseEntity<RecordingDTO> startRecording(String settings, Duration duration)
+            throws IOException, ParseException {
+        Recording recording = new Recording(Configuration.getConfiguration(settings));
+        recording.setName("bookme-" + settings);
+        recording.setToDisk(true);
+        recording.setMaxAge(MAX_AGE);
+        if (duration != null) {
+            recording.setDuration(duration);
+        }
+        recording.start();
+        recordings.put(recording.getId(), recording);
+        return new ResponseEntity<>(convertToDTO(recording), HttpStatus.CREATED);
+    }
+
+    /**
+     * Stops a running recording, keeping its data until it is closed
+     *
+     * @param id
+     *            id of the recording to stop
+     *
+     * @return returns response entity with the stopped recording and OK status
+     *
+     * @throws RecordingNotFoundException
+     *             if no recording with given id was started by this service
+     */
+    public ResponseEntity<RecordingDTO> stopRecording(Long id) throws RecordingNotFoundException {
+        Recording recording = getRecording(id);
+        if (recording.getState() == RecordingState.RUNNING) {
+            recording.stop();
+        }
+        return new ResponseEntity<>(convertToDTO(recording), HttpStatus.OK);
+    }
+
+    public ResponseEntity<List<RecordingDTO>> getAllRecordings() {
+        List<RecordingDTO> recordingDTOs = recordings.values().stream().map(this::convertToDTO).toList();
+        return new ResponseEntity<>(recordingDTOs, HttpStatus.OK);
+    }
+
+    /**
+     * Dumps the data of a recording into a temporary file which is deleted once the returned stream is closed. Running
+     * recordings keep running.
+     *
+     * @param id
+     *            id of the recording to dump
+     *
+     * @return returns stream over the .jfr file
+     *
+     * @throws RecordingNotFoundException
+     *             if no recording with given id was started by this service
+     * @throws IOException
+     *             if the recording could not be written
+     */
+    public InputStream dumpRecording(Long id) throws RecordingNotFoundException, IOException {
+        Recording recording = getRecording(id);
+        Path file = Files.createTempFile("bookme-" + id + "-", ".jfr");
+        try {
+            recording.dump(file);
+            return Files.newInputStream(file, StandardOpenOption.DELETE_ON_CLOSE);
+        } catch (IOException e) {
+            Files.deleteIfExists(file);
+            throw e;
+        }
+    }
+
+    /**
+     * Stops a recording if it is running and discards its data
+     *
+     * @param id
+     *            id of the recording to close
+     *
+     * @throws RecordingNotFoundException
+     *             if no recording with given id was started by this service
+     */
+    public void closeRecording(Long id) throws RecordingNotFoundException {
+        Recording recording = recordings.remove(id);
+        if (recording == null) {
+            throw new RecordingNotFoundException("Recording with id '" + id + "' does not exist");
+        }
+        recording.close();
+    }
+
+    private Recording getRecording(Long id) throws RecordingNotFoundException {
+        Recording recording = recordings.get(id);
+        if (recording == null) {
+            throw new RecordingNotFoundException("Recording with id '" + id + "' does not exist");
+        }
+        return recording;
+    }
+
+    private RecordingDTO convertToDTO(Recording recording) {
+        RecordingDTO recordingDTO = new RecordingDTO();
+        recordingDTO.setId(recording.getId());
+        recordingDTO.setName(recording.getName());
+        recordingDTO.setState(recording.getState().name());
+        recordingDTO.setStartTime(recording.getStartTime());
+        recordingDTO.setStopTime(recording.getStopTime());
+        recordingDTO.setSize(recording.getSize());
+        return recordingDTO;
+    }
+}
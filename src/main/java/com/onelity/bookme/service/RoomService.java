@@ -1,32 +1,88 @@
 package com.onelity.bookme.service;
 
+import static com.onelity.bookme.metrics.ServiceStages.ROOM_STAGE;
+import static com.onelity.bookme.service.DataVersionService.BOOKINGS;
+import static com.onelity.bookme.service.DataVersionService.ROOMS;
+
+import com.onelity.bookme.dto.ChangeDTO;
+import com.onelity.bookme.dto.OccurrenceDTO;
 import com.onelity.bookme.dto.RoomDTO;
+import com.onelity.bookme.dto.RoomDeletionJobDTO;
+import com.onelity.bookme.exception.DeletionJobNotFoundException;
 import com.onelity.bookme.exception.InvalidRoomException;
+import com.onelity.bookme.exception.PreconditionFailedException;
 import com.onelity.bookme.exception.RoomNotFoundException;
+import com.onelity.bookme.jfr.RoomOperationEvent;
+import com.onelity.bookme.metrics.ServiceStages;
 import com.onelity.bookme.model.Booking;
 import com.onelity.bookme.model.Room;
+import com.onelity.bookme.model.RoomDeletionJob;
+import com.onelity.bookme.model.RoomName;
+import com.onelity.bookme.repository.BookingRepository;
+import com.onelity.bookme.repository.BookingSpecifications;
+import com.onelity.bookme.repository.RoomDeletionJobRepository;
+import com.onelity.bookme.repository.RoomNameRepository;
 import com.onelity.bookme.repository.RoomRepository;
+import com.onelity.bookme.sharding.Shards;
+import java.net.URI;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
-import java.util.Set;
 import org.modelmapper.ModelMapper;
-import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.web.context.request.WebRequest;
 
 /**
- * RoomService handles all business logic required for interacting with meeting rooms
+ * RoomService handles all business logic required for interacting with meeting rooms. When rooms are sharded by
+ * location, see Shards, each room is stored in the database of its location.
  */
 public class RoomService {
 
     @Autowired
     private RoomRepository repo;
 
+    @Autowired
+    private BookingRepository bookingRepo;
+
+    @Autowired
+    private RoomDeletionJobRepository jobRepo;
+
+    @Autowired
+    private RoomNameRepository roomNames;
+
     @Autowired
     private ModelMapper modelMapper;
 
+    @Autowired
+    private ServiceStages stages;
+
+    @Autowired
+    private DataVersionService dataVersions;
+
+    @Autowired
+    private ApplicationEventPublisher events;
+
+    @Autowired
+    private Shards shards;
+
+    /** Longest window of dates /meeting-rooms/{id}/calendar expands bookings for */
+    public static final int MAX_CALENDAR_DAYS = 366;
+
+    private static final InvalidRoomException TOO_MANY_IDS = new InvalidRoomException("too_many_ids",
+            "Cannot get more than " + IdBatches.MAX_IDS + " rooms at once");
+
+    @Value("${bookme.room-deletion.chunk-size:1000}")
+    private int chunkSize;
+
     public RoomService() {
     }
 
@@ -36,28 +92,109 @@ public class RoomService {
      * @param id
      *            id of requested room
      *
-     * @return returns RoomDTO with OK status if room is present, or throws RoomNotFoundException
+     * @return returns RoomDTO with OK status and ETag if room is present, or throws RoomNotFoundException
      */
     public ResponseEntity<RoomDTO> getRoomFromDatabase(Long id) throws Exception {
-        Optional<Room> room = repo.findById(id);
-        if (room.isEmpty()) {
-            throw new RoomNotFoundException("Room with id " + id + " not found");
+        return shards.on(shards.locationOfId(id), () -> {
+            Optional<Room> room = stages.call(ROOM_STAGE, "get", "load",
+                    () -> repo.findById(id).filter(Room::isAvailable));
+            if (room.isEmpty()) {
+                throw new RoomNotFoundException("Room with id " + id + " not found");
+            }
+            return ResponseEntity.ok().eTag(ETags.of(room.get().getVersion()))
+                    .body(modelMapper.map(room, RoomDTO.class));
+        });
+    }
+
+    /**
+     * Gets all rooms existing in database, unless the client already has the current list
+     *
+     * @param request
+     *            request whose If-None-Match header is compared with the ETag of the current room list
+     *
+     * @return returns list of room DTOs with OK status and ETag, or Not Modified status without body
+     */
+    public ResponseEntity<List<RoomDTO>> getAllRoomsFromDatabase(WebRequest request) {
+        String eTag = dataVersions.eTag(ROOMS);
+        if (request.checkNotModified(eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+        }
+        List<RoomDTO> allRoomsDTO = stages.call(ROOM_STAGE, "list", "load", () -> {
+            List<Room> allRooms = shards.fanOut(() -> repo.findAllByAvailableTrue());
+            List<RoomDTO> roomDTOs = new ArrayList<RoomDTO>();
+            for (Room room : allRooms) {
+                roomDTOs.add(modelMapper.map(room, RoomDTO.class));
+            }
+            return roomDTOs;
+        });
+        return ResponseEntity.ok().eTag(eTag).body(allRoomsDTO);
+    }
+
+    /**
+     * Gets several rooms by id with one query, so that clients showing a list of referenced rooms do not need one
+     * request per room
+     *
+     * @param request
+     *            request whose If-None-Match header is compared with the ETag of the current room list
+     * @param ids
+     *            ids of the rooms, at most IdBatches.MAX_IDS; duplicates are ignored
+     *
+     * @return returns the found rooms in the order of the ids with OK status, ETag and the ids which were not found in
+     *         the X-Missing-Ids header, or Not Modified status without body; throws InvalidRoomException if too many
+     *         ids are given
+     */
+    public ResponseEntity<List<RoomDTO>> getRoomsByIdFromDatabase(WebRequest request, List<Long> ids)
+            throws Exception {
+        List<Long> distinctIds = IdBatches.distinct(ids);
+        if (distinctIds.size() > IdBatches.MAX_IDS) {
+            throw TOO_MANY_IDS;
         }
-        return new ResponseEntity<>(modelMapper.map(room, RoomDTO.class), HttpStatus.OK);
+        String eTag = dataVersions.eTag(ROOMS);
+        if (request.checkNotModified(eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+        }
+        List<Long> missing = new ArrayList<>();
+        List<RoomDTO> roomDTOs = stages.call(ROOM_STAGE, "batch", "load", () -> {
+            List<Room> rooms = distinctIds.isEmpty() ? List.of()
+                    : shards.fanOut(() -> repo.findAllByIdInAndAvailableTrue(distinctIds));
+            return IdBatches.inRequestOrder(distinctIds, rooms, Room::getId,
+                    room -> modelMapper.map(room, RoomDTO.class), missing);
+        });
+        return IdBatches.ok(eTag, roomDTOs, missing);
     }
 
     /**
-     * Gets all rooms existing in database
+     * Gets the occurrences of the bookings of a room within a window of dates, with repeating bookings expanded to one
+     * occurrence per date, ordered by date and start time. Only bookings overlapping the window are loaded.
+     *
+     * @param id
+     *            id of the room
+     * @param from
+     *            first date of the window
+     * @param to
+     *            last date of the window, at most MAX_CALENDAR_DAYS after from
      *
-     * @return returns list of room DTOs with OK status
+     * @return returns list of occurrences with OK status, or throws RoomNotFoundException or InvalidRoomException
      */
-    public ResponseEntity<List<RoomDTO>> getAllRoomsFromDatabase() {
-        List<Room> allRooms = repo.findAll();
-        List<RoomDTO> allRoomsDTO = new ArrayList<RoomDTO>();
-        for (Room room : allRooms) {
-            allRoomsDTO.add(modelMapper.map(room, RoomDTO.class));
+    public ResponseEntity<List<OccurrenceDTO>> getRoomCalendarFromDatabase(Long id, LocalDate from, LocalDate to)
+            throws Exception {
+        if (from.isAfter(to)) {
+            throw new InvalidRoomException("Start of calendar cannot be after its end");
         }
-        return new ResponseEntity<>(allRoomsDTO, HttpStatus.OK);
+        if (ChronoUnit.DAYS.between(from, to) >= MAX_CALENDAR_DAYS) {
+            throw new InvalidRoomException("Calendar cannot span more than " + MAX_CALENDAR_DAYS + " days");
+        }
+        return shards.on(shards.locationOfId(id), () -> {
+            if (!stages.call(ROOM_STAGE, "calendar", "load", () -> repo.existsByIdAndAvailableTrue(id))) {
+                throw new RoomNotFoundException("Room with id " + id + " not found");
+            }
+            List<Booking> bookings = stages.call(ROOM_STAGE, "calendar", "load",
+                    () -> bookingRepo.findAll(BookingSpecifications.inRoom(id)
+                            .and(BookingSpecifications.overlapping(from, to)), Sort.by("startDate")));
+            List<OccurrenceDTO> occurrences = new ArrayList<>();
+            BookingOccurrences.merge(bookings, from, to).forEachRemaining(occurrences::add);
+            return ResponseEntity.ok(occurrences);
+        });
     }
 
     /**
@@ -66,47 +203,245 @@ public class RoomService {
      * @param roomDTO
      *            roomDTO object that user would like to add to database
      *
-     * @return returns same roomDTO object with its new id and Created status, or throws InvalidRoomException
+     * @return returns same roomDTO object with its new id and Created status, its ETag and its Location, or throws
+     *         InvalidRoomException
      */
     public ResponseEntity<RoomDTO> createRoomInDatabase(RoomDTO roomDTO) throws Exception {
-        checkForValidRoom(roomDTO);
-        Room newRoom = repo.saveAndFlush(modelMapper.map(roomDTO, Room.class));
-        return new ResponseEntity<>(modelMapper.map(newRoom, RoomDTO.class), HttpStatus.CREATED);
+        RoomOperationEvent event = new RoomOperationEvent("create");
+        event.begin();
+        try {
+            stages.run(ROOM_STAGE, "create", "validation", () -> {
+                checkForValidRoom(roomDTO);
+                checkForShardedRoom(null, roomDTO);
+            });
+            boolean claimed = stages.call(ROOM_STAGE, "create", "validation", () -> claimName(null, roomDTO));
+            ResponseEntity<RoomDTO> response;
+            try {
+                response = stages.call(ROOM_STAGE, "create", "persist",
+                        () -> shards.on(roomDTO.getLocation(), () -> dataVersions.change(version -> {
+                            Room newRoom = repo.saveAndFlush(modelMapper.map(roomDTO, Room.class));
+                            RoomDTO createdRoomDTO = modelMapper.map(newRoom, RoomDTO.class);
+                            events.publishEvent(ChangeDTO.roomChanged("created", createdRoomDTO));
+                            return ResponseEntity.created(URI.create("/meeting-rooms/" + newRoom.getId()))
+                                    .eTag(ETags.of(newRoom.getVersion())).body(createdRoomDTO);
+                        }, ROOMS)));
+            } catch (Exception e) {
+                if (claimed) {
+                    shards.on(null, () -> {
+                        roomNames.deleteById(roomDTO.getName());
+                        return null;
+                    });
+                }
+                throw e;
+            }
+            event.roomId = response.getBody().getId();
+            if (claimed) {
+                shards.on(null, () -> {
+                    roomNames.assign(roomDTO.getName(), event.roomId);
+                    return null;
+                });
+            }
+            return response;
+        } catch (Exception e) {
+            event.failed(e);
+            throw e;
+        } finally {
+            event.commit();
+        }
     }
 
     /**
-     * Deletes room in database
+     * Deletes room in database, along with its bookings. A room without bookings is deleted right away. A room with
+     * bookings is only marked unavailable, so that it can no longer be read, updated or booked, and a job is created
+     * which deletes its bookings in chunks of bounded size and then the room, see deleteBookingsOfDeletedRooms.
+     * Deleting a room which is already being deleted returns its job again. As its bookings are deleted for good,
+     * clients syncing through /bookings/changes from an earlier version have to sync all bookings again.
      *
      * @param id
      *            id of room user wants to delete
+     *
+     * @return returns No Content status if the room was deleted or did not exist, or the deletion job with Accepted
+     *         status and its location
+     */
+    public ResponseEntity<RoomDeletionJobDTO> deleteRoomInDatabase(Long id) throws Exception {
+        RoomOperationEvent event = new RoomOperationEvent("delete");
+        event.begin();
+        event.roomId = id;
+        try {
+            return shards.on(shards.locationOfId(id), () -> {
+                RoomDeletionJob job = stages.call(ROOM_STAGE, "delete", "persist", () -> dataVersions.change(seq -> {
+                    Room room = repo.findById(id).orElse(null);
+                    if (room == null) {
+                        return null;
+                    }
+                    if (!room.isAvailable()) {
+                        return jobRepo.findFirstByRoomOrderByIdDesc(id);
+                    }
+                    long bookings = bookingRepo.countIncludingDeletedByRoom(id);
+                    events.publishEvent(new ChangeDTO("room", "deleted", id, id, room.getLocation()));
+                    if (bookings == 0) {
+                        repo.delete(room);
+                        return null;
+                    }
+                    // Clients syncing from an earlier version must not miss the bookings purged by the job
+                    dataVersions.markPurged(BOOKINGS, seq);
+                    room.setAvailable(false);
+                    return jobRepo.save(new RoomDeletionJob(id, bookings, Instant.now()));
+                }, ROOMS, BOOKINGS));
+                if (job == null) {
+                    releaseNames(id);
+                    return ResponseEntity.noContent().build();
+                }
+                return ResponseEntity.accepted().location(URI.create("/meeting-rooms/deletions/" + job.getId()))
+                        .body(convertToRoomDeletionJobDTO(job));
+            });
+        } catch (Exception e) {
+            event.failed(e);
+            throw e;
+        } finally {
+            event.commit();
+        }
+    }
+
+    /**
+     * Gets the progress of a room deletion
+     *
+     * @param id
+     *            id of the deletion job, as returned by deleteRoomInDatabase
+     *
+     * @return returns the job with OK status, or throws DeletionJobNotFoundException
+     */
+    public ResponseEntity<RoomDeletionJobDTO> getRoomDeletionJobFromDatabase(Long id) throws Exception {
+        return shards.on(shards.locationOfId(id), () -> {
+            RoomDeletionJob job = stages.call(ROOM_STAGE, "deletion", "load",
+                    () -> jobRepo.findById(id).orElse(null));
+            if (job == null) {
+                throw new DeletionJobNotFoundException("Room deletion with id " + id + " not found");
+            }
+            return ResponseEntity.ok(convertToRoomDeletionJobDTO(job));
+        });
+    }
+
+    /**
+     * Works through the running room deletion jobs of each location, deleting the bookings of each room in chunks of
+     * at most bookme.room-deletion.chunk-size bookings, each in its own transaction, so that no transaction holds locks
+     * or produces WAL for a whole booking history. Once a room has no bookings left, the room is deleted and its job
+     * completed. Jobs are locked while a chunk is deleted, so several instances can share the work.
      */
-    public void deleteRoomInDatabase(Long id) {
-        repo.deleteById(id);
+    @Scheduled(fixedDelayString = "${bookme.room-deletion.interval:PT1S}")
+    public void deleteBookingsOfDeletedRooms() throws Exception {
+        shards.forEach(() -> {
+            while (jobRepo.existsByStatus(RoomDeletionJob.Status.RUNNING)) {
+                RoomDeletionJob claimed = stages.call(ROOM_STAGE, "delete", "purge", () -> dataVersions.change(seq -> {
+                    RoomDeletionJob job = jobRepo.lockNextRunning();
+                    if (job == null) {
+                        return null;
+                    }
+                    int deleted = bookingRepo.deleteChunkByRoom(job.getRoom(), chunkSize);
+                    if (deleted < chunkSize) {
+                        deleted += bookingRepo.deleteArchivedChunkByRoom(job.getRoom(), chunkSize - deleted);
+                    }
+                    job.setDeletedBookings(job.getDeletedBookings() + deleted);
+                    if (deleted < chunkSize) {
+                        repo.deleteById(job.getRoom());
+                        job.setStatus(RoomDeletionJob.Status.COMPLETED);
+                        job.setCompletedAt(Instant.now());
+                    }
+                    return jobRepo.save(job);
+                }, BOOKINGS));
+                if (claimed == null) {
+                    // All running jobs are being worked on by other instances
+                    return null;
+                }
+                if (claimed.getStatus() == RoomDeletionJob.Status.COMPLETED) {
+                    releaseNames(claimed.getRoom());
+                }
+            }
+            return null;
+        });
+    }
+
+    public ResponseEntity<RoomDTO> updateRoomInDatabase(Long id, RoomDTO roomDTO) throws Exception {
+        return updateRoomInDatabase(id, roomDTO, null);
     }
 
     /**
-     * Updates a room in database, checking that the new room information is all valid
+     * Updates a room in database with a single conditional update, checking that the new room information is all
+     * valid. The room itself is not read; the update only succeeds if the room still has the version required by
+     * If-Match, so concurrent updates cannot overwrite each other.
      *
      * @param id
      *            id of room user wants to update
      * @param roomDTO
      *            roomDTO object with new room info
+     * @param ifMatch
+     *            value of the If-Match header, or null to update regardless of version
      *
-     * @return returns updated roomDTO object with OK status if successful, or throws InvalidRoomException
+     * @return returns updated roomDTO object with OK status and the new ETag if successful, or throws
+     *         InvalidRoomException, RoomNotFoundException or PreconditionFailedException
      */
-    public ResponseEntity<RoomDTO> updateRoomInDatabase(Long id, RoomDTO roomDTO) throws Exception {
-        Room existingRoom = repo.getReferenceById(id);
-        checkForValidRoom(roomDTO);
-        Set<Booking> existingBookings = existingRoom.getBookings();
-        for (Booking booking : existingBookings) {
-            if (booking.getParticipants() > roomDTO.getCapacity()) {
-                throw new InvalidRoomException("Room could not be updated because booking with title '"
-                        + booking.getTitle() + "' has more participants (" + booking.getParticipants().toString()
-                        + ") than new capacity (" + roomDTO.getCapacity().toString() + ")");
-            }
+    public ResponseEntity<RoomDTO> updateRoomInDatabase(Long id, RoomDTO roomDTO, String ifMatch) throws Exception {
+        RoomOperationEvent event = new RoomOperationEvent("update");
+        event.begin();
+        event.roomId = id;
+        try {
+            return shards.on(shards.locationOfId(id), () -> {
+                Long expectedVersion = ETags.parseIfMatch(ifMatch);
+                stages.run(ROOM_STAGE, "update", "validation", () -> {
+                    checkForValidRoom(roomDTO);
+                    checkForShardedRoom(id, roomDTO);
+                    Booking booking = bookingRepo.findFirstByRoom_IdAndParticipantsGreaterThan(id,
+                            roomDTO.getCapacity());
+                    if (booking != null) {
+                        throw new InvalidRoomException("Room could not be updated because booking with title '"
+                                + booking.getTitle() + "' has more participants ("
+                                + booking.getParticipants().toString() + ") than new capacity ("
+                                + roomDTO.getCapacity().toString() + ")");
+                    }
+                });
+                boolean claimed = stages.call(ROOM_STAGE, "update", "validation", () -> claimName(id, roomDTO));
+                RoomDTO updatedRoomDTO = modelMapper.map(roomDTO, RoomDTO.class);
+                updatedRoomDTO.setId(id);
+                // Bookings show the name of their room, so they are changed as well
+                Long version;
+                try {
+                    version = stages.call(ROOM_STAGE, "update", "persist", () -> dataVersions.change(seq -> {
+                        Long newVersion = repo.updateIfVersion(id, expectedVersion, roomDTO.getName(),
+                                roomDTO.getLocation(), roomDTO.getCapacity());
+                        if (newVersion == null && !repo.existsByIdAndAvailableTrue(id)) {
+                            throw new RoomNotFoundException("Room with id " + id + " not found");
+                        }
+                        if (newVersion == null) {
+                            throw new PreconditionFailedException("Room with id " + id + " has been modified");
+                        }
+                        bookingRepo.touchAllByRoom(id, seq);
+                        events.publishEvent(ChangeDTO.roomChanged("updated", updatedRoomDTO));
+                        return newVersion;
+                    }, ROOMS, BOOKINGS));
+                } catch (Exception e) {
+                    if (claimed) {
+                        shards.on(null, () -> {
+                            roomNames.deleteById(roomDTO.getName());
+                            return null;
+                        });
+                    }
+                    throw e;
+                }
+                if (claimed) {
+                    // The room was renamed, so its previous name is free again
+                    shards.on(null, () -> {
+                        roomNames.releaseAllBut(id, roomDTO.getName());
+                        return null;
+                    });
+                }
+                return ResponseEntity.ok().eTag(ETags.of(version)).body(updatedRoomDTO);
+            });
+        } catch (Exception e) {
+            event.failed(e);
+            throw e;
+        } finally {
+            event.commit();
         }
-        BeanUtils.copyProperties(modelMapper.map(roomDTO, Room.class), existingRoom, "id");
-        return new ResponseEntity<>(modelMapper.map(repo.saveAndFlush(existingRoom), RoomDTO.class), HttpStatus.OK);
     }
 
     /**
@@ -134,4 +469,82 @@ public class RoomService {
         }
     }
 
+    /**
+     * Throws InvalidRoomException if a room cannot be stored in the database of its location, otherwise does nothing.
+     * Rooms cannot move to another location, as their bookings would have to move along.
+     *
+     * @param id
+     *            id of the room being updated, or null if it is being created
+     * @param roomDTO
+     *            roomDTO object being checked, whose fields are valid
+     */
+    private void checkForShardedRoom(Long id, RoomDTO roomDTO) throws Exception {
+        if (!shards.isEnabled()) {
+            return;
+        }
+        String location = roomDTO.getLocation();
+        if (!shards.getLocations().contains(location)) {
+            throw new InvalidRoomException("location_not_sharded",
+                    "No database is configured for location '" + location + "'");
+        }
+        String currentLocation = shards.locationOfId(id);
+        if (currentLocation != null && !currentLocation.equals(location)) {
+            throw new InvalidRoomException("location_changed", "Location of a room cannot be changed");
+        }
+    }
+
+    /**
+     * Claims the name of a room in the default database while rooms are sharded, see RoomNameRepository. Names are
+     * only unique within the database of each location, while bookings find their room by name, so a name claimed by
+     * another location is rejected with InvalidRoomException. A name claimed by the same location, e.g. the current
+     * name of the room, is left to the unique names of that location's rooms.
+     *
+     * @param id
+     *            id of the room being updated, or null if it is being created
+     * @param roomDTO
+     *            roomDTO object being checked, whose fields are valid
+     *
+     * @return returns true if the name was claimed now, in which case it is released again if the room cannot be
+     *         stored
+     */
+    private boolean claimName(Long id, RoomDTO roomDTO) throws Exception {
+        if (!shards.isEnabled()) {
+            return false;
+        }
+        return shards.on(null, () -> {
+            while (true) {
+                if (roomNames.claim(roomDTO.getName(), roomDTO.getLocation(), id) == 1) {
+                    return true;
+                }
+                Optional<RoomName> claimed = roomNames.findById(roomDTO.getName());
+                if (claimed.isEmpty()) {
+                    // Released in between, so claim it again
+                    continue;
+                }
+                if (!claimed.get().getLocation().equals(roomDTO.getLocation())) {
+                    throw new InvalidRoomException("name_taken", "Meeting room with name '" + roomDTO.getName()
+                            + "' already exists in " + claimed.get().getLocation());
+                }
+                return false;
+            }
+        });
+    }
+
+    /**
+     * Releases the name of a deleted room while rooms are sharded, see claimName
+     */
+    private void releaseNames(Long id) {
+        if (shards.isEnabled()) {
+            shards.on(null, () -> {
+                roomNames.releaseAll(id);
+                return null;
+            });
+        }
+    }
+
+    private RoomDeletionJobDTO convertToRoomDeletionJobDTO(RoomDeletionJob job) {
+        RoomDeletionJobDTO jobDTO = modelMapper.map(job, RoomDeletionJobDTO.class);
+        jobDTO.setStatus(job.getStatus().name());
+        return jobDTO;
+    }
 }
@@ -0,0 +1,46 @@
+package com.onelity.bookme.sharding;
+
+import com.zaxxer.hikari.HikariDataSource;
+import java.util.HashMap;
+import java.util.Map;
+import javax.sql.DataSource;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+/**
+ * Hands out connections to the database of the location the current thread works on, see Shards, and to the default
+ * database outside of any location. The default database keeps the users, the idempotency keys and the names of the
+ * rooms of all locations. The location is looked up whenever a connection is requested, i.e. when a transaction starts,
+ * so a transaction stays on one database.
+ */
+public class LocationRoutingDataSource extends AbstractRoutingDataSource implements AutoCloseable {
+
+    private final Map<String, HikariDataSource> shards;
+
+    /**
+     * @param defaultDataSource
+     *            the default database, configured by spring.datasource.*
+     * @param shards
+     *            the connection pool of each location
+     */
+    public LocationRoutingDataSource(DataSource defaultDataSource, Map<String, HikariDataSource> shards) {
+        this.shards = shards;
+        setDefaultTargetDataSource(defaultDataSource);
+        setTargetDataSources(new HashMap<>(shards));
+        // A location without a database must not silently fall back to the default one
+        setLenientFallback(false);
+    }
+
+    public Map<String, HikariDataSource> getShards() {
+        return shards;
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return Shards.currentLocation();
+    }
+
+    @Override
+    public void close() {
+        shards.values().forEach(HikariDataSource::close);
+    }
+}
@@ -0,0 +1,209 @@
+package com.onelity.bookme.sharding;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.springframework.security.concurrent.DelegatingSecurityContextCallable;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+/**
+ * Shards keeps track of the location whose database the current thread works on when bookme.sharding.enabled is true.
+ * Each location (office) then has a database of its own holding its rooms and their bookings, which
+ * LocationRoutingDataSource picks when a transaction starts. Ids tell the location they were created in, see ID_BITS,
+ * so requests for one room or booking go to one database, while reads across locations are sent to all of them in
+ * parallel and merged.
+ * <p>
+ * When sharding is disabled there are no locations, and all work runs on the calling thread against the one database.
+ */
+public class Shards implements AutoCloseable {
+
+    /**
+     * Ids created in the location at index i of bookme.sharding.locations lie in [i << ID_BITS, (i + 1) << ID_BITS),
+     * see ShardingConfiguration, so locations can only be appended to that list
+     */
+    public static final int ID_BITS = 40;
+
+    private static final ThreadLocal<String> CURRENT = new ThreadLocal<>();
+
+    private final List<String> locations;
+    private final ExecutorService executor;
+
+    /**
+     * @param locations
+     *            locations with a database of their own, in the order of bookme.sharding.locations, or none if
+     *            sharding is disabled
+     */
+    public Shards(List<String> locations) {
+        this.locations = List.copyOf(locations);
+        this.executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("shard-", 0).factory());
+    }
+
+    public boolean isEnabled() {
+        return !locations.isEmpty();
+    }
+
+    public List<String> getLocations() {
+        return locations;
+    }
+
+    /**
+     * @return returns the location the current thread works on, or null for the default database
+     */
+    public static String currentLocation() {
+        return CURRENT.get();
+    }
+
+    /**
+     * @return returns the first id of a location, see ID_BITS
+     */
+    public long firstId(String location) {
+        return Math.max(1, (long) locations.indexOf(location) << ID_BITS);
+    }
+
+    /**
+     * @return returns the last id of a location, see ID_BITS
+     */
+    public long lastId(String location) {
+        return ((long) (locations.indexOf(location) + 1) << ID_BITS) - 1;
+    }
+
+    /**
+     * Gets the location a room, booking or room deletion job was created in
+     *
+     * @param id
+     *            id of the room, booking or job
+     *
+     * @return returns the location, or null if sharding is disabled or the id belongs to no location
+     */
+    public String locationOfId(Long id) {
+        if (!isEnabled() || id == null || id < 0) {
+            return null;
+        }
+        long index = id >> ID_BITS;
+        return index < locations.size() ? locations.get((int) index) : null;
+    }
+
+    /**
+     * Does work against the database of a location. Transactions must start within the work, so that they get a
+     * connection to that database.
+     *
+     * @param location
+     *            location to work on, or null for the default database
+     * @param work
+     *            the work, e.g. a service operation
+     *
+     * @return returns whatever the work returned
+     */
+    public <T, E extends Exception> T on(String location, Work<T, E> work) throws E {
+        if (!isEnabled()) {
+            return work.call();
+        }
+        String previous = CURRENT.get();
+        CURRENT.set(location);
+        try {
+            return work.call();
+        } finally {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+
+    /**
+     * Reads from the databases of all locations in parallel, each on a virtual thread with the security context of
+     * the caller, and concatenates the results in the order of the locations. If a read fails, the others are
+     * cancelled and its exception is thrown.
+     *
+     * @param read
+     *            the read, done once per location
+     *
+     * @return returns the results of all locations, or of the one database if sharding is disabled
+     */
+    @SuppressWarnings("unchecked")
+    public <T, E extends Exception> List<T> fanOut(Work<List<T>, E> read) throws E {
+        if (!isEnabled()) {
+            return read.call();
+        }
+        SecurityContext securityContext = SecurityContextHolder.getContext();
+        List<Future<List<T>>> results = new ArrayList<>(locations.size());
+        for (String location : locations) {
+            results.add(executor
+                    .submit(DelegatingSecurityContextCallable.create(() -> on(location, read), securityContext)));
+        }
+        List<T> merged = new ArrayList<>();
+        try {
+            for (Future<List<T>> result : results) {
+                merged.addAll(result.get());
+            }
+        } catch (ExecutionException e) {
+            results.forEach(result -> result.cancel(true));
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            // Only exceptions thrown by the read itself can get here
+            throw (E) e.getCause();
+        } catch (InterruptedException e) {
+            results.forEach(result -> result.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while reading from all locations", e);
+        }
+        return merged;
+    }
+
+    /**
+     * Does work against the database of each location in turn, e.g. a scheduled job
+     *
+     * @return returns the result of each location, or of the one database if sharding is disabled
+     */
+    public <T, E extends Exception> List<T> forEach(Work<T, E> work) throws E {
+        if (!isEnabled()) {
+            List<T> result = new ArrayList<>(1);
+            result.add(work.call());
+            return result;
+        }
+        List<T> results = new ArrayList<>(locations.size());
+        for (String location : locations) {
+            results.add(on(location, work));
+        }
+        return results;
+    }
+
+    /**
+     * Finds the location whose database holds something, e.g. the room with a given name, asking all databases in
+     * parallel
+     *
+     * @param exists
+     *            checks whether the database of the current location holds it
+     *
+     * @return returns the first location holding it, or null if none does or sharding is disabled
+     */
+    public <E extends Exception> String locate(Work<Boolean, E> exists) throws E {
+        if (!isEnabled()) {
+            return null;
+        }
+        List<String> found = fanOut(() -> exists.call() ? List.of(currentLocation()) : List.of());
+        return found.isEmpty() ? null : found.get(0);
+    }
+
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+
+    /**
+     * Work done against the database of a location
+     */
+    @FunctionalInterface
+    public interface Work<T, E extends Exception> {
+        T call() throws E;
+    }
+}
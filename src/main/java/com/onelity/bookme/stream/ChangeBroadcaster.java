@@ -0,0 +1,203 @@
+package com.onelity.bookme.stream;
+
+import com.onelity.bookme.dto.ChangeDTO;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * Pushes committed booking and room changes to the subscribers of /bookings/stream. Changes are published as
+ * ChangeDTO application events inside the transaction that makes them, and broadcast only after it commits.
+ * <p>
+ * Every subscriber has a bounded buffer drained by its own virtual thread, so a slow client never delays the committing
+ * request or other subscribers. When a buffer overflows the subscriber is disconnected; the client reconnects with
+ * Last-Event-ID and catches up from the replay ring, or gets a 'reset' event telling it to reload the lists if the
+ * missed changes are no longer in the ring.
+ */
+@Component
+public class ChangeBroadcaster {
+
+    public static final String SUBSCRIBERS_GAUGE = "bookme.stream.subscribers";
+    public static final String DROPPED_COUNTER = "bookme.stream.dropped";
+
+    /** Queued in place of further changes when a subscriber's buffer overflowed */
+    private static final ChangeDTO DISCONNECT = new ChangeDTO();
+
+    private final int bufferSize;
+    private final long timeoutMillis;
+    private final long heartbeatMillis;
+    private final Counter dropped;
+
+    /** Guards the ring, the sequence and subscriber registration, so every change is replayed or delivered once */
+    private final ReentrantLock lock = new ReentrantLock();
+    private final ChangeDTO[] ring;
+    private long sequence;
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+
+    public ChangeBroadcaster(MeterRegistry registry, @Value("${bookme.stream.buffer-size:256}") int bufferSize,
+            @Value("${bookme.stream.replay-size:1024}") int replaySize,
+            @Value("${bookme.stream.timeout:30m}") Duration timeout,
+            @Value("${bookme.stream.heartbeat:15s}") Duration heartbeat) {
+        this.bufferSize = bufferSize;
+        this.ring = new ChangeDTO[replaySize];
+        this.timeoutMillis = timeout.toMillis();
+        this.heartbeatMillis = heartbeat.toMillis();
+        this.dropped = Counter.builder(DROPPED_COUNTER)
+                .description("Stream subscribers disconnected for being too slow").register(registry);
+        registry.gauge(SUBSCRIBERS_GAUGE, subscribers, Set::size);
+    }
+
+    /**
+     * Assigns the next id to a committed change, keeps it for replay and hands it to all matching subscribers
+     *
+     * @param change
+     *            change published by RoomService or BookingService
+     */
+    @TransactionalEventListener
+    public void broadcast(ChangeDTO change) {
+        lock.lock();
+        try {
+            change.setId(++sequence);
+            ring[(int) (sequence % ring.length)] = change;
+            for (Subscriber subscriber : subscribers) {
+                subscriber.offer(change);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Subscribes to the changes of bookings and rooms
+     *
+     * @param roomId
+     *            only changes of this room and its bookings are sent, unless null
+     * @param location
+     *            only changes of rooms in this location and their bookings are sent, unless null
+     * @param lastEventId
+     *            id of the last change the client received before reconnecting, or null
+     *
+     * @return returns the emitter streaming the changes
+     */
+    public SseEmitter subscribe(Long roomId, String location, String lastEventId) {
+        Subscriber subscriber = new Subscriber(new SseEmitter(timeoutMillis), roomId, location);
+        lock.lock();
+        try {
+            if (lastEventId != null && !subscriber.replay(parseId(lastEventId))) {
+                subscriber.reset = true;
+            }
+            subscribers.add(subscriber);
+        } finally {
+            lock.unlock();
+        }
+        subscriber.emitter.onCompletion(subscriber::close);
+        subscriber.emitter.onTimeout(subscriber::close);
+        subscriber.emitter.onError(error -> subscriber.close());
+        Thread.ofVirtual().name("sse-subscriber").start(subscriber::drain);
+        return subscriber.emitter;
+    }
+
+    private static long parseId(String lastEventId) {
+        try {
+            return Long.parseLong(lastEventId.trim());
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private final class Subscriber {
+
+        private final SseEmitter emitter;
+        private final Long roomId;
+        private final String location;
+        private final BlockingQueue<ChangeDTO> buffer = new ArrayBlockingQueue<>(bufferSize);
+        private volatile boolean closed;
+        private boolean reset;
+
+        private Subscriber(SseEmitter emitter, Long roomId, String location) {
+            this.emitter = emitter;
+            this.roomId = roomId;
+            this.location = location;
+        }
+
+        private boolean matches(ChangeDTO change) {
+            return (roomId == null || roomId.equals(change.getRoomId()))
+                    && (location == null || location.equalsIgnoreCase(change.getLocation()));
+        }
+
+        /**
+         * Queues the changes after lastId that are still in the ring. Called with the lock held.
+         *
+         * @return returns false if changes were missed, or lastId is not from this process
+         */
+        private boolean replay(long lastId) {
+            if (lastId < 0 || lastId > sequence || sequence - lastId > ring.length) {
+                return false;
+            }
+            for (long id = lastId + 1; id <= sequence; id++) {
+                ChangeDTO change = ring[(int) (id % ring.length)];
+                if (matches(change) && !buffer.offer(change)) {
+                    buffer.clear();
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Queues a change without blocking. Called with the lock held.
+         */
+        private void offer(ChangeDTO change) {
+            if (!closed && matches(change) && !buffer.offer(change)) {
+                dropped.increment();
+                subscribers.remove(this);
+                buffer.clear();
+                buffer.offer(DISCONNECT);
+            }
+        }
+
+        private void drain() {
+            try {
+                emitter.send(SseEmitter.event().comment("connected"));
+                if (reset) {
+                    emitter.send(SseEmitter.event().name("reset").data("reload"));
+                }
+                while (!closed) {
+                    ChangeDTO change = buffer.poll(heartbeatMillis, TimeUnit.MILLISECONDS);
+                    if (change == null) {
+                        emitter.send(SseEmitter.event().comment("heartbeat"));
+                    } else if (change == DISCONNECT) {
+                        emitter.complete();
+                        return;
+                    } else {
+                        emitter.send(SseEmitter.event().id(String.valueOf(change.getId())).data(change));
+                    }
+                }
+            } catch (IOException | IllegalStateException e) {
+                // Client went away or the emitter timed out
+                emitter.completeWithError(e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                emitter.complete();
+            } finally {
+                close();
+            }
+        }
+
+        private void close() {
+            closed = true;
+            subscribers.remove(this);
+        }
+    }
+}
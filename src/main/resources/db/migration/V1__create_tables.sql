@@ -0,0 +1,28 @@
+-- Tables as they were before versioned migrations. Existing databases are baselined at this version.
+CREATE TABLE IF NOT EXISTS public.users (
+    id BIGSERIAL PRIMARY KEY,
+    username VARCHAR(255) UNIQUE,
+    password VARCHAR(255),
+    role VARCHAR(255)
+);
+
+CREATE TABLE IF NOT EXISTS public.meeting_rooms (
+    id BIGSERIAL PRIMARY KEY,
+    name VARCHAR(255) UNIQUE,
+    location VARCHAR(255),
+    capacity INTEGER
+);
+
+CREATE TABLE IF NOT EXISTS public.bookings (
+    id BIGSERIAL PRIMARY KEY,
+    room BIGINT NOT NULL REFERENCES public.meeting_rooms (id) ON DELETE CASCADE,
+    title VARCHAR(255),
+    description VARCHAR(255),
+    start_date DATE,
+    end_date DATE,
+    start_time TIME,
+    end_time TIME,
+    participants INTEGER,
+    repeat_pattern VARCHAR(255),
+    creator BIGINT NOT NULL REFERENCES public.users (id) ON DELETE CASCADE
+);
@@ -0,0 +1,31 @@
+-- Formerly schema.sql, run on every startup; every statement is idempotent since existing databases ran it before
+CREATE TABLE IF NOT EXISTS public.data_versions (
+    resource VARCHAR(50) PRIMARY KEY,
+    version BIGINT NOT NULL
+);
+
+ALTER TABLE IF EXISTS public.meeting_rooms ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE IF EXISTS public.bookings ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE IF EXISTS public.bookings ADD COLUMN IF NOT EXISTS change_seq BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE IF EXISTS public.bookings ADD COLUMN IF NOT EXISTS deleted BOOLEAN NOT NULL DEFAULT false;
+CREATE INDEX IF NOT EXISTS bookings_change_seq_idx ON public.bookings (change_seq);
+
+CREATE TABLE IF NOT EXISTS public.outbox_events (
+    id BIGSERIAL PRIMARY KEY,
+    room_id BIGINT,
+    resource VARCHAR(50) NOT NULL,
+    action VARCHAR(50) NOT NULL,
+    resource_id BIGINT,
+    payload TEXT NOT NULL,
+    created_at TIMESTAMP WITH TIME ZONE NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS public.idempotency_keys (
+    id VARCHAR(600) PRIMARY KEY,
+    request_hash VARCHAR(64) NOT NULL,
+    status INTEGER,
+    response_body TEXT,
+    locked_until TIMESTAMP WITH TIME ZONE NOT NULL,
+    created_at TIMESTAMP WITH TIME ZONE NOT NULL
+);
+CREATE INDEX IF NOT EXISTS idempotency_keys_created_at_idx ON public.idempotency_keys (created_at);
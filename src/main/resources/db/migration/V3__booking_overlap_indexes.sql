@@ -0,0 +1,13 @@
+-- The overlap queries filter on room or creator, start and end date. Bookings accumulate in the past, so end_date
+-- comes right after the equality column: a range on it skips a room's history, and start_date is filtered within the
+-- index instead of on the table. These replace the (room, end_date) and (creator, end_date) indexes.
+CREATE INDEX IF NOT EXISTS bookings_room_dates_idx ON public.bookings (room, end_date, start_date)
+    WHERE deleted = false;
+CREATE INDEX IF NOT EXISTS bookings_creator_dates_idx ON public.bookings (creator, end_date, start_date)
+    WHERE deleted = false;
+DROP INDEX IF EXISTS public.bookings_room_end_date_idx;
+DROP INDEX IF EXISTS public.bookings_creator_end_date_idx;
+
+-- Deleting a room or user cascades to its bookings, including tombstones, which the partial indexes leave out
+CREATE INDEX IF NOT EXISTS bookings_room_idx ON public.bookings (room);
+CREATE INDEX IF NOT EXISTS bookings_creator_idx ON public.bookings (creator);
@@ -0,0 +1,14 @@
+-- Deleted rooms stay in the table, unavailable, until a background job has deleted their bookings in chunks
+ALTER TABLE public.meeting_rooms ADD COLUMN available BOOLEAN NOT NULL DEFAULT true;
+
+CREATE TABLE public.room_deletion_jobs (
+    id BIGSERIAL PRIMARY KEY,
+    room BIGINT NOT NULL,
+    status VARCHAR(20) NOT NULL,
+    total_bookings BIGINT NOT NULL,
+    deleted_bookings BIGINT NOT NULL DEFAULT 0,
+    created_at TIMESTAMP WITH TIME ZONE NOT NULL,
+    completed_at TIMESTAMP WITH TIME ZONE
+);
+CREATE INDEX room_deletion_jobs_running_idx ON public.room_deletion_jobs (id) WHERE status = 'RUNNING';
+CREATE INDEX room_deletion_jobs_room_idx ON public.room_deletion_jobs (room);
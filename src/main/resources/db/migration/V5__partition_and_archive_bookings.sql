@@ -0,0 +1,100 @@
+-- Bookings are partitioned by end date, one partition per year, so that the overlap queries, which only match bookings
+-- ending on or after a date, skip the partitions of past years. Bookings whose year has no partition yet go to
+-- bookings_default; bookings_ensure_partition creates the partitions of upcoming years and is called by
+-- BookingArchiveService.
+ALTER TABLE public.bookings RENAME TO bookings_unpartitioned;
+ALTER TABLE public.bookings_unpartitioned RENAME CONSTRAINT bookings_pkey TO bookings_unpartitioned_pkey;
+DROP INDEX public.bookings_room_dates_idx;
+DROP INDEX public.bookings_creator_dates_idx;
+DROP INDEX public.bookings_room_idx;
+DROP INDEX public.bookings_creator_idx;
+DROP INDEX public.bookings_change_seq_idx;
+ALTER SEQUENCE public.bookings_id_seq OWNED BY NONE;
+
+-- The primary key of a partitioned table has to include the partition key; ids still come from one sequence
+CREATE TABLE public.bookings (
+    id BIGINT NOT NULL DEFAULT nextval('public.bookings_id_seq'),
+    room BIGINT NOT NULL REFERENCES public.meeting_rooms (id) ON DELETE CASCADE,
+    title VARCHAR(255),
+    description VARCHAR(255),
+    start_date DATE,
+    end_date DATE NOT NULL,
+    start_time TIME,
+    end_time TIME,
+    participants INTEGER,
+    repeat_pattern VARCHAR(255),
+    creator BIGINT NOT NULL REFERENCES public.users (id) ON DELETE CASCADE,
+    version BIGINT NOT NULL DEFAULT 0,
+    change_seq BIGINT NOT NULL DEFAULT 0,
+    deleted BOOLEAN NOT NULL DEFAULT false,
+    PRIMARY KEY (id, end_date)
+) PARTITION BY RANGE (end_date);
+ALTER SEQUENCE public.bookings_id_seq OWNED BY public.bookings.id;
+
+CREATE TABLE public.bookings_default PARTITION OF public.bookings DEFAULT;
+
+-- Same indexes as before, created on every partition
+CREATE INDEX bookings_room_dates_idx ON public.bookings (room, end_date, start_date) WHERE deleted = false;
+CREATE INDEX bookings_creator_dates_idx ON public.bookings (creator, end_date, start_date) WHERE deleted = false;
+CREATE INDEX bookings_room_idx ON public.bookings (room);
+CREATE INDEX bookings_creator_idx ON public.bookings (creator);
+CREATE INDEX bookings_change_seq_idx ON public.bookings (change_seq);
+
+-- Creates the partition of a year. Bookings of that year which were created before it existed are moved out of the
+-- default partition, which is detached meanwhile, as a partition cannot be created while the default one holds rows
+-- belonging to it.
+CREATE FUNCTION public.bookings_ensure_partition(partition_year INTEGER) RETURNS BOOLEAN LANGUAGE plpgsql AS $$
+DECLARE
+    partition_name TEXT := 'bookings_y' || partition_year;
+    range_start DATE := make_date(partition_year, 1, 1);
+    range_end DATE := make_date(partition_year + 1, 1, 1);
+BEGIN
+    -- Several instances may create the same partition at once
+    PERFORM pg_advisory_xact_lock(hashtext('bookings_ensure_partition'));
+    IF to_regclass('public.' || partition_name) IS NOT NULL THEN
+        RETURN false;
+    END IF;
+    IF EXISTS (SELECT 1 FROM public.bookings_default WHERE end_date >= range_start AND end_date < range_end) THEN
+        ALTER TABLE public.bookings DETACH PARTITION public.bookings_default;
+        EXECUTE format('CREATE TABLE public.%I PARTITION OF public.bookings FOR VALUES FROM (%L) TO (%L)',
+            partition_name, range_start, range_end);
+        EXECUTE format('INSERT INTO public.%I SELECT * FROM public.bookings_default '
+            || 'WHERE end_date >= %L AND end_date < %L', partition_name, range_start, range_end);
+        DELETE FROM public.bookings_default WHERE end_date >= range_start AND end_date < range_end;
+        ALTER TABLE public.bookings ATTACH PARTITION public.bookings_default DEFAULT;
+    ELSE
+        EXECUTE format('CREATE TABLE public.%I PARTITION OF public.bookings FOR VALUES FROM (%L) TO (%L)',
+            partition_name, range_start, range_end);
+    END IF;
+    RETURN true;
+END
+$$;
+
+-- Partitions for the years of existing bookings, within reason, and for the last, current and next two years
+SELECT public.bookings_ensure_partition(partition_year)
+FROM (
+    SELECT DISTINCT CAST(EXTRACT(YEAR FROM end_date) AS INTEGER) AS partition_year
+    FROM public.bookings_unpartitioned
+    WHERE end_date >= DATE '2000-01-01' AND end_date < CURRENT_DATE + INTERVAL '3 years'
+    UNION
+    SELECT CAST(EXTRACT(YEAR FROM CURRENT_DATE) AS INTEGER) + offset_years FROM generate_series(-1, 2) offset_years
+) years
+ORDER BY partition_year;
+
+INSERT INTO public.bookings (id, room, title, description, start_date, end_date, start_time, end_time, participants,
+    repeat_pattern, creator, version, change_seq, deleted)
+SELECT id, room, title, description, start_date, end_date, start_time, end_time, participants, repeat_pattern, creator,
+    version, change_seq, deleted
+FROM public.bookings_unpartitioned;
+DROP TABLE public.bookings_unpartitioned;
+ANALYZE public.bookings;
+
+-- Cold storage for bookings which ended long ago and do not repeat, moved here by BookingArchiveService. Entity
+-- queries only read bookings, so archived bookings are only read when explicitly asked for. The columns must stay the
+-- same as those of bookings, as bookings are moved with SELECT *.
+CREATE TABLE public.bookings_archive (LIKE public.bookings);
+ALTER TABLE public.bookings_archive ADD PRIMARY KEY (id);
+ALTER TABLE public.bookings_archive ADD FOREIGN KEY (room) REFERENCES public.meeting_rooms (id) ON DELETE CASCADE;
+ALTER TABLE public.bookings_archive ADD FOREIGN KEY (creator) REFERENCES public.users (id) ON DELETE CASCADE;
+CREATE INDEX bookings_archive_room_dates_idx ON public.bookings_archive (room, end_date, start_date);
+CREATE INDEX bookings_archive_creator_dates_idx ON public.bookings_archive (creator, end_date, start_date);
@@ -0,0 +1,3 @@
+-- Replayed responses carry the ETag and Location headers of the response to the first request
+ALTER TABLE public.idempotency_keys ADD COLUMN response_etag VARCHAR(255);
+ALTER TABLE public.idempotency_keys ADD COLUMN response_location VARCHAR(2048);
@@ -0,0 +1,8 @@
+-- Names of the rooms of all locations while sharded, kept in the default database only, so that a name can be claimed
+-- in one place before its room is stored in the database of its location
+CREATE TABLE public.room_names (
+    name VARCHAR(255) PRIMARY KEY,
+    location VARCHAR(255) NOT NULL,
+    room BIGINT
+);
+CREATE INDEX room_names_room_idx ON public.room_names (room);
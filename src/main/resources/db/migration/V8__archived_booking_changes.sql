@@ -0,0 +1,3 @@
+-- Archived bookings are stamped with the change sequence of the run which moved them, so /bookings/changes can list
+-- them as archived instead of every client having to sync all bookings again after each run
+CREATE INDEX bookings_archive_change_seq_idx ON public.bookings_archive (change_seq);
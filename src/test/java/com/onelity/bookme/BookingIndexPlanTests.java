@@ -0,0 +1,170 @@
+package com.onelity.bookme;
+
+import java.sql.Date;
+import java.sql.Time;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.modelmapper.internal.util.Assert;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.onelity.bookme.model.Room;
+import com.onelity.bookme.repository.BookingRepository;
+import com.onelity.bookme.repository.RoomRepository;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.proxy.ParameterSetOperation;
+
+/**
+ * Checks that Postgres plans the overlap queries of BookingRepository with the index from V3__booking_overlap_indexes
+ * once a room has years of bookings, and only scans the partitions from V5__partition_and_archive_bookings which can
+ * hold bookings ending after the requested date. The repository methods are called, and the SQL and bind values
+ * Hibernate sent for them are captured and explained, so the plans follow any change to the queries.
+ */
+@SpringBootTest
+public class BookingIndexPlanTests {
+
+    private static final int ROOMS = 50;
+    private static final int BOOKINGS_PER_ROOM = 2000;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private RoomRepository roomRepository;
+
+    @Autowired
+    private CapturedQueries capturedQueries;
+
+    private String prefix;
+    private Long roomId;
+
+    @BeforeEach
+    public void setup() {
+        prefix = "plan-" + UUID.randomUUID();
+        jdbcTemplate.update("INSERT INTO users (username, password, role) VALUES (?, '', 'ROLE_USER')", prefix);
+        jdbcTemplate.update("INSERT INTO meeting_rooms (name, location, capacity, version) "
+                + "SELECT ? || '-' || r, 'Plan', 10, 0 FROM generate_series(1, ?) r", prefix, ROOMS);
+        jdbcTemplate.queryForList("SELECT bookings_ensure_partition(y) FROM generate_series(2020, 2025) y");
+        // One booking per day and room, starting in 2020, so most of each room's bookings lie in the past
+        jdbcTemplate.update("INSERT INTO bookings (room, title, start_date, end_date, start_time, end_time, "
+                + "participants, creator, version, change_seq, deleted) "
+                + "SELECT m.id, 'Plan', DATE '2020-01-01' + i, DATE '2020-01-01' + i, "
+                + "TIME '08:00' + (i % 8) * INTERVAL '1 hour', TIME '09:00' + (i % 8) * INTERVAL '1 hour', 2, u.id, "
+                + "0, 0, false FROM meeting_rooms m CROSS JOIN generate_series(1, ?) i "
+                + "JOIN users u ON u.username = ? WHERE m.name LIKE ? || '-%'", BOOKINGS_PER_ROOM, prefix, prefix);
+        jdbcTemplate.execute("ANALYZE bookings");
+        roomId = jdbcTemplate.queryForObject("SELECT id FROM meeting_rooms WHERE name = ? || '-1'", Long.class,
+                prefix);
+    }
+
+    @AfterEach
+    public void cleanup() {
+        jdbcTemplate.update("DELETE FROM meeting_rooms WHERE name LIKE ? || '-%'", prefix);
+        jdbcTemplate.update("DELETE FROM users WHERE username = ?", prefix);
+    }
+
+    @Test
+    public void givenRoomWithYearsOfBookings_whenExplainOverlapCreate_thenUsesRoomDatesIndex() {
+        // given - precondition or setup
+        Date date = Date.valueOf("2025-06-02");
+
+        Room room = roomRepository.findById(roomId).orElseThrow();
+
+        // when - action or behaviour that we are going to test
+        capturedQueries.start();
+        bookingRepository.findOverlappingBookingsCreate(date, date, Time.valueOf("10:00:00"), Time.valueOf("11:00:00"),
+                room);
+        String plan = explain(capturedQueries.stop());
+
+        // then - verify the output
+        Assert.isTrue(plan.contains("room_end_date_start_date_idx"), "%s", plan);
+        Assert.isTrue(!plan.contains("Seq Scan on bookings_y"), "%s", plan);
+        Assert.isTrue(!plan.contains("bookings_y2020"), "%s", plan);
+    }
+
+    @Test
+    public void givenRoomWithYearsOfBookings_whenExplainOverlapUpdate_thenUsesRoomDatesIndex() {
+        // given - precondition or setup
+        Date date = Date.valueOf("2025-06-02");
+        Long id = jdbcTemplate.queryForObject("SELECT min(id) FROM bookings WHERE room = ?", Long.class, roomId);
+
+        Room room = roomRepository.findById(roomId).orElseThrow();
+
+        // when - action or behaviour that we are going to test
+        capturedQueries.start();
+        bookingRepository.findOverlappingBookingsUpdate(date, date, Time.valueOf("10:00:00"), Time.valueOf("11:00:00"),
+                room, id);
+        String plan = explain(capturedQueries.stop());
+
+        // then - verify the output
+        Assert.isTrue(plan.contains("room_end_date_start_date_idx"), "%s", plan);
+        Assert.isTrue(!plan.contains("Seq Scan on bookings_y"), "%s", plan);
+        Assert.isTrue(!plan.contains("bookings_y2020"), "%s", plan);
+    }
+
+    private String explain(QueryInfo query) {
+        List<ParameterSetOperation> operations = new ArrayList<>(query.getParametersList().get(0));
+        operations.sort(Comparator.comparing(operation -> (Integer) operation.getArgs()[0]));
+        Object[] params = operations.stream().map(operation -> operation.getArgs()[1]).toArray();
+        List<String> lines = jdbcTemplate.queryForList("EXPLAIN " + query.getQuery(), String.class, params);
+        return String.join("\n", lines);
+    }
+
+    @TestConfiguration
+    static class CaptureQueries {
+
+        @Bean
+        public CapturedQueries capturedQueries() {
+            return new CapturedQueries();
+        }
+    }
+
+    /**
+     * Keeps the statements sent to the database between start and stop
+     */
+    static class CapturedQueries implements QueryExecutionListener {
+
+        private final List<QueryInfo> queries = new ArrayList<>();
+        private boolean capturing;
+
+        synchronized void start() {
+            queries.clear();
+            capturing = true;
+        }
+
+        /**
+         * @return returns the only statement sent since start
+         */
+        synchronized QueryInfo stop() {
+            capturing = false;
+            Assert.isTrue(queries.size() == 1, "expected one statement, got %s", queries.size());
+            return queries.get(0);
+        }
+
+        @Override
+        public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        }
+
+        @Override
+        public synchronized void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+            if (capturing) {
+                queries.addAll(queryInfoList);
+            }
+        }
+    }
+}
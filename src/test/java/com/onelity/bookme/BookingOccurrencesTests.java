@@ -0,0 +1,104 @@
+package com.onelity.bookme;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.sql.Date;
+import java.sql.Time;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.onelity.bookme.dto.OccurrenceDTO;
+import com.onelity.bookme.model.Booking;
+import com.onelity.bookme.service.BookingOccurrences;
+
+public class BookingOccurrencesTests {
+
+    private static final LocalDate MONDAY = LocalDate.of(2024, 1, 1);
+
+    @Test
+    public void givenDailySeriesOverTenYears_whenExpandOneWeek_thenReturnSevenDates() {
+        // given - precondition or setup
+        Booking booking = createBooking(1L, MONDAY, MONDAY.plusYears(10), "09:00:00", "every day");
+        // when - action or behaviour that we are going to test
+        LocalDate from = MONDAY.plusYears(5);
+        List<LocalDate> dates = toList(BookingOccurrences.dates(booking, from, from.plusDays(6)));
+        // then - verify the output
+        assertEquals(7, dates.size());
+        assertEquals(from, dates.get(0));
+        assertEquals(from.plusDays(6), dates.get(6));
+    }
+
+    @Test
+    public void givenWeeklySeries_whenExpand_thenReturnOnlyDatesOnWeekdayOfStartDate() {
+        // given - precondition or setup
+        Booking booking = createBooking(1L, MONDAY, MONDAY.plusWeeks(10), "09:00:00", "every same day of the week");
+        // when - action or behaviour that we are going to test
+        List<LocalDate> dates = toList(BookingOccurrences.dates(booking, MONDAY.plusDays(3), MONDAY.plusDays(24)));
+        // then - verify the output
+        assertEquals(List.of(MONDAY.plusDays(7), MONDAY.plusDays(14), MONDAY.plusDays(21)), dates);
+        for (LocalDate date : dates) {
+            assertEquals(DayOfWeek.MONDAY, date.getDayOfWeek());
+        }
+    }
+
+    @Test
+    public void givenWeeklySeries_whenExpandWindowWithoutItsWeekday_thenReturnNothing() {
+        // given - precondition or setup
+        Booking booking = createBooking(1L, MONDAY, MONDAY.plusWeeks(10), "09:00:00", "every same day of the week");
+        // when - action or behaviour that we are going to test
+        Iterator<LocalDate> dates = BookingOccurrences.dates(booking, MONDAY.plusDays(8), MONDAY.plusDays(12));
+        // then - verify the output
+        assertFalse(dates.hasNext());
+    }
+
+    @Test
+    public void givenSingleBookingOutsideWindow_whenExpand_thenReturnNothing() {
+        // given - precondition or setup
+        Booking booking = createBooking(1L, MONDAY, MONDAY, "09:00:00", null);
+        // when - action or behaviour that we are going to test
+        Iterator<LocalDate> before = BookingOccurrences.dates(booking, MONDAY.plusDays(1), MONDAY.plusDays(7));
+        Iterator<LocalDate> within = BookingOccurrences.dates(booking, MONDAY.minusDays(1), MONDAY.plusDays(1));
+        // then - verify the output
+        assertFalse(before.hasNext());
+        assertEquals(List.of(MONDAY), toList(within));
+    }
+
+    @Test
+    public void givenSeveralBookings_whenMerge_thenReturnOccurrencesOrderedByDateAndStartTime() {
+        // given - precondition or setup
+        Booking daily = createBooking(1L, MONDAY, MONDAY.plusYears(1), "11:00:00", "every day");
+        Booking weekly = createBooking(2L, MONDAY.plusDays(1), MONDAY.plusYears(1), "08:00:00",
+                "every same day of the week");
+        Booking single = createBooking(3L, MONDAY.plusDays(2), MONDAY.plusDays(2), "07:00:00", null);
+        // when - action or behaviour that we are going to test
+        List<OccurrenceDTO> occurrences = toList(
+                BookingOccurrences.merge(List.of(daily, weekly, single), MONDAY, MONDAY.plusDays(2)));
+        // then - verify the output
+        List<Long> order = new ArrayList<>();
+        for (OccurrenceDTO occurrence : occurrences) {
+            order.add(occurrence.getBookingId());
+        }
+        assertEquals(List.of(1L, 2L, 1L, 3L, 1L), order);
+        assertEquals(Date.valueOf(MONDAY.plusDays(2)), occurrences.get(3).getDate());
+    }
+
+    private Booking createBooking(Long id, LocalDate startDate, LocalDate endDate, String startTime,
+            String repeatPattern) {
+        Time start = Time.valueOf(startTime);
+        Time end = new Time(start.getTime() + 60 * 60 * 1000);
+        return new Booking(id, null, "Booking " + id, "Description", Date.valueOf(startDate), Date.valueOf(endDate),
+                start, end, 10, repeatPattern, null);
+    }
+
+    private <T> List<T> toList(Iterator<T> iterator) {
+        List<T> list = new ArrayList<>();
+        iterator.forEachRemaining(list::add);
+        return list;
+    }
+}
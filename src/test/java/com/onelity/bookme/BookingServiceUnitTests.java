@@ -6,6 +6,13 @@ import static org.junit.jupiter.api.Assertions.assertThrows;
 
 import java.sql.Date;
 import java.sql.Time;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingStream;
 
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
@@ -22,6 +29,8 @@ import com.onelity.bookme.dto.RoomDTO;
 import com.onelity.bookme.exception.ConflictingBookingsException;
 import com.onelity.bookme.exception.InvalidBookingException;
 import com.onelity.bookme.exception.InvalidRoomException;
+import com.onelity.bookme.jfr.BookingOperationEvent;
+import com.onelity.bookme.jfr.ConflictCheckEvent;
 import com.onelity.bookme.repository.BookingRepository;
 import com.onelity.bookme.repository.RoomRepository;
 import com.onelity.bookme.service.BookingService;
@@ -113,6 +122,47 @@ public class BookingServiceUnitTests {
                 thrown.getMessage());
     }
 
+    @Test
+    @WithMockUser(username = "admin", roles = { "ADMIN" })
+    public void givenWeeklyBookingRepeatedEveryDayInstead_whenUpdateBooking_thenThrowConflictingBookingsException()
+            throws Exception {
+        createRoomInDatabase();
+        BookingDTO weeklyBookingDTO = createBookingDTORepeatsSaturdaysMarch();
+        BookingDTO bookingDTO = createExampleBookingDTO();
+        bookingDTO.setStartDate(new Date(2003, 03, 02));
+        bookingDTO.setEndDate(new Date(2003, 03, 02));
+        Long id = bookingService.createBookingInDatabase(weeklyBookingDTO).getBody().getId();
+        bookingService.createBookingInDatabase(bookingDTO);
+        weeklyBookingDTO.setRepeat_pattern("every day");
+        ConflictingBookingsException thrown = assertThrows(ConflictingBookingsException.class,
+                () -> bookingService.updateBookingInDatabase(id, weeklyBookingDTO),
+                "Expected updateBookingInDatabase() to throw, but it didn't");
+        assertEquals("Meeting room with name " + bookingDTO.getRoom() + " is already booked for the same time",
+                thrown.getMessage());
+    }
+
+    @Test
+    @WithMockUser(username = "admin", roles = { "ADMIN" })
+    public void givenBookingMovedToBookedRoom_whenUpdateBooking_thenThrowConflictingBookingsException()
+            throws Exception {
+        createRoomInDatabase();
+        RoomDTO roomDTO = new RoomDTO();
+        roomDTO.setName("Room 2");
+        roomDTO.setLocation("Thessaloniki");
+        roomDTO.setCapacity(100);
+        roomService.createRoomInDatabase(roomDTO);
+        BookingDTO bookingDTO = createExampleBookingDTO();
+        BookingDTO otherRoomBookingDTO = createExampleBookingDTO();
+        otherRoomBookingDTO.setRoom("Room 2");
+        Long id = bookingService.createBookingInDatabase(bookingDTO).getBody().getId();
+        bookingService.createBookingInDatabase(otherRoomBookingDTO);
+        bookingDTO.setRoom("Room 2");
+        ConflictingBookingsException thrown = assertThrows(ConflictingBookingsException.class,
+                () -> bookingService.updateBookingInDatabase(id, bookingDTO),
+                "Expected updateBookingInDatabase() to throw, but it didn't");
+        assertEquals("Meeting room with name Room 2 is already booked for the same time", thrown.getMessage());
+    }
+
     @Test
     @WithMockUser(username = "admin", roles = { "ADMIN" })
     public void givenNewBookingWithNonexistentRoom_whenUpdateBooking_thenThrowInvalidBookingException()
@@ -254,6 +304,54 @@ public class BookingServiceUnitTests {
                 thrown.getMessage());
     }
 
+    @Test
+    @WithMockUser(username = "admin", roles = { "ADMIN" })
+    public void givenBookedRoom_whenCreateConflictingBooking_thenRecordOperationAndConflictCheckEvents()
+            throws Exception {
+        // given - precondition or setup
+        createRoomInDatabase();
+        long roomId = roomRepository.findByNameAndAvailableTrue("Room 1").getId();
+        List<RecordedEvent> events = new CopyOnWriteArrayList<>();
+        // Two events for the booking and two for the conflicting one
+        CountDownLatch recorded = new CountDownLatch(4);
+        try (RecordingStream stream = new RecordingStream()) {
+            stream.enable(BookingOperationEvent.class);
+            stream.enable(ConflictCheckEvent.class);
+            stream.onEvent(event -> {
+                events.add(event);
+                recorded.countDown();
+            });
+            stream.startAsync();
+
+            // when - action or behaviour that we are going to test
+            Long bookingId = bookingService.createBookingInDatabase(createExampleBookingDTO()).getBody().getId();
+            assertThrows(ConflictingBookingsException.class,
+                    () -> bookingService.createBookingInDatabase(createBookingDTORepeatsDailyInMarch()));
+
+            // then - verify the output
+            Assert.isTrue(recorded.await(10, TimeUnit.SECONDS), "recorded only %s", events);
+            List<RecordedEvent> checks = ofType(events, "com.onelity.bookme.ConflictCheck");
+            List<RecordedEvent> operations = ofType(events, "com.onelity.bookme.BookingOperation");
+            assertEquals(2, checks.size());
+            assertEquals(2, operations.size());
+            assertEquals(roomId, checks.get(0).getLong("roomId"));
+            assertEquals(0, checks.get(0).getInt("candidates"));
+            Assert.isTrue(!checks.get(0).getBoolean("conflict"));
+            assertEquals(roomId, checks.get(1).getLong("roomId"));
+            assertEquals(1, checks.get(1).getInt("candidates"));
+            Assert.isTrue(checks.get(1).getBoolean("conflict"));
+            assertEquals("create", operations.get(0).getString("operation"));
+            assertEquals("success", operations.get(0).getString("outcome"));
+            assertEquals(roomId, operations.get(0).getLong("roomId"));
+            assertEquals(bookingId.longValue(), operations.get(0).getLong("bookingId"));
+            assertEquals("conflict", operations.get(1).getString("outcome"));
+            for (RecordedEvent event : events) {
+                Assert.isTrue(!event.getDuration().isNegative() && !event.getDuration().isZero(),
+                        "%s has no duration", event);
+            }
+        }
+    }
+
     @Test
     @WithMockUser(username = "admin", roles = { "ADMIN" })
     public void givenBookingWithOverlappingTimesRepeatsWeeklyConflictingDays_whenCreateBooking_thenThrowConflictingBookingsException()
@@ -375,6 +473,14 @@ public class BookingServiceUnitTests {
         return bookingDTO;
     }
 
+    /**
+     * Gets the events of one type in the order they started
+     */
+    private static List<RecordedEvent> ofType(List<RecordedEvent> events, String name) {
+        return events.stream().filter(event -> event.getEventType().getName().equals(name))
+                .sorted((a, b) -> a.getStartTime().compareTo(b.getStartTime())).toList();
+    }
+
     private void createRoomInDatabase() throws Exception {
         RoomDTO roomDTO = new RoomDTO();
         roomDTO.setName("Room 1");
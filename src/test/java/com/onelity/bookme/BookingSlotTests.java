@@ -0,0 +1,106 @@
+package com.onelity.bookme;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.sql.Date;
+import java.sql.Time;
+import java.time.LocalDate;
+
+import org.junit.jupiter.api.Test;
+
+import com.onelity.bookme.model.BookingSlot;
+import com.onelity.bookme.model.RepeatPattern;
+
+public class BookingSlotTests {
+
+    private static final LocalDate MONDAY = LocalDate.of(2024, 1, 1);
+
+    @Test
+    public void givenDatesAndTimes_whenCreateSlot_thenStoreEpochDaysAndSecondsOfDay() {
+        // when - action or behaviour that we are going to test
+        BookingSlot slot = createSlot(MONDAY, MONDAY.plusDays(2), "09:30:00", "10:00:00", RepeatPattern.EVERY_DAY);
+        // then - verify the output
+        assertEquals(MONDAY.toEpochDay(), slot.startDay());
+        assertEquals(MONDAY.plusDays(2).toEpochDay(), slot.endDay());
+        assertEquals(9 * 3600 + 30 * 60, slot.startSecond());
+        assertEquals(10 * 3600, slot.endSecond());
+        assertEquals(0, slot.startDayOfWeek());
+    }
+
+    @Test
+    public void givenLabels_whenFromLabel_thenReturnRepeatPatternOrNullIfUnknown() {
+        assertEquals(RepeatPattern.NONE, RepeatPattern.fromLabel(null));
+        assertEquals(RepeatPattern.EVERY_DAY, RepeatPattern.fromLabel("every day"));
+        assertEquals(RepeatPattern.EVERY_SAME_DAY_OF_WEEK, RepeatPattern.fromLabel("every same day of the week"));
+        assertNull(RepeatPattern.fromLabel("Twice a week"));
+    }
+
+    @Test
+    public void givenWeeklySeriesAndBookingOnOtherWeekday_whenConflictsWith_thenReturnFalse() {
+        // given - precondition or setup
+        BookingSlot weekly = createSlot(MONDAY, MONDAY.plusWeeks(4), "09:00:00", "10:00:00",
+                RepeatPattern.EVERY_SAME_DAY_OF_WEEK);
+        BookingSlot tuesday = createSlot(MONDAY.plusDays(8), MONDAY.plusDays(8), "09:30:00", "10:30:00",
+                RepeatPattern.NONE);
+        BookingSlot monday = createSlot(MONDAY.plusDays(7), MONDAY.plusDays(7), "09:30:00", "10:30:00",
+                RepeatPattern.NONE);
+        // then - verify the output
+        assertFalse(weekly.conflictsWith(tuesday));
+        assertTrue(weekly.conflictsWith(monday));
+        assertTrue(monday.conflictsWith(weekly));
+    }
+
+    @Test
+    public void givenAdjacentTimesOrDisjointDates_whenConflictsWith_thenReturnFalse() {
+        // given - precondition or setup
+        BookingSlot daily = createSlot(MONDAY, MONDAY.plusWeeks(1), "09:00:00", "10:00:00", RepeatPattern.EVERY_DAY);
+        BookingSlot after = createSlot(MONDAY.plusDays(2), MONDAY.plusDays(2), "10:00:00", "11:00:00",
+                RepeatPattern.NONE);
+        BookingSlot later = createSlot(MONDAY.plusWeeks(2), MONDAY.plusWeeks(2), "09:00:00", "10:00:00",
+                RepeatPattern.NONE);
+        BookingSlot overlapping = createSlot(MONDAY.plusDays(3), MONDAY.plusDays(3), "09:59:00", "11:00:00",
+                RepeatPattern.NONE);
+        // then - verify the output
+        assertFalse(daily.conflictsWith(after));
+        assertFalse(daily.conflictsWith(later));
+        assertTrue(daily.conflictsWith(overlapping));
+    }
+
+    @Test
+    public void givenSlots_whenConflictsWithRepeatedly_thenAllocateNothing() {
+        // given - precondition or setup
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory
+                .getThreadMXBean();
+        BookingSlot slot = createSlot(MONDAY, MONDAY.plusWeeks(4), "09:00:00", "10:00:00",
+                RepeatPattern.EVERY_SAME_DAY_OF_WEEK);
+        BookingSlot[] others = new BookingSlot[64];
+        for (int i = 0; i < others.length; i++) {
+            others[i] = createSlot(MONDAY.plusDays(i), MONDAY.plusDays(i), "09:30:00", "10:30:00",
+                    RepeatPattern.NONE);
+        }
+        int conflicts = 0;
+        // when - action or behaviour that we are going to test
+        long before = threads.getCurrentThreadAllocatedBytes();
+        for (int round = 0; round < 1000; round++) {
+            for (BookingSlot other : others) {
+                if (slot.conflictsWith(other)) {
+                    conflicts++;
+                }
+            }
+        }
+        long allocated = threads.getCurrentThreadAllocatedBytes() - before;
+        // then - verify the output
+        assertEquals(5 * 1000, conflicts);
+        assertTrue(allocated < 1024, "allocated " + allocated + " bytes");
+    }
+
+    private BookingSlot createSlot(LocalDate startDate, LocalDate endDate, String startTime, String endTime,
+            RepeatPattern repeatPattern) {
+        return new BookingSlot(Date.valueOf(startDate), Date.valueOf(endDate), Time.valueOf(startTime),
+                Time.valueOf(endTime), repeatPattern);
+    }
+}
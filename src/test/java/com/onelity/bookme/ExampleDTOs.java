@@ -0,0 +1,38 @@
+package com.onelity.bookme;
+
+import java.sql.Date;
+import java.sql.Time;
+
+import com.onelity.bookme.dto.BookingDTO;
+import com.onelity.bookme.dto.RoomDTO;
+
+/**
+ * Example rooms and bookings for tests which only need something valid to create, e.g. to look at the changes it
+ * causes. The booking fits into the room.
+ */
+final class ExampleDTOs {
+
+    private ExampleDTOs() {
+    }
+
+    static RoomDTO exampleRoomDTO() {
+        RoomDTO roomDTO = new RoomDTO();
+        roomDTO.setName("Room 1");
+        roomDTO.setLocation("Thessaloniki");
+        roomDTO.setCapacity(100);
+        return roomDTO;
+    }
+
+    static BookingDTO exampleBookingDTO() {
+        BookingDTO bookingDTO = new BookingDTO();
+        bookingDTO.setTitle("Booking 1");
+        bookingDTO.setRoom("Room 1");
+        bookingDTO.setDescription("Description");
+        bookingDTO.setStartDate(Date.valueOf("2003-03-01"));
+        bookingDTO.setEndDate(Date.valueOf("2003-03-01"));
+        bookingDTO.setStartTime(Time.valueOf("07:00:00"));
+        bookingDTO.setEndTime(Time.valueOf("10:00:00"));
+        bookingDTO.setParticipants(50);
+        return bookingDTO;
+    }
+}
@@ -0,0 +1,130 @@
+package com.onelity.bookme;
+
+import static com.onelity.bookme.ExampleDTOs.exampleBookingDTO;
+import static com.onelity.bookme.ExampleDTOs.exampleRoomDTO;
+
+import java.sql.Connection;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.modelmapper.internal.util.Assert;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.security.test.context.support.WithMockUser;
+
+import com.onelity.bookme.dto.BookingDTO;
+import com.onelity.bookme.dto.RoomDTO;
+import com.onelity.bookme.model.OutboxEvent;
+import com.onelity.bookme.outbox.InMemoryOutboxSink;
+import com.onelity.bookme.outbox.OutboxRelay;
+import com.onelity.bookme.repository.BookingRepository;
+import com.onelity.bookme.repository.OutboxEventRepository;
+import com.onelity.bookme.repository.RoomRepository;
+import com.onelity.bookme.service.BookingService;
+import com.onelity.bookme.service.RoomService;
+
+@SpringBootTest(properties = { "bookme.outbox.sink=memory", "bookme.outbox.interval=PT1H" })
+public class OutboxRelayTests {
+
+    @Autowired
+    private RoomService roomService;
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private RoomRepository roomRepository;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private OutboxRelay relay;
+
+    @Autowired
+    private InMemoryOutboxSink sink;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @BeforeEach
+    public void setup() {
+        bookingRepository.deleteAll();
+        roomRepository.deleteAll();
+        outboxEventRepository.deleteAll();
+        sink.drain();
+    }
+
+    @AfterEach
+    public void teardown() {
+        bookingRepository.deleteAll();
+        roomRepository.deleteAll();
+        outboxEventRepository.deleteAll();
+    }
+
+    @Test
+    @WithMockUser(username = "admin", roles = { "ADMIN" })
+    public void givenRoomAndBookingChanges_whenRelay_thenSinkReceivesEventsInCommitOrder() throws Exception {
+        // given - precondition or setup
+        RoomDTO roomDTO = roomService.createRoomInDatabase(exampleRoomDTO()).getBody();
+        BookingDTO bookingDTO = bookingService.createBookingInDatabase(exampleBookingDTO()).getBody();
+        bookingService.deleteBookingInDatabase(bookingDTO.getId());
+        // when - action or behaviour that we are going to test
+        int relayed = relay.relay();
+        // then - verify the output
+        List<OutboxEvent> events = sink.drain();
+        Assert.isTrue(relayed == 3);
+        Assert.isTrue(events.size() == 3);
+        Assert.isTrue(events.get(0).getResource().equals("room") && events.get(0).getAction().equals("created"));
+        Assert.isTrue(events.get(1).getResource().equals("booking") && events.get(1).getAction().equals("created"));
+        Assert.isTrue(events.get(2).getResource().equals("booking") && events.get(2).getAction().equals("deleted"));
+        for (OutboxEvent event : events) {
+            Assert.isTrue(event.getRoomId().equals(roomDTO.getId()));
+        }
+        Assert.isTrue(events.get(1).getPayload().contains(bookingDTO.getTitle()));
+    }
+
+    @Test
+    @WithMockUser(username = "admin", roles = { "ADMIN" })
+    public void givenLockHeldByOtherRelay_whenRelay_thenEventsStayInOutbox() throws Exception {
+        // given - precondition or setup
+        roomService.createRoomInDatabase(exampleRoomDTO());
+        int relayed;
+        try (Connection otherRelay = dataSource.getConnection()) {
+            JdbcTemplate lock = new JdbcTemplate(new SingleConnectionDataSource(otherRelay, true));
+            Assert.isTrue(lock.queryForObject("SELECT pg_try_advisory_lock(?)", Boolean.class, OutboxRelay.LOCK_KEY));
+            // when - action or behaviour that we are going to test
+            relayed = relay.relay();
+            lock.queryForObject("SELECT pg_advisory_unlock(?)", Boolean.class, OutboxRelay.LOCK_KEY);
+        }
+        // then - verify the output
+        Assert.isTrue(relayed == 0);
+        Assert.isTrue(outboxEventRepository.count() == 1);
+        Assert.isTrue(sink.drain().isEmpty());
+        Assert.isTrue(relay.relay() == 1);
+    }
+
+    @Test
+    @WithMockUser(username = "admin", roles = { "ADMIN" })
+    public void givenRelayedEvents_whenRelayAgain_thenOutboxIsEmpty() throws Exception {
+        // given - precondition or setup
+        roomService.createRoomInDatabase(exampleRoomDTO());
+        relay.relay();
+        sink.drain();
+        // when - action or behaviour that we are going to test
+        int relayed = relay.relay();
+        // then - verify the output
+        Assert.isTrue(relayed == 0);
+        Assert.isTrue(outboxEventRepository.count() == 0);
+        Assert.isTrue(sink.drain().isEmpty());
+    }
+}
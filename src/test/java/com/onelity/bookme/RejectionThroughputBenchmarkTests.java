@@ -0,0 +1,116 @@
+package com.onelity.bookme;
+
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+import java.sql.Date;
+import java.sql.Time;
+import java.time.Duration;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.modelmapper.internal.util.Assert;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.MockMvcPrint;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.onelity.bookme.dto.BookingDTO;
+import com.onelity.bookme.exception.InvalidBookingException;
+
+/**
+ * Measures how many invalid bookings POST /bookings rejects per second, through Spring MVC, the service and the
+ * exception handler of BookingController, and what the rejection would cost if the exception filled in its stack
+ * trace at the depth of a request thread, which stackless rejections must beat. Invalid payloads are rejected before
+ * any query, so no database is needed.
+ * Excluded from the default build; run with mvn test -Pbenchmark -Dtest=RejectionThroughputBenchmarkTests
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = { "spring.flyway.enabled=false", "management.tracing.sampling.probability=0" })
+@AutoConfigureMockMvc(print = MockMvcPrint.NONE)
+public class RejectionThroughputBenchmarkTests {
+
+    private static final Logger log = LoggerFactory.getLogger(RejectionThroughputBenchmarkTests.class);
+
+    private static final Duration WARMUP = Duration.ofSeconds(Long.getLong("bookme.benchmark.warmup-seconds", 10));
+    private static final Duration MEASUREMENT = Duration
+            .ofSeconds(Long.getLong("bookme.benchmark.measurement-seconds", 30));
+
+    /** Roughly the number of frames between a Tomcat thread and BookingService */
+    private static final int REQUEST_DEPTH = 150;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    public void givenInvalidBookings_whenCreateBookings_thenReportRejectionThroughput() throws Exception {
+        // given - precondition or setup
+        BookingDTO bookingDTO = new BookingDTO(null, "Room 1", "x".repeat(101), "Description",
+                Date.valueOf("2024-01-01"), Date.valueOf("2024-01-01"), Time.valueOf("09:00:00"),
+                Time.valueOf("10:00:00"), 2, null);
+        RequestBuilder request = post("/bookings").with(user("admin").roles("ADMIN"))
+                .contentType(MediaType.APPLICATION_JSON).content(objectMapper.writeValueAsString(bookingDTO));
+
+        // when - action or behaviour that we are going to test
+        measure(WARMUP, () -> reject(request));
+        double rejections = measure(MEASUREMENT, () -> reject(request));
+        measure(WARMUP, () -> throwAtDepth(REQUEST_DEPTH, false));
+        double stackless = measure(MEASUREMENT, () -> throwAtDepth(REQUEST_DEPTH, false));
+        measure(WARMUP, () -> throwAtDepth(REQUEST_DEPTH, true));
+        double withStackTrace = measure(MEASUREMENT, () -> throwAtDepth(REQUEST_DEPTH, true));
+
+        // then - verify the output
+        log.info("rejected POST /bookings: {} req/s", String.format("%.1f", rejections));
+        log.info("throw and catch at depth {}: {}/s stackless, {}/s with stack trace", REQUEST_DEPTH,
+                String.format("%.1f", stackless), String.format("%.1f", withStackTrace));
+        Assert.isTrue(rejections > 0);
+        Assert.isTrue(stackless > withStackTrace, "stackless rejections are not faster than ones with a stack trace");
+    }
+
+    private boolean reject(RequestBuilder request) {
+        try {
+            return mockMvc.perform(request).andReturn().getResponse().getStatus() == 400;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    private static boolean throwAtDepth(int depth, boolean withStackTrace) {
+        if (depth > 0) {
+            return throwAtDepth(depth - 1, withStackTrace);
+        }
+        try {
+            throw withStackTrace ? new Exception("Booking title cannot be more than 100 characters")
+                    : new InvalidBookingException("title_too_long", "Booking title cannot be more than 100 characters");
+        } catch (Exception e) {
+            return e.getMessage() != null;
+        }
+    }
+
+    /**
+     * Runs an operation back to back until the duration has passed
+     *
+     * @return returns the successful operations per second
+     */
+    private static double measure(Duration duration, Supplier<Boolean> operation) {
+        long start = System.nanoTime();
+        long deadline = start + duration.toNanos();
+        long completed = 0;
+        while (System.nanoTime() < deadline) {
+            if (operation.get()) {
+                completed++;
+            }
+        }
+        return completed / ((System.nanoTime() - start) / 1e9);
+    }
+}
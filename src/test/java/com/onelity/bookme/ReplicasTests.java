@@ -0,0 +1,180 @@
+package com.onelity.bookme;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.onelity.bookme.replica.ReplicaReadFilter;
+import com.onelity.bookme.replica.ReplicaRoutingDataSource;
+import com.onelity.bookme.replica.Replicas;
+
+public class ReplicasTests {
+
+    private final Database primary = new Database("primary");
+
+    @AfterEach
+    public void teardown() {
+        Replicas.release();
+        TransactionSynchronizationManager.setActualTransactionActive(false);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+    }
+
+    @Test
+    public void givenReplicaPickedPerRequest_whenReading_thenUseReplicasInTurnAndPrimaryForReadWriteTransactions()
+            throws SQLException {
+        // given - precondition or setup
+        Replicas replicas = replicas(new Database("replica1"), new Database("replica2"));
+        ReplicaRoutingDataSource dataSource = new ReplicaRoutingDataSource(primary, replicas);
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        List<List<String>> reads = new ArrayList<>();
+        List<String> writes = new ArrayList<>();
+
+        // when - action or behaviour that we are going to test
+        for (int request = 0; request < 3; request++) {
+            replicas.pick();
+            TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+            reads.add(List.of(name(dataSource.getConnection()), name(dataSource.getConnection())));
+            TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+            writes.add(name(dataSource.getConnection()));
+            Replicas.release();
+        }
+
+        // then - verify the output
+        assertEquals(List.of(List.of("replica1", "replica1"), List.of("replica2", "replica2"),
+                List.of("replica1", "replica1")), reads);
+        assertEquals(List.of("primary", "primary", "primary"), writes);
+    }
+
+    @Test
+    public void givenReplicaReadsNotAllowed_whenReadingInReadOnlyTransaction_thenUsePrimary() throws SQLException {
+        // given - precondition or setup
+        ReplicaRoutingDataSource dataSource = new ReplicaRoutingDataSource(primary, replicas(new Database("replica")));
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        // when - action or behaviour that we are going to test
+        String read = name(dataSource.getConnection());
+
+        // then - verify the output
+        assertEquals("primary", read);
+    }
+
+    @Test
+    public void givenUnreachableReplica_whenReading_thenFallBackToPrimaryAndSkipReplicaUntilHealthCheck()
+            throws SQLException {
+        // given - precondition or setup
+        Database down = new Database("down");
+        down.reachable = false;
+        Replicas replicas = replicas(down);
+        ReplicaRoutingDataSource dataSource = new ReplicaRoutingDataSource(primary, replicas);
+        replicas.pick();
+
+        // when - action or behaviour that we are going to test
+        String first = name(dataSource.getConnection());
+        String second = name(dataSource.getConnection());
+        int attempts = down.attempts;
+        replicas.checkHealth();
+
+        // then - verify the output
+        assertEquals("primary", first);
+        assertEquals("primary", second);
+        assertEquals(1, attempts);
+        assertNull(replicas.next());
+    }
+
+    @Test
+    public void givenClientWhoJustChangedSomething_whenGetRequestToAnyInstance_thenReadFromPrimaryUntilExpired()
+            throws Exception {
+        // given - precondition or setup
+        Replicas replicas = replicas(new Database("replica"));
+        ReplicaReadFilter instance1 = new ReplicaReadFilter(replicas, Duration.ofHours(1));
+        ReplicaReadFilter instance2 = new ReplicaReadFilter(replicas, Duration.ofHours(1));
+        ReplicaReadFilter expired = new ReplicaReadFilter(replicas, Duration.ZERO);
+        MockHttpServletResponse written = new MockHttpServletResponse();
+        MockHttpServletResponse writtenExpired = new MockHttpServletResponse();
+        List<Boolean> replicaReads = new ArrayList<>();
+        List<Boolean> markedBeforeWrite = new ArrayList<>();
+
+        // when - action or behaviour that we are going to test
+        instance1.doFilter(new MockHttpServletRequest("GET", "/bookings"), new MockHttpServletResponse(),
+                (request, response) -> replicaReads.add(Replicas.current() != null));
+        instance1.doFilter(new MockHttpServletRequest("POST", "/bookings"), written, (request, response) -> {
+            replicaReads.add(Replicas.current() != null);
+            markedBeforeWrite.add(written.getCookie(ReplicaReadFilter.READ_PRIMARY_COOKIE) != null);
+        });
+        instance2.doFilter(withCookies(new MockHttpServletRequest("GET", "/bookings"), written),
+                new MockHttpServletResponse(), (request, response) -> replicaReads.add(Replicas.current() != null));
+        expired.doFilter(new MockHttpServletRequest("POST", "/bookings"), writtenExpired,
+                (request, response) -> replicaReads.add(Replicas.current() != null));
+        expired.doFilter(withCookies(new MockHttpServletRequest("GET", "/bookings"), writtenExpired),
+                new MockHttpServletResponse(), (request, response) -> replicaReads.add(Replicas.current() != null));
+
+        // then - verify the output
+        assertEquals(List.of(true, false, false, false, true), replicaReads);
+        assertEquals(List.of(true), markedBeforeWrite);
+        assertNull(Replicas.current());
+    }
+
+    private static MockHttpServletRequest withCookies(MockHttpServletRequest request, MockHttpServletResponse from) {
+        if (from.getCookies().length > 0) {
+            request.setCookies(from.getCookies());
+        }
+        return request;
+    }
+
+    private static Replicas replicas(Database... databases) {
+        Map<String, Database> byName = new LinkedHashMap<>();
+        for (Database database : databases) {
+            byName.put(database.name, database);
+        }
+        return new Replicas(byName, Duration.ofSeconds(10));
+    }
+
+    private static String name(Connection connection) {
+        return connection.toString();
+    }
+
+    /**
+     * Hands out connections which only know the name of their database
+     */
+    private static class Database extends AbstractDataSource {
+
+        private final String name;
+        private boolean reachable = true;
+        private int attempts;
+
+        private Database(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            attempts++;
+            if (!reachable) {
+                throw new SQLException(name + " is down");
+            }
+            return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { Connection.class },
+                    (proxy, method, args) -> "toString".equals(method.getName()) ? name : null);
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            return getConnection();
+        }
+    }
+}
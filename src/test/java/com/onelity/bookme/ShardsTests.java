@@ -0,0 +1,112 @@
+package com.onelity.bookme;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import com.onelity.bookme.sharding.Shards;
+
+public class ShardsTests {
+
+    private final Shards shards = new Shards(List.of("Thessaloniki", "Cologne"));
+
+    @AfterEach
+    public void teardown() {
+        shards.close();
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    public void givenIdRangesOfLocations_whenLocationOfId_thenReturnLocationTheIdWasCreatedIn() {
+        // given - precondition or setup
+        long firstCologneId = shards.firstId("Cologne");
+
+        // when - action or behaviour that we are going to test
+        String location = shards.locationOfId(firstCologneId);
+
+        // then - verify the output
+        assertEquals(1, shards.firstId("Thessaloniki"));
+        assertEquals(firstCologneId - 1, shards.lastId("Thessaloniki"));
+        assertEquals("Thessaloniki", shards.locationOfId(42L));
+        assertEquals("Cologne", location);
+        assertEquals("Cologne", shards.locationOfId(shards.lastId("Cologne")));
+        assertNull(shards.locationOfId(shards.lastId("Cologne") + 1));
+        assertNull(shards.locationOfId(null));
+    }
+
+    @Test
+    public void givenNestedLocations_whenOn_thenRestorePreviousLocation() {
+        // when - action or behaviour that we are going to test
+        String inner = shards.on("Thessaloniki", () -> shards.on("Cologne", Shards::currentLocation));
+        String outer = shards.on("Thessaloniki", () -> {
+            shards.on("Cologne", Shards::currentLocation);
+            return Shards.currentLocation();
+        });
+
+        // then - verify the output
+        assertEquals("Cologne", inner);
+        assertEquals("Thessaloniki", outer);
+        assertNull(Shards.currentLocation());
+    }
+
+    @Test
+    public void givenAuthenticatedUser_whenFanOut_thenReadEachLocationAsUserAndMergeInLocationOrder() {
+        // given - precondition or setup
+        SecurityContextHolder.getContext()
+                .setAuthentication(new UsernamePasswordAuthenticationToken("admin", null, List.of()));
+
+        // when - action or behaviour that we are going to test
+        List<String> reads = shards.fanOut(() -> List.of(
+                Shards.currentLocation() + ":" + SecurityContextHolder.getContext().getAuthentication().getName()));
+
+        // then - verify the output
+        assertEquals(List.of("Thessaloniki:admin", "Cologne:admin"), reads);
+        assertNull(Shards.currentLocation());
+    }
+
+    @Test
+    public void givenFailingLocation_whenFanOut_thenThrowItsException() {
+        // given - precondition or setup
+        IOException failure = new IOException("Cologne is down");
+
+        // when - action or behaviour that we are going to test
+        IOException thrown = assertThrows(IOException.class, () -> shards.fanOut(() -> {
+            if ("Cologne".equals(Shards.currentLocation())) {
+                throw failure;
+            }
+            return List.of(1);
+        }));
+
+        // then - verify the output
+        assertSame(failure, thrown);
+    }
+
+    @Test
+    public void givenShardingDisabled_whenUsingShards_thenWorkOnDefaultDatabaseOnCallingThread() {
+        // given - precondition or setup
+        Shards disabled = new Shards(List.of());
+        Thread caller = Thread.currentThread();
+
+        // when - action or behaviour that we are going to test
+        List<Thread> threads = disabled.fanOut(() -> List.of(Thread.currentThread()));
+        String location = disabled.on("Cologne", Shards::currentLocation);
+
+        // then - verify the output
+        assertFalse(disabled.isEnabled());
+        assertEquals(List.of(caller), threads);
+        assertNull(location);
+        assertNull(disabled.locationOfId(shards.firstId("Cologne")));
+        assertNull(disabled.locate(() -> true));
+        disabled.close();
+    }
+}
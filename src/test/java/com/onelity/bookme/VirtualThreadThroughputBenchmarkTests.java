@@ -0,0 +1,128 @@
+package com.onelity.bookme;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.modelmapper.internal.util.Assert;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Compares the throughput of the platform thread pool and of virtual threads at high concurrency. The application is
+ * started twice against the database configured through DB_HOST etc., and each time GET /meeting-rooms, which goes
+ * through Spring Security, BCrypt, JPA and Postgres, is requested by bookme.benchmark.concurrency clients at once.
+ * Virtual threads must complete at least bookme.benchmark.min-speedup times as many requests per second, without
+ * failing more requests. Excluded from the default build; run with
+ * mvn test -Pbenchmark -Dbookme.benchmark.username=... -Dbookme.benchmark.password=...
+ */
+@Tag("benchmark")
+public class VirtualThreadThroughputBenchmarkTests {
+
+    private static final Logger log = LoggerFactory.getLogger(VirtualThreadThroughputBenchmarkTests.class);
+
+    private static final int CONCURRENCY = Integer.getInteger("bookme.benchmark.concurrency", 1000);
+    private static final Duration WARMUP = Duration.ofSeconds(Long.getLong("bookme.benchmark.warmup-seconds", 10));
+    private static final Duration MEASUREMENT = Duration
+            .ofSeconds(Long.getLong("bookme.benchmark.measurement-seconds", 30));
+    private static final double MIN_SPEEDUP = Double
+            .parseDouble(System.getProperty("bookme.benchmark.min-speedup", "1.0"));
+
+    @Test
+    public void givenHighConcurrency_whenRequestsRunOnVirtualThreads_thenCompareThroughputWithThreadPool()
+            throws Exception {
+
+        // given - precondition or setup
+        String username = System.getProperty("bookme.benchmark.username");
+        String password = System.getProperty("bookme.benchmark.password");
+        Assumptions.assumeTrue(username != null && password != null, "benchmark credentials are not set");
+        String authorization = "Basic "
+                + Base64.getEncoder().encodeToString((username + ":" + password).getBytes(StandardCharsets.UTF_8));
+
+        // when - action or behavior we are going to test
+        Result platform = run(false, authorization);
+        Result virtual = run(true, authorization);
+
+        // then - verify the result or output using assert statements
+        log.info("platform threads: {}", platform);
+        log.info("virtual threads:  {}", virtual);
+        Assert.isTrue(platform.completed() > 0 && virtual.completed() > 0);
+        Assert.isTrue(virtual.failed() <= platform.failed(), "virtual threads failed more requests");
+        Assert.isTrue(virtual.requestsPerSecond() >= MIN_SPEEDUP * platform.requestsPerSecond(),
+                "virtual threads did not reach %s times the throughput of the thread pool", MIN_SPEEDUP);
+    }
+
+    private static Result run(boolean virtualThreads, String authorization) throws Exception {
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(BookmeApplication.class)
+                .properties("server.port=0", "bookme.threads.virtual.enabled=" + virtualThreads,
+                        "management.tracing.sampling.probability=0")
+                .run()) {
+            int port = Integer.parseInt(context.getEnvironment().getProperty("local.server.port"));
+            HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/meeting-rooms"))
+                    .header("Authorization", authorization).GET().build();
+            load(request, WARMUP, new AtomicLong(), new AtomicLong(), Collections.synchronizedList(new ArrayList<>()));
+
+            AtomicLong completed = new AtomicLong();
+            AtomicLong failed = new AtomicLong();
+            List<Long> latencies = Collections.synchronizedList(new ArrayList<>());
+            load(request, MEASUREMENT, completed, failed, latencies);
+            List<Long> sorted = new ArrayList<>(latencies);
+            Collections.sort(sorted);
+            long p99 = sorted.isEmpty() ? 0 : sorted.get((int) (sorted.size() * 0.99));
+            return new Result(completed.get(), failed.get(), completed.get() / (double) MEASUREMENT.toSeconds(),
+                    Duration.ofNanos(p99).toMillis());
+        }
+    }
+
+    /**
+     * Keeps CONCURRENCY clients sending the request back to back until the duration has passed
+     */
+    private static void load(HttpRequest request, Duration duration, AtomicLong completed, AtomicLong failed,
+            List<Long> latencies) throws InterruptedException {
+        long deadline = System.nanoTime() + duration.toNanos();
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor();
+                HttpClient client = HttpClient.newBuilder().executor(clients).build()) {
+            for (int i = 0; i < CONCURRENCY; i++) {
+                clients.submit(() -> {
+                    while (System.nanoTime() < deadline) {
+                        long start = System.nanoTime();
+                        try {
+                            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                            if (response.statusCode() == 200) {
+                                completed.incrementAndGet();
+                                latencies.add(System.nanoTime() - start);
+                            } else {
+                                failed.incrementAndGet();
+                            }
+                        } catch (Exception e) {
+                            failed.incrementAndGet();
+                        }
+                    }
+                    return null;
+                });
+            }
+        }
+    }
+
+    private record Result(long completed, long failed, double requestsPerSecond, long p99Millis) {
+        @Override
+        public String toString() {
+            return String.format("%.1f req/s, p99 %d ms, %d completed, %d failed", requestsPerSecond, p99Millis,
+                    completed, failed);
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package com.onelity.bookme.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.onelity.bookme.sharding.LocationRoutingDataSource;
+import com.onelity.bookme.sharding.Shards;
+import com.zaxxer.hikari.HikariDataSource;
+
+public class ShardingConfigurationTests {
+
+    private final Shards shards = new Shards(List.of("Thessaloniki", "Cologne"));
+
+    @AfterEach
+    public void teardown() {
+        shards.close();
+    }
+
+    @Test
+    public void givenFreshDatabaseOfSecondLocation_whenReserveIds_thenRestartSequencesAtFirstIdOfLocation() {
+        // given - precondition or setup
+        Database cologne = new Database("cologne", 1);
+        long first = shards.firstId("Cologne");
+        long last = shards.lastId("Cologne");
+
+        // when - action or behaviour that we are going to test
+        ShardingConfiguration.reserveIds(cologne, first, last);
+
+        // then - verify the output
+        assertEquals(List.of(
+                "ALTER SEQUENCE public.meeting_rooms_id_seq MINVALUE " + first + " MAXVALUE " + last + " START WITH "
+                        + first + " RESTART WITH " + first,
+                "ALTER SEQUENCE public.bookings_id_seq MINVALUE " + first + " MAXVALUE " + last + " START WITH "
+                        + first + " RESTART WITH " + first,
+                "ALTER SEQUENCE public.room_deletion_jobs_id_seq MINVALUE " + first + " MAXVALUE " + last
+                        + " START WITH " + first + " RESTART WITH " + first),
+                cologne.executed);
+    }
+
+    @Test
+    public void givenSequencesWithinRangeOfLocation_whenReserveIds_thenKeepTheirValues() {
+        // given - precondition or setup
+        long first = shards.firstId("Cologne");
+        long last = shards.lastId("Cologne");
+        Database cologne = new Database("cologne", first + 41);
+
+        // when - action or behaviour that we are going to test
+        ShardingConfiguration.reserveIds(cologne, first, last);
+
+        // then - verify the output
+        assertEquals(3, cologne.executed.size());
+        for (String statement : cologne.executed) {
+            assertFalse(statement.contains("RESTART"), statement);
+        }
+    }
+
+    @Test
+    public void givenLocations_whenGetConnection_thenUseDatabaseOfCurrentLocationOrDefault() throws SQLException {
+        // given - precondition or setup
+        Map<String, HikariDataSource> pools = new LinkedHashMap<>();
+        pools.put("Thessaloniki", new Database("thessaloniki", 1));
+        pools.put("Cologne", new Database("cologne", 1));
+        LocationRoutingDataSource dataSource = new LocationRoutingDataSource(new Database("default", 1), pools);
+        dataSource.afterPropertiesSet();
+
+        // when - action or behaviour that we are going to test
+        String outside = dataSource.getConnection().toString();
+        String thessaloniki = shards.on("Thessaloniki", () -> dataSource.getConnection().toString());
+        String cologne = shards.on("Cologne", () -> dataSource.getConnection().toString());
+        String nested = shards.on("Cologne", () -> shards.on(null, () -> dataSource.getConnection().toString()));
+
+        // then - verify the output
+        assertEquals("default", outside);
+        assertEquals("thessaloniki", thessaloniki);
+        assertEquals("cologne", cologne);
+        assertEquals("default", nested);
+        assertThrows(IllegalStateException.class, () -> shards.on("Athens", dataSource::getConnection));
+    }
+
+    /**
+     * Stands in for the connection pool of a database. Its connections only know the name of the database, answer
+     * every query with one value and record the other statements.
+     */
+    private static class Database extends HikariDataSource {
+
+        private final String name;
+        private final long value;
+        private final List<String> executed = new ArrayList<>();
+
+        private Database(String name, long value) {
+            this.name = name;
+            this.value = value;
+        }
+
+        @Override
+        public Connection getConnection() {
+            return stub(Connection.class, (method, args) -> switch (method) {
+            case "createStatement" -> statement();
+            case "toString" -> name;
+            default -> null;
+            });
+        }
+
+        private Statement statement() {
+            return stub(Statement.class, (method, args) -> switch (method) {
+            case "executeQuery" -> resultSet();
+            case "execute" -> {
+                executed.add((String) args[0]);
+                yield false;
+            }
+            default -> null;
+            });
+        }
+
+        private ResultSet resultSet() {
+            boolean[] read = new boolean[1];
+            return stub(ResultSet.class, (method, args) -> switch (method) {
+            case "next" -> {
+                boolean next = !read[0];
+                read[0] = true;
+                yield next;
+            }
+            case "getMetaData" -> stub(ResultSetMetaData.class,
+                    (metaDataMethod, metaDataArgs) -> "getColumnCount".equals(metaDataMethod) ? 1 : null);
+            case "getLong" -> value;
+            default -> null;
+            });
+        }
+    }
+
+    /**
+     * Implements an interface by answering its methods by name, and with false, 0 or null where no answer is given
+     */
+    private static <T> T stub(Class<T> type, Answer answer) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type },
+                (proxy, method, args) -> {
+                    Object result = answer.answer(method.getName(), args);
+                    if (result == null && method.getReturnType() == boolean.class) {
+                        return false;
+                    }
+                    if (result == null && method.getReturnType() == int.class) {
+                        return 0;
+                    }
+                    return result;
+                }));
+    }
+
+    @FunctionalInterface
+    private interface Answer {
+        Object answer(String method, Object[] args);
+    }
+}
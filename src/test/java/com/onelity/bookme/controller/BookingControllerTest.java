@@ -1,30 +1,48 @@
 package com.onelity.bookme.controller;
 
 import static org.hamcrest.CoreMatchers.is;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.onelity.bookme.dto.BookingChangesDTO;
 import com.onelity.bookme.dto.BookingDTO;
+import com.onelity.bookme.exception.RejectionException;
+import com.onelity.bookme.metrics.BookingMetrics;
 import com.onelity.bookme.model.Booking;
 import com.onelity.bookme.model.CustomUserDetails;
+import com.onelity.bookme.model.IdempotencyKey;
 import com.onelity.bookme.model.Room;
 import com.onelity.bookme.repository.BookingRepository;
+import com.onelity.bookme.repository.IdempotencyKeyRepository;
 import com.onelity.bookme.repository.RoomRepository;
+import com.onelity.bookme.service.BookingArchiveService;
 import com.onelity.bookme.service.CustomUserDetailsService;
+import com.onelity.bookme.service.IdBatches;
+import com.onelity.bookme.tracing.TraceIdHeaderFilter;
+import io.micrometer.core.instrument.MeterRegistry;
 import java.sql.Date;
 import java.sql.Time;
+import java.time.Instant;
+import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
+import java.util.UUID;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.modelmapper.internal.util.Assert;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.User;
 import org.springframework.security.test.context.support.WithMockUser;
@@ -34,6 +52,7 @@ import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
 
 @SpringBootTest
 @AutoConfigureMockMvc
+@AutoConfigureObservability
 public class BookingControllerTest {
 
     @Autowired
@@ -51,6 +70,15 @@ public class BookingControllerTest {
     @Autowired
     private BookingRepository bookingRepository;
 
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private BookingArchiveService bookingArchiveService;
+
+    @Autowired
+    private IdempotencyKeyRepository idempotencyKeyRepository;
+
     @BeforeEach
     void setup() {
         roomRepository.deleteAll();
@@ -107,6 +135,147 @@ public class BookingControllerTest {
         Assert.isTrue(booking.getRepeat_pattern() == null);
     }
 
+    @Test
+    @WithMockUser(username = "admin", roles = { "ADMIN" })
+    public void givenCurrentETag_whenGetBookings_thenReturnNotModifiedUntilBookingIsCreated() throws Exception {
+        // given
+        String eTag = mockMvc.perform(get("/bookings")).andReturn().getResponse().getHeader("ETag");
+        // when
+        ResultActions unchanged = mockMvc.perform(get("/bookings").header("If-None-Match", eTag));
+        mockMvc.perform(post("/bookings").contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(createValidBookingDTO())));
+        ResultActions changed = mockMvc.perform(get("/bookings").header("If-None-Match", eTag));
+        // then
+        unchanged.andExpect(status().isNotModified());
+        changed.andDo(print()).andExpect(status().isOk()).andExpect(jsonPath("$.size()", is(1)));
+    }
+
+    @Test
+    @WithMockUser(username = "admin", roles = { "ADMIN" })
+    public void givenOutdatedETag_whenUpdateBooking_thenReturnPreconditionFailed() throws Exception {
+        // given
+        BookingDTO bookingDTO = createValidBookingDTO();
+        String created = mockMvc.perform(post("/bookings").contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(bookingDTO))).andReturn().getResponse()
+                .getContentAsString();
+        Long id = objectMapper.readValue(created, BookingDTO.class).getId();
+        String eTag = mockMvc.perform(get("/bookings/{id}", id)).andReturn().getResponse().getHeader("ETag");
+        bookingDTO.setTitle("Booking 1 updated");
+        mockMvc.perform(put("/bookings/{id}", id).contentType(MediaType.APPLICATION_JSON).header("If-Match", eTag)
+                .content(objectMapper.writeValueAsString(bookingDTO))).andExpect(status().isOk());
+        // when
+        bookingDTO.setTitle("Booking 1 updated again");
+        ResultActions response = mockMvc.perform(put("/bookings/{id}", id).contentType(MediaType.APPLICATION_JSON)
+                .header("If-Match", eTag).content(objectMapper.writeValueAsString(bookingDTO)));
+        // then
+        response.andDo(print()).andExpect(status().isPreconditionFailed());
+        Assert.isTrue(bookingRepository.findById(id).get().getTitle().equals("Booking 1 updated"));
+    }
+
+    @Test
+    @WithMockUser(username = "admin", roles = { "ADMIN" })
+    public void givenDeletedBooking_whenGetBookingChanges_thenReturnTombstone() throws Exception {
+        // given
+        String created = mockMvc.perform(post("/bookings").contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(createValidBookingDTO()))).andReturn().getResponse()
+                .getContentAsString();
+        Long id = objectMapper.readValue(created, BookingDTO.class).getId();
+        String synced = mockMvc.perform(get("/bookings/changes").param("since", "0")).andReturn().getResponse()
+                .getContentAsString();
+        Long version = objectMapper.readValue(synced, BookingChangesDTO.class).getVersion();
+        mockMvc.perform(post("/bookings").contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(createValidBookingDTO2())));
+        mockMvc.perform(delete("/bookings/{id}", id));
+        // when
+        ResultActions response = mockMvc.perform(get("/bookings/changes").param("since", version.toString()));
+        // then
+        response.andDo(print()).andExpect(status().isOk()).andExpect(jsonPath("$.bookings.size()", is(1)))
+                .andExpect(jsonPath("$.bookings[0].title", is(createValidBookingDTO2().getTitle())))
+                .andExpect(jsonPath("$.deleted.size()", is(1)))
+                .andExpect(jsonPath("$.deleted[0]", is(id.intValue())));
+        Assert.isTrue(bookingRepository.findAll().size() == 1);
+    }
+
+    @Test
+    @WithMockUser(username = "admin", roles = { "ADMIN" })
+    public void givenRoomDeletedWithBookings_whenGetBookingChanges_thenReturnGone() throws Exception {
+        // given
+        BookingDTO bookingDTO = createValidBookingDTO();
+        mockMvc.perform(post("/bookings").contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(bookingDTO)));
+        String synced = mockMvc.perform(get("/bookings/changes")).andReturn().getResponse().getContentAsString();
+        Long version = objectMapper.readValue(synced, BookingChangesDTO.class).getVersion();
+        Long roomId = roomRepository.findByName(bookingDTO.getRoom()).getId();
+        mockMvc.perform(delete("/meeting-rooms/{id}", roomId));
+        // when
+        ResultActions response = mockMvc.perform(get("/bookings/changes").param("since", version.toString()));
+        // then
+        response.andDo(print()).andExpect(status().isGone());
+    }
+
+    @Test
+    @WithMockUser(username = "admin", roles = { "ADMIN" })
+    public void givenSameIdempotencyKey_whenCreateBookingTwice_thenReturnOriginalBooking() throws Exception {
+        // given
+        BookingDTO bookingDTO = createValidBookingDTO();
+        String key = UUID.randomUUID().toString();
+        MockHttpServletResponse created = mockMvc.perform(post("/bookings").contentType(MediaType.APPLICATION_JSON)
+                .header("Idempotency-Key", key).content(objectMapper.writeValueAsString(bookingDTO))).andReturn()
+                .getResponse();
+        // when
+        ResultActions response = mockMvc.perform(post("/bookings").contentType(MediaType.APPLICATION_JSON)
+                .header("Idempotency-Key", key).content(objectMapper.writeValueAsString(bookingDTO)));
+        // then
+        response.andDo(print()).andExpect(status().isCreated())
+                .andExpect(MockMvcResultMatchers.header().string("Idempotent-Replayed", "true"))
+                .andExpect(MockMvcResultMatchers.header().string("ETag", created.getHeader("ETag")))
+                .andExpect(MockMvcResultMatchers.header().string("Location", created.getHeader("Location")))
+                .andExpect(MockMvcResultMatchers.content().json(created.getContentAsString()));
+        Assert.isTrue(bookingRepository.findAll().size() == 1);
+    }
+
+    @Test
+    @WithMockUser(username = "admin", roles = { "ADMIN" })
+    public void givenCreatedBookingWhoseKeyLockRanOut_whenCreateBookingAgain_thenReturnOriginalBooking()
+            throws Exception {
+        // given
+        BookingDTO bookingDTO = createValidBookingDTO();
+        String key = UUID.randomUUID().toString();
+        MockHttpServletResponse created = mockMvc.perform(post("/bookings").contentType(MediaType.APPLICATION_JSON)
+                .header("Idempotency-Key", key).content(objectMapper.writeValueAsString(bookingDTO))).andReturn()
+                .getResponse();
+        IdempotencyKey stored = idempotencyKeyRepository.findById("create-booking:admin:" + key).get();
+        stored.setLockedUntil(Instant.now().minusSeconds(60));
+        idempotencyKeyRepository.save(stored);
+        // when
+        ResultActions response = mockMvc.perform(post("/bookings").contentType(MediaType.APPLICATION_JSON)
+                .header("Idempotency-Key", key).content(objectMapper.writeValueAsString(bookingDTO)));
+        // then
+        response.andDo(print()).andExpect(status().isCreated())
+                .andExpect(MockMvcResultMatchers.header().string("Idempotent-Replayed", "true"))
+                .andExpect(MockMvcResultMatchers.content().json(created.getContentAsString()));
+        Assert.isTrue(stored.getStatus() == HttpStatus.CREATED.value(), "response stored with status %s",
+                stored.getStatus());
+        Assert.isTrue(bookingRepository.findAll().size() == 1);
+    }
+
+    @Test
+    @WithMockUser(username = "admin", roles = { "ADMIN" })
+    public void givenIdempotencyKeyUsedForOtherBooking_whenCreateBooking_thenReturnUnprocessableEntity()
+            throws Exception {
+        // given
+        String key = UUID.randomUUID().toString();
+        mockMvc.perform(post("/bookings").contentType(MediaType.APPLICATION_JSON).header("Idempotency-Key", key)
+                .content(objectMapper.writeValueAsString(createValidBookingDTO())));
+        // when
+        ResultActions response = mockMvc.perform(post("/bookings").contentType(MediaType.APPLICATION_JSON)
+                .header("Idempotency-Key", key)
+                .content(objectMapper.writeValueAsString(createValidBookingDTO2())));
+        // then
+        response.andDo(print()).andExpect(status().isUnprocessableEntity());
+        Assert.isTrue(bookingRepository.findAll().size() == 1);
+    }
+
     @Test
     @WithMockUser(username = "admin", roles = { "ADMIN" })
     public void givenInvalidBookingObject_whenCreateBooking_thenReturnBadRequest() throws Exception {
@@ -118,7 +287,25 @@ public class BookingControllerTest {
                 .content(objectMapper.writeValueAsString(bookingDTO)));
         // then
         response.andDo(print()).andExpect(status().isBadRequest())
-                .andExpect(MockMvcResultMatchers.content().string("Participants cannot be less than 0"));
+                .andExpect(MockMvcResultMatchers.content().string("Participants cannot be less than 0"))
+                .andExpect(header().string(RejectionException.CODE_HEADER, "negative_participants"));
+    }
+
+    @Test
+    @WithMockUser(username = "admin", roles = { "ADMIN" })
+    public void givenInvalidBookingObject_whenCreateBooking_thenRejectionIsCounted() throws Exception {
+        // given
+        BookingDTO bookingDTO = createValidBookingDTO();
+        bookingDTO.setParticipants(-100);
+        double rejectionsBefore = meterRegistry.counter(BookingMetrics.REJECTION_COUNTER, "reason", "invalid_booking")
+                .count();
+        // when
+        mockMvc.perform(post("/bookings").contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(bookingDTO)));
+        // then
+        double rejectionsAfter = meterRegistry.counter(BookingMetrics.REJECTION_COUNTER, "reason", "invalid_booking")
+                .count();
+        Assert.isTrue(rejectionsAfter == rejectionsBefore + 1);
     }
 
     @Test
@@ -153,7 +340,8 @@ public class BookingControllerTest {
         String expectedString = "Meeting room with name " + bookingDTO1.getRoom() + " is already booked "
                 + "for the same time";
         response.andDo(print()).andExpect(status().isConflict())
-                .andExpect(MockMvcResultMatchers.content().string(expectedString));
+                .andExpect(MockMvcResultMatchers.content().string(expectedString))
+                .andExpect(header().string(RejectionException.CODE_HEADER, "conflicting_bookings"));
     }
 
     @Test
@@ -211,6 +399,18 @@ public class BookingControllerTest {
                 .andExpect(MockMvcResultMatchers.content().string(expectedString));
     }
 
+    @Test
+    @WithMockUser(username = "admin", roles = { "ADMIN" })
+    public void givenNonexistentId_whenGetBooking_thenResponseContainsTraceId() throws Exception {
+        // given
+        // Database is already empty so all ids will be nonexistent
+        // when
+        ResultActions response = mockMvc.perform(get("/bookings/{id}", 5L));
+        // then
+        response.andDo(print()).andExpect(status().isNotFound())
+                .andExpect(MockMvcResultMatchers.header().exists(TraceIdHeaderFilter.TRACE_ID_HEADER));
+    }
+
     @Test
     @WithMockUser(username = "admin", roles = { "ADMIN" })
     public void whenGetBookings_thenReturnBookings() throws Exception {
@@ -227,6 +427,145 @@ public class BookingControllerTest {
         response.andDo(print()).andExpect(status().isOk()).andExpect(jsonPath("$.size()", is(2)));
     }
 
+    @Test
+    @WithMockUser(username = "admin", roles = { "ADMIN" })
+    public void givenDateRange_whenGetBookings_thenReturnBookingsOccurringInRange() throws Exception {
+        // given
+        // Booking 1 is on 3903-04-01 only, booking 2 repeats every day of April 3903
+        bookingRepository.saveAndFlush(convertBookingDTOToBooking(createValidBookingDTO()));
+        bookingRepository.saveAndFlush(convertBookingDTOToBooking(createValidBookingDTO2()));
+        // when
+        ResultActions response = mockMvc
+                .perform(get("/bookings").param("from", "3903-04-10").param("to", "3903-04-16"));
+        // then
+        response.andDo(print()).andExpect(status().isOk()).andExpect(jsonPath("$.size()", is(1)))
+                .andExpect(jsonPath("$[0].title", is(createValidBookingDTO2().getTitle())));
+    }
+
+    @Test
+    @WithMockUser(username = "admin", roles = { "ADMIN" })
+    public void givenWeeklyBooking_whenGetBookings_thenReturnItOnlyForRangesContainingItsDayOfWeek() throws Exception {
+        // given
+        // Booking 2 repeats every same day of the week in April 3903, starting on its first day
+        BookingDTO weekly = createValidBookingDTO2();
+        weekly.setRepeat_pattern("every same day of the week");
+        bookingRepository.saveAndFlush(convertBookingDTOToBooking(weekly));
+        LocalDate start = weekly.getStartDate().toLocalDate();
+        // when
+        ResultActions betweenRepetitions = mockMvc.perform(get("/bookings")
+                .param("from", start.plusDays(1).toString()).param("to", start.plusDays(6).toString()));
+        ResultActions withRepetition = mockMvc.perform(get("/bookings").param("from", start.plusDays(5).toString())
+                .param("to", start.plusDays(8).toString()));
+        // then
+        betweenRepetitions.andDo(print()).andExpect(status().isOk()).andExpect(jsonPath("$.size()", is(0)));
+        withRepetition.andExpect(status().isOk()).andExpect(jsonPath("$.size()", is(1)))
+                .andExpect(jsonPath("$[0].title", is(weekly.getTitle())));
+    }
+
+    @Test
+    @WithMockUser(username = "admin", roles = { "ADMIN" })
+    public void givenRoomAndCreator_whenGetBookings_thenReturnOnlyMatchingBookings() throws Exception {
+        // given
+        bookingRepository.saveAndFlush(convertBookingDTOToBooking(createValidBookingDTO()));
+        bookingRepository.saveAndFlush(convertBookingDTOToBooking(createValidBookingDTO2()));
+        Long roomId = roomRepository.findByName("Room 1").getId();
+        // when
+        ResultActions mine = mockMvc
+                .perform(get("/bookings").param("room", roomId.toString()).param("creator", "me"));
+        ResultActions otherRoom = mockMvc.perform(get("/bookings").param("room", String.valueOf(roomId + 1)));
+        ResultActions otherCreator = mockMvc.perform(get("/bookings").param("creator", "employee"));
+        // then
+        mine.andDo(print()).andExpect(status().isOk()).andExpect(jsonPath("$.size()", is(2)))
+                .andExpect(jsonPath("$[0].title", is(createValidBookingDTO().getTitle())));
+        otherRoom.andExpect(status().isOk()).andExpect(jsonPath("$.size()", is(0)));
+        otherCreator.andExpect(status().isOk()).andExpect(jsonPath("$.size()", is(0)));
+    }
+
+    @Test
+    @WithMockUser(username = "admin", roles = { "ADMIN" })
+    public void givenIds_whenGetBookingsById_thenReturnBookingsInOrderAndMissingIds() throws Exception {
+        // given
+        Booking booking1 = bookingRepository.saveAndFlush(convertBookingDTOToBooking(createValidBookingDTO()));
+        Booking booking2 = bookingRepository.saveAndFlush(convertBookingDTOToBooking(createValidBookingDTO2()));
+        Long missingId = booking2.getId() + 1000;
+        // when
+        ResultActions response = mockMvc.perform(get("/bookings").param("ids",
+                booking2.getId() + "," + missingId + "," + booking1.getId() + "," + booking2.getId()));
+        // then
+        response.andDo(print()).andExpect(status().isOk()).andExpect(jsonPath("$.size()", is(2)))
+                .andExpect(jsonPath("$[0].title", is(booking2.getTitle())))
+                .andExpect(jsonPath("$[1].title", is(booking1.getTitle())))
+                .andExpect(jsonPath("$[1].room", is(createValidBookingDTO().getRoom())))
+                .andExpect(header().string(IdBatches.MISSING_IDS_HEADER, missingId.toString()));
+    }
+
+    @Test
+    @WithMockUser(username = "admin", roles = { "ADMIN" })
+    public void givenTooManyIds_whenGetBookingsById_thenReturnBadRequest() throws Exception {
+        // given
+        StringBuilder ids = new StringBuilder("1");
+        for (int id = 2; id <= IdBatches.MAX_IDS + 1; id++) {
+            ids.append(',').append(id);
+        }
+        // when
+        ResultActions response = mockMvc.perform(get("/bookings").param("ids", ids.toString()));
+        // then
+        response.andDo(print()).andExpect(status().isBadRequest())
+                .andExpect(header().string(RejectionException.CODE_HEADER, "too_many_ids"));
+    }
+
+    @Test
+    @WithMockUser(username = "admin", roles = { "ADMIN" })
+    public void givenPastBookings_whenArchive_thenOnlyReturnNonRepeatingOnesWhenIncludingArchived() throws Exception {
+        // given
+        // A past booking without repeat option, a past booking repeating every day, and booking 1 in 3903
+        BookingDTO past = createValidBookingDTO();
+        past.setTitle("Past booking");
+        past.setStartDate(Date.valueOf("2001-03-01"));
+        past.setEndDate(Date.valueOf("2001-03-01"));
+        BookingDTO pastSeries = createValidBookingDTO2();
+        pastSeries.setStartDate(Date.valueOf("2001-03-01"));
+        pastSeries.setEndDate(Date.valueOf("2001-03-31"));
+        Long pastId = bookingRepository.saveAndFlush(convertBookingDTOToBooking(past)).getId();
+        bookingRepository.saveAndFlush(convertBookingDTOToBooking(pastSeries));
+        bookingRepository.saveAndFlush(convertBookingDTOToBooking(createValidBookingDTO()));
+        String synced = mockMvc.perform(get("/bookings/changes")).andReturn().getResponse().getContentAsString();
+        Long version = objectMapper.readValue(synced, BookingChangesDTO.class).getVersion();
+        // when
+        long archived = bookingArchiveService.archivePastBookings();
+        ResultActions hot = mockMvc.perform(get("/bookings"));
+        ResultActions all = mockMvc.perform(get("/bookings").param("includeArchived", "true"));
+        ResultActions changes = mockMvc.perform(get("/bookings/changes").param("since", version.toString()));
+        // then
+        Assert.isTrue(archived == 1);
+        changes.andExpect(status().isOk()).andExpect(jsonPath("$.bookings.size()", is(0)))
+                .andExpect(jsonPath("$.archived.size()", is(1)))
+                .andExpect(jsonPath("$.archived[0]", is(pastId.intValue())));
+        hot.andDo(print()).andExpect(status().isOk()).andExpect(jsonPath("$.size()", is(2)));
+        all.andDo(print()).andExpect(status().isOk()).andExpect(jsonPath("$.size()", is(3)))
+                .andExpect(jsonPath("$[0].title", is("Past booking")))
+                .andExpect(jsonPath("$[0].room", is(past.getRoom())));
+        Assert.isTrue(!hot.andReturn().getResponse().getHeader("ETag")
+                .equals(all.andReturn().getResponse().getHeader("ETag")));
+    }
+
+    @Test
+    @WithMockUser(username = "admin", roles = { "ADMIN" })
+    public void givenArchivedBooking_whenCreateOverlappingPastBooking_thenReturnConflict() throws Exception {
+        // given
+        BookingDTO past = createValidBookingDTO();
+        past.setStartDate(Date.valueOf("2001-03-01"));
+        past.setEndDate(Date.valueOf("2001-03-01"));
+        bookingRepository.saveAndFlush(convertBookingDTOToBooking(past));
+        bookingArchiveService.archivePastBookings();
+        // when
+        ResultActions response = mockMvc.perform(post("/bookings").contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(past)));
+        // then
+        response.andDo(print()).andExpect(status().isConflict());
+        Assert.isTrue(bookingRepository.findAll().isEmpty());
+    }
+
     @Test
     @WithMockUser(username = "admin", roles = { "ADMIN" })
     public void givenExistingId_whenDeleteBooking_thenSuccessfulDeletion() throws Exception {
@@ -265,6 +604,52 @@ public class BookingControllerTest {
         response.andDo(print()).andExpect(status().isNoContent());
     }
 
+    @Test
+    @WithMockUser(username = "admin", roles = { "ADMIN" })
+    public void givenDateRange_whenDeleteBookings_thenDeleteOnlyBookingsWithinRange() throws Exception {
+        // given
+        // Booking 1 is on 3903-04-01 only, booking 2 repeats every day of April 3903
+        bookingRepository.saveAndFlush(convertBookingDTOToBooking(createValidBookingDTO()));
+        bookingRepository.saveAndFlush(convertBookingDTOToBooking(createValidBookingDTO2()));
+        Long roomId = roomRepository.findByName("Room 1").getId();
+        // when
+        ResultActions response = mockMvc.perform(delete("/bookings").param("room", roomId.toString())
+                .param("from", "3903-04-01").param("to", "3903-04-15"));
+        // then
+        response.andDo(print()).andExpect(status().isOk()).andExpect(jsonPath("$.deleted", is(1)));
+        List<Booking> bookings = bookingRepository.findAll();
+        Assert.isTrue(bookings.size() == 1);
+        Assert.isTrue(bookings.get(0).getTitle().equals(createValidBookingDTO2().getTitle()));
+    }
+
+    @Test
+    @WithMockUser(username = "admin", roles = { "ADMIN" })
+    public void givenBookingsOfOtherUser_whenDeleteBookingsAsEmployee_thenDeleteNothing() throws Exception {
+        // given
+        bookingRepository.saveAndFlush(convertBookingDTOToBooking(createValidBookingDTO()));
+        bookingRepository.saveAndFlush(convertBookingDTOToBooking(createValidBookingDTO2()));
+        Long roomId = roomRepository.findByName("Room 1").getId();
+        // when
+        ResultActions own = mockMvc
+                .perform(delete("/bookings").param("room", roomId.toString()).with(user("employee").roles("USER")));
+        ResultActions other = mockMvc
+                .perform(delete("/bookings").param("creator", "admin").with(user("employee").roles("USER")));
+        // then
+        own.andDo(print()).andExpect(status().isOk()).andExpect(jsonPath("$.deleted", is(0)));
+        other.andExpect(status().isUnauthorized());
+        Assert.isTrue(bookingRepository.findAll().size() == 2);
+    }
+
+    @Test
+    @WithMockUser(username = "admin", roles = { "ADMIN" })
+    public void givenNoFilter_whenDeleteBookings_thenReturnBadRequest() throws Exception {
+        // when
+        ResultActions response = mockMvc.perform(delete("/bookings"));
+        // then
+        response.andDo(print()).andExpect(status().isBadRequest())
+                .andExpect(header().string(RejectionException.CODE_HEADER, "filter_required"));
+    }
+
     @Test
     @WithMockUser(username = "admin", roles = { "ADMIN" })
     public void givenValidBookingObject_whenUpdateBooking_thenReturnSavedBooking() throws Exception {
@@ -341,6 +726,46 @@ public class BookingControllerTest {
         Assert.isTrue(booking2.getEndTime().equals(new Time(14, 00, 00)));
     }
 
+    @Test
+    @WithMockUser(username = "admin", roles = { "ADMIN" })
+    public void givenTitlePatch_whenPatchBooking_thenOnlyTitleChanges() throws Exception {
+        // given
+        BookingDTO bookingDTO = createValidBookingDTO();
+        Booking booking = bookingRepository.saveAndFlush(convertBookingDTOToBooking(bookingDTO));
+        Long id = booking.getId();
+        // when
+        ResultActions response = mockMvc.perform(patch("/bookings/{id}", id).contentType("application/merge-patch+json")
+                .content("{\"title\": \"Patched Booking 1\", \"description\": null}"));
+        // then
+        response.andDo(print()).andExpect(status().isOk()).andExpect(jsonPath("$.title", is("Patched Booking 1")))
+                .andExpect(jsonPath("$.participants", is(bookingDTO.getParticipants())))
+                .andExpect(header().string("ETag", "\"" + (booking.getVersion() + 1) + "\""));
+        Booking patchedBooking = bookingRepository.findById(id).orElseThrow();
+        Assert.isTrue(patchedBooking.getTitle().equals("Patched Booking 1"));
+        Assert.isTrue(patchedBooking.getDescription() == null);
+        Assert.isTrue(patchedBooking.getStartTime().equals(booking.getStartTime()));
+    }
+
+    @Test
+    @WithMockUser(username = "admin", roles = { "ADMIN" })
+    public void givenConflictingTimesPatch_whenPatchBooking_thenReturnConflict() throws Exception {
+        // given
+        BookingDTO bookingDTO1 = createValidBookingDTO();
+        BookingDTO bookingDTO2 = createValidBookingDTO2();
+        bookingRepository.saveAndFlush(convertBookingDTOToBooking(bookingDTO1));
+        Booking booking2 = bookingRepository.saveAndFlush(convertBookingDTOToBooking(bookingDTO2));
+        Long id = booking2.getId();
+        String patch = objectMapper.writeValueAsString(
+                Map.of("startTime", new Time(06, 00, 00), "endTime", new Time(11, 00, 00)));
+        // when
+        ResultActions response = mockMvc
+                .perform(patch("/bookings/{id}", id).contentType("application/merge-patch+json").content(patch));
+        // then
+        response.andDo(print()).andExpect(status().isConflict())
+                .andExpect(header().string(RejectionException.CODE_HEADER, "conflicting_bookings"));
+        Assert.isTrue(bookingRepository.findById(id).orElseThrow().getStartTime().equals(bookingDTO2.getStartTime()));
+    }
+
     @Test
     @WithMockUser(username = "admin", roles = { "ADMIN" })
     public void givenInvalidBookingObject_whenUpdateBooking_thenReturnBadRequest() throws Exception {
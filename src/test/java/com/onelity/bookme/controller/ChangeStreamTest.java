@@ -0,0 +1,94 @@
+package com.onelity.bookme.controller;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+import com.onelity.bookme.dto.ChangeDTO;
+import com.onelity.bookme.dto.RoomDTO;
+import com.onelity.bookme.stream.ChangeBroadcaster;
+import org.junit.jupiter.api.Test;
+import org.modelmapper.internal.util.Assert;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+public class ChangeStreamTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ChangeBroadcaster changeBroadcaster;
+
+    @Test
+    @WithMockUser(username = "user")
+    public void givenRoomFilter_whenChangesAreBroadcast_thenStreamContainsOnlyChangesOfThatRoom() throws Exception {
+
+        // given - precondition or setup
+        MockHttpServletResponse response = mockMvc.perform(get("/bookings/stream").param("room", "1001"))
+                .andExpect(request().asyncStarted()).andReturn().getResponse();
+
+        // when - action or behavior we are going to test
+        changeBroadcaster.broadcast(ChangeDTO.roomChanged("updated", createRoomDTO(1002L, "Other room")));
+        changeBroadcaster.broadcast(ChangeDTO.roomChanged("updated", createRoomDTO(1001L, "Filtered room")));
+
+        // then - verify the result or output using assert statements
+        String content = awaitContent(response, "Filtered room");
+        Assert.isTrue(content.contains("Filtered room"));
+        Assert.isTrue(!content.contains("Other room"));
+    }
+
+    @Test
+    @WithMockUser(username = "user")
+    public void givenLastEventId_whenSubscribe_thenMissedChangesAreReplayed() throws Exception {
+
+        // given - precondition or setup
+        ChangeDTO received = ChangeDTO.roomChanged("updated", createRoomDTO(2001L, "Received room"));
+        changeBroadcaster.broadcast(received);
+        changeBroadcaster.broadcast(ChangeDTO.roomChanged("updated", createRoomDTO(2001L, "Missed room")));
+
+        // when - action or behavior we are going to test
+        MockHttpServletResponse response = mockMvc
+                .perform(get("/bookings/stream").param("room", "2001").header("Last-Event-ID", received.getId()))
+                .andExpect(request().asyncStarted()).andReturn().getResponse();
+
+        // then - verify the result or output using assert statements
+        String content = awaitContent(response, "Missed room");
+        Assert.isTrue(content.contains("Missed room"));
+        Assert.isTrue(!content.contains("Received room"));
+    }
+
+    @Test
+    @WithMockUser(username = "user")
+    public void givenUnknownLastEventId_whenSubscribe_thenStreamAsksToReload() throws Exception {
+
+        // when - action or behavior we are going to test
+        MockHttpServletResponse response = mockMvc
+                .perform(get("/bookings/stream").header("Last-Event-ID", Long.MAX_VALUE))
+                .andExpect(request().asyncStarted()).andReturn().getResponse();
+
+        // then - verify the result or output using assert statements
+        Assert.isTrue(awaitContent(response, "event:reset").contains("event:reset"));
+    }
+
+    private static String awaitContent(MockHttpServletResponse response, String expected) throws Exception {
+        for (int i = 0; i < 50 && !response.getContentAsString().contains(expected); i++) {
+            Thread.sleep(100);
+        }
+        return response.getContentAsString();
+    }
+
+    private static RoomDTO createRoomDTO(Long id, String name) {
+        RoomDTO roomDTO = new RoomDTO();
+        roomDTO.setId(id);
+        roomDTO.setName(name);
+        roomDTO.setLocation("Cologne");
+        roomDTO.setCapacity(10);
+        return roomDTO;
+    }
+}
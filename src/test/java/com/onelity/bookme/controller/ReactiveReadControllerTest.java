@@ -0,0 +1,117 @@
+package com.onelity.bookme.controller;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.onelity.bookme.dto.BookingDTO;
+import com.onelity.bookme.model.Room;
+import com.onelity.bookme.repository.BookingRepository;
+import com.onelity.bookme.repository.RoomRepository;
+import java.sql.Date;
+import java.sql.Time;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+public class ReactiveReadControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private RoomRepository roomRepository;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    private Room room;
+
+    @BeforeEach
+    void setup() {
+        roomRepository.deleteAll();
+        bookingRepository.deleteAll();
+        room = roomRepository.saveAndFlush(new Room("Room 1", "Thessaloniki", 100));
+    }
+
+    @AfterEach
+    void teardown() {
+        roomRepository.deleteAll();
+        bookingRepository.deleteAll();
+    }
+
+    @Test
+    @WithMockUser(username = "user")
+    public void givenRoomInDatabase_whenGetRoom_thenReturnRoom() throws Exception {
+
+        // when - action or behavior we are going to test
+        MvcResult result = mockMvc.perform(get("/reactive/meeting-rooms/" + room.getId()))
+                .andExpect(request().asyncStarted()).andReturn();
+
+        // then - verify the result or output using assert statements
+        mockMvc.perform(asyncDispatch(result)).andExpect(status().isOk())
+                .andExpect(jsonPath("$.name", is(room.getName())))
+                .andExpect(jsonPath("$.capacity", is(room.getCapacity())));
+    }
+
+    @Test
+    @WithMockUser(username = "user")
+    public void givenNonexistentId_whenGetRoom_thenReturnNotFound() throws Exception {
+
+        // when - action or behavior we are going to test
+        MvcResult result = mockMvc.perform(get("/reactive/meeting-rooms/-1")).andExpect(request().asyncStarted())
+                .andReturn();
+
+        // then - verify the result or output using assert statements
+        mockMvc.perform(asyncDispatch(result)).andExpect(status().isNotFound())
+                .andExpect(content().string("Room with id -1 not found"));
+    }
+
+    @Test
+    @WithMockUser(username = "admin", roles = { "ADMIN" })
+    public void givenRepeatingBookings_whenGetRoomAvailability_thenReturnBookingsOfThatDay() throws Exception {
+
+        // given - precondition or setup
+        createBooking("Daily", new Date(103, 2, 3), new Date(103, 2, 31), new Time(11, 0, 0), "every day");
+        createBooking("Weekly", new Date(103, 2, 3), new Date(103, 2, 31), new Time(8, 0, 0),
+                "every same day of the week");
+        createBooking("Once", new Date(103, 2, 11), new Date(103, 2, 11), new Time(15, 0, 0), null);
+
+        // when - action or behavior we are going to test
+        MvcResult result = mockMvc
+                .perform(get("/reactive/meeting-rooms/" + room.getId() + "/availability").param("date", "2003-03-10"))
+                .andExpect(request().asyncStarted()).andReturn();
+
+        // then - verify the result or output using assert statements
+        mockMvc.perform(asyncDispatch(result)).andExpect(status().isOk()).andExpect(jsonPath("$.length()", is(2)))
+                .andExpect(jsonPath("$[0].title", is("Weekly"))).andExpect(jsonPath("$[1].title", is("Daily")));
+    }
+
+    private void createBooking(String title, Date startDate, Date endDate, Time startTime, String repeatPattern)
+            throws Exception {
+        BookingDTO bookingDTO = new BookingDTO();
+        bookingDTO.setTitle(title);
+        bookingDTO.setRoom(room.getName());
+        bookingDTO.setStartDate(startDate);
+        bookingDTO.setEndDate(endDate);
+        bookingDTO.setStartTime(startTime);
+        bookingDTO.setEndTime(new Time(startTime.getHours() + 1, 0, 0));
+        bookingDTO.setParticipants(10);
+        bookingDTO.setRepeat_pattern(repeatPattern);
+        mockMvc.perform(post("/bookings").contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(bookingDTO))).andExpect(status().isCreated());
+    }
+}
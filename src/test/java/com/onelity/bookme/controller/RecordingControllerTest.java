@@ -0,0 +1,66 @@
+package com.onelity.bookme.controller;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.onelity.bookme.dto.RecordingDTO;
+import org.junit.jupiter.api.Test;
+import org.modelmapper.internal.util.Assert;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+public class RecordingControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    @WithMockUser(username = "admin", roles = { "ADMIN" })
+    public void givenStartedRecording_whenStopAndDownload_thenReturnJfrFile() throws Exception {
+
+        // given - precondition or setup
+        MvcResult started = mockMvc.perform(post("/admin/recordings")).andExpect(status().isCreated())
+                .andExpect(jsonPath("$.state", is("RUNNING"))).andReturn();
+        RecordingDTO recording = objectMapper.readValue(started.getResponse().getContentAsString(),
+                RecordingDTO.class);
+
+        // when - action or behavior we are going to test
+        mockMvc.perform(post("/admin/recordings/" + recording.getId() + "/stop")).andExpect(status().isOk())
+                .andExpect(jsonPath("$.state", is("STOPPED")));
+        MvcResult downloaded = mockMvc.perform(get("/admin/recordings/" + recording.getId()))
+                .andExpect(status().isOk()).andReturn();
+
+        // then - verify the result or output using assert statements
+        byte[] file = downloaded.getResponse().getContentAsByteArray();
+        Assert.isTrue(file.length > 4 && new String(file, 0, 4).equals("FLR\0"));
+        mockMvc.perform(delete("/admin/recordings/" + recording.getId())).andExpect(status().isNoContent());
+    }
+
+    @Test
+    @WithMockUser(username = "admin", roles = { "ADMIN" })
+    public void givenNonexistentId_whenStopRecording_thenReturnNotFound() throws Exception {
+
+        // when - action or behavior we are going to test, then - verify the result
+        mockMvc.perform(post("/admin/recordings/-1/stop")).andExpect(status().isNotFound())
+                .andExpect(content().string("Recording with id '-1' does not exist"));
+    }
+
+    @Test
+    @WithMockUser(username = "user", roles = { "EMPLOYEE" })
+    public void givenEmployee_whenStartRecording_thenReturnUnauthorized() throws Exception {
+
+        // when - action or behavior we are going to test, then - verify the result
+        mockMvc.perform(post("/admin/recordings")).andExpect(status().isUnauthorized());
+    }
+}
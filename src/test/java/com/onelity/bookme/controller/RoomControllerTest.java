@@ -6,10 +6,16 @@ import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.onelity.bookme.dto.BookingDTO;
 import com.onelity.bookme.dto.RoomDTO;
 import com.onelity.bookme.model.Room;
 import com.onelity.bookme.repository.RoomRepository;
+import com.onelity.bookme.service.IdBatches;
+import com.onelity.bookme.service.RoomService;
+import java.sql.Date;
+import java.sql.Time;
 import java.util.List;
+import java.util.UUID;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
 import org.modelmapper.ModelMapper;
@@ -18,12 +24,14 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.event.annotation.BeforeTestClass;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.ResultActions;
 
-@SpringBootTest
+// Small chunks, so that deleting a room with a few bookings takes several chunks
+@SpringBootTest(properties = "bookme.room-deletion.chunk-size=2")
 @AutoConfigureMockMvc
 public class RoomControllerTest {
 
@@ -39,6 +47,9 @@ public class RoomControllerTest {
     @Autowired
     private ModelMapper modelMapper;
 
+    @Autowired
+    private RoomService roomService;
+
     @BeforeTestClass
     void setup() {
         roomRepository.deleteAll();
@@ -104,6 +115,31 @@ public class RoomControllerTest {
         response.andDo(print()).andExpect(status().isConflict());
     }
 
+    @Test
+    @WithMockUser(username = "admin", roles = { "ADMIN" })
+    public void givenSameIdempotencyKey_whenCreateRoomTwice_thenReturnOriginalResponse() throws Exception {
+
+        // given - precondition or setup
+        RoomDTO roomDTO = createValidRoomDTO();
+        String key = UUID.randomUUID().toString();
+        MockHttpServletResponse created = mockMvc.perform(post("/meeting-rooms")
+                .contentType(MediaType.APPLICATION_JSON).header("Idempotency-Key", key)
+                .content(objectMapper.writeValueAsString(roomDTO))).andReturn().getResponse();
+
+        // when - action or behavior we are going to test
+        // retry the same request, which would conflict with the room it created if executed again
+        ResultActions response = mockMvc.perform(post("/meeting-rooms").contentType(MediaType.APPLICATION_JSON)
+                .header("Idempotency-Key", key).content(objectMapper.writeValueAsString(roomDTO)));
+
+        // then - verify the result or output using assert statements
+        response.andDo(print()).andExpect(status().isCreated())
+                .andExpect(header().string("Idempotent-Replayed", "true"))
+                .andExpect(header().string("ETag", created.getHeader("ETag")))
+                .andExpect(header().string("Location", created.getHeader("Location")))
+                .andExpect(content().json(created.getContentAsString()));
+        Assert.isTrue(roomRepository.findAll().size() == 1);
+    }
+
     @Test
     @WithMockUser(username = "admin", roles = { "ADMIN" })
     public void givenConflictingRoomObject_whenCreateRoom_thenDatabaseDoesNotContainDuplicateRoom() throws Exception {
@@ -158,6 +194,36 @@ public class RoomControllerTest {
         response.andDo(print()).andExpect(status().isNotFound());
     }
 
+    @Test
+    @WithMockUser(username = "admin", roles = { "ADMIN" })
+    public void givenNonexistentId_whenGetRoomCalendar_thenReturnNotFound() throws Exception {
+
+        // given - precondition or setup
+        // Database is already empty so all ids will be nonexistent
+
+        // when - action or behavior we are going to test
+        ResultActions response = mockMvc.perform(
+                get("/meeting-rooms/{id}/calendar", 5L).param("from", "2024-01-01").param("to", "2024-01-07"));
+
+        // then - verify the result or output using assert statements
+        response.andDo(print()).andExpect(status().isNotFound());
+    }
+
+    @Test
+    @WithMockUser(username = "admin", roles = { "ADMIN" })
+    public void givenTooLongWindow_whenGetRoomCalendar_thenReturnBadRequest() throws Exception {
+
+        // given - precondition or setup
+        // Calendars span at most a year
+
+        // when - action or behavior we are going to test
+        ResultActions response = mockMvc.perform(
+                get("/meeting-rooms/{id}/calendar", 5L).param("from", "2024-01-01").param("to", "2034-01-01"));
+
+        // then - verify the result or output using assert statements
+        response.andDo(print()).andExpect(status().isBadRequest());
+    }
+
     @Test
     @WithMockUser(username = "admin", roles = { "ADMIN" })
     public void whenGetRooms_thenReturnRooms() throws Exception {
@@ -183,6 +249,40 @@ public class RoomControllerTest {
         response.andDo(print()).andExpect(status().isOk()).andExpect(jsonPath("$.size()", is(3)));
     }
 
+    @Test
+    @WithMockUser(username = "admin", roles = { "ADMIN" })
+    public void givenCurrentETag_whenGetRooms_thenReturnNotModified() throws Exception {
+
+        // given - precondition or setup
+        mockMvc.perform(post("/meeting-rooms").contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(createValidRoomDTO())));
+        String eTag = mockMvc.perform(get("/meeting-rooms")).andReturn().getResponse().getHeader("ETag");
+
+        // when - action or behavior we are going to test
+        ResultActions response = mockMvc.perform(get("/meeting-rooms").header("If-None-Match", eTag));
+
+        // then - verify the result or output using assert statements
+        response.andDo(print()).andExpect(status().isNotModified()).andExpect(header().string("ETag", eTag))
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    @WithMockUser(username = "admin", roles = { "ADMIN" })
+    public void givenOutdatedETag_whenGetRooms_thenReturnRooms() throws Exception {
+
+        // given - precondition or setup
+        String eTag = mockMvc.perform(get("/meeting-rooms")).andReturn().getResponse().getHeader("ETag");
+        mockMvc.perform(post("/meeting-rooms").contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(createValidRoomDTO())));
+
+        // when - action or behavior we are going to test
+        ResultActions response = mockMvc.perform(get("/meeting-rooms").header("If-None-Match", eTag));
+
+        // then - verify the result or output using assert statements
+        response.andDo(print()).andExpect(status().isOk()).andExpect(jsonPath("$.size()", is(1)));
+        Assert.isTrue(!eTag.equals(response.andReturn().getResponse().getHeader("ETag")));
+    }
+
     @Test
     @WithMockUser(username = "admin", roles = { "ADMIN" })
     public void givenExistingId_whenDeleteRoom_thenSuccessfulDeletion() throws Exception {
@@ -218,6 +318,66 @@ public class RoomControllerTest {
         Assert.isTrue(allRooms.size() == 0);
     }
 
+    @Test
+    @WithMockUser(username = "admin", roles = { "ADMIN" })
+    public void givenRoomWithBookings_whenDeleteRoom_thenDeleteBookingsInChunksInBackground() throws Exception {
+
+        // given - precondition or setup
+        Room room = roomRepository.saveAndFlush(modelMapper.map(createValidRoomDTO(), Room.class));
+        for (int day = 1; day <= 5; day++) {
+            BookingDTO bookingDTO = new BookingDTO(null, room.getName(), "Booking " + day, "Description",
+                    Date.valueOf("2030-01-0" + day), Date.valueOf("2030-01-0" + day), Time.valueOf("09:00:00"),
+                    Time.valueOf("10:00:00"), 10, null);
+            mockMvc.perform(post("/bookings").contentType(MediaType.APPLICATION_JSON)
+                    .content(objectMapper.writeValueAsString(bookingDTO)));
+        }
+
+        // when - action or behavior we are going to test
+        ResultActions response = mockMvc.perform(delete("/meeting-rooms/{id}", room.getId()));
+        ResultActions read = mockMvc.perform(get("/meeting-rooms/{id}", room.getId()));
+        roomService.deleteBookingsOfDeletedRooms();
+        String location = response.andReturn().getResponse().getHeader("Location");
+        ResultActions progress = mockMvc.perform(get(location));
+
+        // then - verify the result or output using assert statements
+        response.andDo(print()).andExpect(status().isAccepted()).andExpect(jsonPath("$.status", is("RUNNING")))
+                .andExpect(jsonPath("$.totalBookings", is(5)));
+        read.andExpect(status().isNotFound());
+        progress.andDo(print()).andExpect(status().isOk()).andExpect(jsonPath("$.status", is("COMPLETED")))
+                .andExpect(jsonPath("$.deletedBookings", is(5)));
+        Assert.isTrue(roomRepository.findById(room.getId()).isEmpty());
+    }
+
+    @Test
+    @WithMockUser(username = "admin", roles = { "ADMIN" })
+    public void givenRoomBeingDeleted_whenGetBookings_thenLeaveOutItsBookings() throws Exception {
+
+        // given - precondition or setup
+        Room room = roomRepository.saveAndFlush(modelMapper.map(createValidRoomDTO(), Room.class));
+        BookingDTO bookingDTO = new BookingDTO(null, room.getName(), "Booking", "Description",
+                Date.valueOf("2030-01-01"), Date.valueOf("2030-01-01"), Time.valueOf("09:00:00"),
+                Time.valueOf("10:00:00"), 10, null);
+        String created = mockMvc.perform(post("/bookings").contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(bookingDTO))).andReturn().getResponse().getContentAsString();
+        Long bookingId = objectMapper.readValue(created, BookingDTO.class).getId();
+        mockMvc.perform(delete("/meeting-rooms/{id}", room.getId()));
+
+        // when - action or behavior we are going to test
+        ResultActions list = mockMvc.perform(get("/bookings").param("room", room.getId().toString()));
+        ResultActions single = mockMvc.perform(get("/bookings/{id}", bookingId));
+        ResultActions batch = mockMvc.perform(get("/bookings").param("ids", bookingId.toString()));
+        ResultActions changes = mockMvc.perform(get("/bookings/changes"));
+        roomService.deleteBookingsOfDeletedRooms();
+
+        // then - verify the result or output using assert statements
+        list.andDo(print()).andExpect(status().isOk()).andExpect(jsonPath("$.size()", is(0)));
+        single.andExpect(status().isNotFound());
+        batch.andExpect(status().isOk()).andExpect(jsonPath("$.size()", is(0)))
+                .andExpect(header().string(IdBatches.MISSING_IDS_HEADER, bookingId.toString()));
+        changes.andExpect(status().isOk())
+                .andExpect(jsonPath("$.bookings[?(@.id == " + bookingId + ")]").isEmpty());
+    }
+
     @Test
     @WithMockUser(username = "admin", roles = { "ADMIN" })
     public void givenNonexistentId_whenDeleteRoom_thenSuccessfulDeletion() throws Exception {
@@ -283,6 +443,26 @@ public class RoomControllerTest {
         Assert.isTrue(updatedRoom.getCapacity().equals(updatedRoomDTO.getCapacity()));
     }
 
+    @Test
+    @WithMockUser(username = "admin", roles = { "ADMIN" })
+    public void givenIds_whenGetRoomsById_thenReturnRoomsInOrderAndMissingIds() throws Exception {
+
+        // given - precondition or setup
+        Room room1 = roomRepository.saveAndFlush(modelMapper.map(createValidRoomDTO(), Room.class));
+        Room room2 = roomRepository.saveAndFlush(modelMapper.map(createValidRoomDTO2(), Room.class));
+        Long missingId = room2.getId() + 1000;
+
+        // when - action or behavior we are going to test
+        ResultActions response = mockMvc
+                .perform(get("/meeting-rooms").param("ids", room2.getId() + "," + missingId + "," + room1.getId()));
+
+        // then - verify the result or output using assert statements
+        response.andDo(print()).andExpect(status().isOk()).andExpect(jsonPath("$.size()", is(2)))
+                .andExpect(jsonPath("$[0].name", is(room2.getName())))
+                .andExpect(jsonPath("$[1].name", is(room1.getName())))
+                .andExpect(header().string(IdBatches.MISSING_IDS_HEADER, missingId.toString()));
+    }
+
     @Test
     @WithMockUser(username = "admin", roles = { "ADMIN" })
     public void givenConflictingRoomObject_whenUpdateRoom_thenReturnConflict() throws Exception {
@@ -330,6 +510,52 @@ public class RoomControllerTest {
         Assert.isTrue(room2.getName().equals("Room 2"));
     }
 
+    @Test
+    @WithMockUser(username = "admin", roles = { "ADMIN" })
+    public void givenCurrentETag_whenUpdateRoom_thenReturnUpdatedRoomWithNewETag() throws Exception {
+
+        // given - precondition or setup
+        Room newRoom = roomRepository.saveAndFlush(modelMapper.map(createValidRoomDTO(), Room.class));
+        String eTag = mockMvc.perform(get("/meeting-rooms/{id}", newRoom.getId())).andReturn().getResponse()
+                .getHeader("ETag");
+        RoomDTO updatedRoomDTO = createValidRoomDTO();
+        updatedRoomDTO.setCapacity(50);
+
+        // when - action or behavior we are going to test
+        ResultActions response = mockMvc.perform(put("/meeting-rooms/{id}", newRoom.getId())
+                .contentType(MediaType.APPLICATION_JSON).header("If-Match", eTag)
+                .content(objectMapper.writeValueAsString(updatedRoomDTO)));
+
+        // then - verify the result or output using assert statements
+        response.andDo(print()).andExpect(status().isOk()).andExpect(jsonPath("$.capacity", is(50)));
+        Assert.isTrue(!eTag.equals(response.andReturn().getResponse().getHeader("ETag")));
+    }
+
+    @Test
+    @WithMockUser(username = "admin", roles = { "ADMIN" })
+    public void givenOutdatedETag_whenUpdateRoom_thenReturnPreconditionFailedAndDatabaseRemainsSame()
+            throws Exception {
+
+        // given - precondition or setup
+        Room newRoom = roomRepository.saveAndFlush(modelMapper.map(createValidRoomDTO(), Room.class));
+        String eTag = mockMvc.perform(get("/meeting-rooms/{id}", newRoom.getId())).andReturn().getResponse()
+                .getHeader("ETag");
+        mockMvc.perform(put("/meeting-rooms/{id}", newRoom.getId()).contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(createValidRoomDTO2())));
+        RoomDTO updatedRoomDTO = createValidRoomDTO();
+        updatedRoomDTO.setCapacity(50);
+
+        // when - action or behavior we are going to test
+        ResultActions response = mockMvc.perform(put("/meeting-rooms/{id}", newRoom.getId())
+                .contentType(MediaType.APPLICATION_JSON).header("If-Match", eTag)
+                .content(objectMapper.writeValueAsString(updatedRoomDTO)));
+
+        // then - verify the result or output using assert statements
+        response.andDo(print()).andExpect(status().isPreconditionFailed());
+        Room room = roomRepository.findById(newRoom.getId()).get();
+        Assert.isTrue(room.getName().equals("Room 2"));
+    }
+
     private RoomDTO createValidRoomDTO() {
         RoomDTO roomDTO = new RoomDTO();
         roomDTO.setName("Room 1");
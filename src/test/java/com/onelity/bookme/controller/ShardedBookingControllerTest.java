@@ -0,0 +1,161 @@
+package com.onelity.bookme.controller;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.onelity.bookme.dto.BookingDTO;
+import com.onelity.bookme.dto.RoomDTO;
+import com.onelity.bookme.exception.RejectionException;
+import com.onelity.bookme.health.ConnectionPoolHealthIndicator;
+import com.onelity.bookme.repository.RoomNameRepository;
+import com.onelity.bookme.repository.RoomRepository;
+import com.onelity.bookme.sharding.Shards;
+import java.sql.Date;
+import java.sql.Time;
+import java.util.Map;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.modelmapper.internal.util.Assert;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultActions;
+
+// Needs the local Bookme-thessaloniki and Bookme-cologne databases next to Bookme-db; run with -Psharding
+@Tag("sharding")
+@SpringBootTest(properties = "bookme.sharding.enabled=true")
+@AutoConfigureMockMvc
+public class ShardedBookingControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private RoomRepository roomRepository;
+
+    @Autowired
+    private RoomNameRepository roomNameRepository;
+
+    @Autowired
+    private Shards shards;
+
+    @Autowired
+    private ConnectionPoolHealthIndicator connectionPoolHealthIndicator;
+
+    @AfterEach
+    void teardown() {
+        shards.forEach(() -> {
+            roomRepository.deleteAll();
+            return null;
+        });
+        roomNameRepository.deleteAll();
+    }
+
+    @Test
+    @WithMockUser(username = "admin", roles = { "ADMIN" })
+    public void givenRoomInSecondLocation_whenCreateBooking_thenStoreItInDatabaseOfThatLocation() throws Exception {
+        // given
+        RoomDTO room = createRoom("Sharded room", "Cologne");
+        BookingDTO bookingDTO = new BookingDTO(null, room.getName(), "Booking", "Description",
+                Date.valueOf("2030-01-01"), Date.valueOf("2030-01-01"), Time.valueOf("09:00:00"),
+                Time.valueOf("10:00:00"), 10, null);
+        // when
+        ResultActions response = mockMvc.perform(post("/bookings").contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(bookingDTO)));
+        ResultActions mine = mockMvc.perform(get("/bookings").param("creator", "me"));
+        // then
+        response.andDo(print()).andExpect(status().isCreated());
+        Long id = objectMapper.readValue(response.andReturn().getResponse().getContentAsString(), BookingDTO.class)
+                .getId();
+        Assert.isTrue("Cologne".equals(shards.locationOfId(room.getId())), "room %s not in Cologne", room.getId());
+        Assert.isTrue("Cologne".equals(shards.locationOfId(id)), "booking %s not in Cologne", id);
+        mine.andExpect(status().isOk()).andExpect(jsonPath("$.size()", is(1)))
+                .andExpect(jsonPath("$[0].id", is(id)));
+    }
+
+    @Test
+    @WithMockUser(username = "admin", roles = { "ADMIN" })
+    public void givenRoomNameTakenInOtherLocation_whenCreateRoom_thenReturnNameTaken() throws Exception {
+        // given
+        createRoom("Shared name", "Thessaloniki");
+        RoomDTO roomDTO = roomDTO("Shared name", "Cologne");
+        // when
+        ResultActions response = mockMvc.perform(post("/meeting-rooms").contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(roomDTO)));
+        // then
+        response.andDo(print()).andExpect(status().isBadRequest())
+                .andExpect(header().string(RejectionException.CODE_HEADER, "name_taken"));
+        Assert.isTrue(shards.on("Cologne", () -> roomRepository.findByName("Shared name")) == null);
+    }
+
+    @Test
+    @WithMockUser(username = "admin", roles = { "ADMIN" })
+    public void givenRenamedRoom_whenCreateRoomWithPreviousNameInOtherLocation_thenCreateIt() throws Exception {
+        // given
+        RoomDTO room = createRoom("Old name", "Thessaloniki");
+        room.setName("New name");
+        mockMvc.perform(put("/meeting-rooms/{id}", room.getId()).contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(room))).andExpect(status().isOk());
+        // when
+        ResultActions response = mockMvc.perform(post("/meeting-rooms").contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(roomDTO("Old name", "Cologne"))));
+        // then
+        response.andDo(print()).andExpect(status().isCreated());
+        Assert.isTrue("Thessaloniki".equals(roomNameRepository.findById("New name").get().getLocation()));
+        Assert.isTrue("Cologne".equals(roomNameRepository.findById("Old name").get().getLocation()));
+    }
+
+    @Test
+    @WithMockUser(username = "user")
+    public void givenShardedBookings_whenGetReactiveBookings_thenReturnNotSharded() throws Exception {
+        // when
+        MvcResult result = mockMvc.perform(get("/reactive/bookings")).andExpect(request().asyncStarted())
+                .andReturn();
+        // then
+        mockMvc.perform(asyncDispatch(result)).andDo(print()).andExpect(status().isBadRequest())
+                .andExpect(header().string(RejectionException.CODE_HEADER, "reactive_not_sharded"));
+    }
+
+    @Test
+    @WithMockUser(username = "admin", roles = { "ADMIN" })
+    public void givenRoomInSecondLocation_whenCheckConnectionPools_thenReportPoolOfThatLocation() throws Exception {
+        // given
+        createRoom("Watched room", "Cologne");
+        // when
+        Health health = connectionPoolHealthIndicator.health();
+        // then
+        Assert.isTrue(health.getDetails().get("default") instanceof Map, "default pool not reported: %s", health);
+        Assert.isTrue(health.getDetails().get("Cologne") instanceof Map, "Cologne pool not reported: %s", health);
+    }
+
+    private RoomDTO createRoom(String name, String location) throws Exception {
+        String created = mockMvc
+                .perform(post("/meeting-rooms").contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(roomDTO(name, location))))
+                .andExpect(status().isCreated()).andReturn().getResponse().getContentAsString();
+        return objectMapper.readValue(created, RoomDTO.class);
+    }
+
+    private static RoomDTO roomDTO(String name, String location) {
+        RoomDTO roomDTO = new RoomDTO();
+        roomDTO.setName(name);
+        roomDTO.setLocation(location);
+        roomDTO.setCapacity(100);
+        return roomDTO;
+    }
+}
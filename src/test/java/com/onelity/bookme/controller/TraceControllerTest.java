@@ -0,0 +1,63 @@
+package com.onelity.bookme.controller;
+
+import static org.hamcrest.CoreMatchers.hasItem;
+import static org.hamcrest.CoreMatchers.is;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import com.onelity.bookme.tracing.TraceIdHeaderFilter;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.modelmapper.internal.util.Assert;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+@SpringBootTest(properties = { "bookme.tracing.exporter=memory", "management.tracing.sampling.probability=1.0" })
+@AutoConfigureMockMvc
+@AutoConfigureObservability
+public class TraceControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private SdkTracerProvider sdkTracerProvider;
+
+    @Test
+    @WithMockUser(username = "admin", roles = { "ADMIN" })
+    public void givenTracedRequest_whenGetTrace_thenReturnSpansOfThatRequest() throws Exception {
+
+        // given - precondition or setup
+        String traceId = mockMvc.perform(get("/admin/recordings")).andExpect(status().isOk()).andReturn()
+                .getResponse().getHeader(TraceIdHeaderFilter.TRACE_ID_HEADER);
+        Assert.isTrue(traceId != null, "response has no trace id");
+        // Spans are exported in batches, so hand over the finished ones before looking them up
+        sdkTracerProvider.forceFlush().join(10, TimeUnit.SECONDS);
+
+        // when - action or behavior we are going to test, then - verify the result
+        mockMvc.perform(get("/admin/traces/" + traceId)).andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].traceId", is(traceId)))
+                .andExpect(jsonPath("$[*].name", hasItem("http get /admin/recordings")));
+    }
+
+    @Test
+    @WithMockUser(username = "admin", roles = { "ADMIN" })
+    public void givenUnknownTraceId_whenGetTrace_thenReturnNotFound() throws Exception {
+
+        // when - action or behavior we are going to test, then - verify the result
+        mockMvc.perform(get("/admin/traces/00000000000000000000000000000001")).andExpect(status().isNotFound());
+    }
+
+    @Test
+    @WithMockUser(username = "user", roles = { "EMPLOYEE" })
+    public void givenEmployee_whenGetTrace_thenReturnUnauthorized() throws Exception {
+
+        // when - action or behavior we are going to test, then - verify the result
+        mockMvc.perform(get("/admin/traces/00000000000000000000000000000001")).andExpect(status().isUnauthorized());
+    }
+}
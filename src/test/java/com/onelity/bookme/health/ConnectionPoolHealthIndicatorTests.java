@@ -0,0 +1,114 @@
+package com.onelity.bookme.health;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.Status;
+
+public class ConnectionPoolHealthIndicatorTests {
+
+    @Test
+    public void givenPoolWithFreeConnections_whenHealth_thenReportUp() {
+        // given - precondition or setup
+        ConnectionPoolHealthIndicator indicator = new ConnectionPoolHealthIndicator(
+                Map.of("default", new StubPool(10, 4, 0)), 0);
+        // when - action or behaviour that we are going to test
+        Health health = indicator.health();
+        // then - verify the output
+        assertEquals(Status.UP, health.getStatus());
+        assertEquals(Map.of("active", 4, "idle", 6, "pending", 0, "max", 10), health.getDetails().get("default"));
+    }
+
+    @Test
+    public void givenPoolWithAllConnectionsInUseAndThreadsWaiting_whenHealth_thenReportOutOfService() {
+        // given - precondition or setup
+        ConnectionPoolHealthIndicator indicator = new ConnectionPoolHealthIndicator(
+                Map.of("default", new StubPool(10, 10, 3)), 0);
+        // when - action or behaviour that we are going to test
+        Health health = indicator.health();
+        // then - verify the output
+        assertEquals(Status.OUT_OF_SERVICE, health.getStatus());
+    }
+
+    @Test
+    public void givenAllConnectionsInUseAndFewerWaitingThanMaxPending_whenHealth_thenReportUp() {
+        // given - precondition or setup
+        ConnectionPoolHealthIndicator indicator = new ConnectionPoolHealthIndicator(
+                Map.of("default", new StubPool(10, 10, 3)), 5);
+        // when - action or behaviour that we are going to test
+        Health health = indicator.health();
+        // then - verify the output
+        assertEquals(Status.UP, health.getStatus());
+    }
+
+    @Test
+    public void givenSaturatedShardPool_whenHealth_thenReportOutOfService() {
+        // given - precondition or setup
+        Map<String, HikariDataSource> pools = new LinkedHashMap<>();
+        pools.put("default", new StubPool(10, 1, 0));
+        pools.put("Cologne", new StubPool(10, 10, 1));
+        ConnectionPoolHealthIndicator indicator = new ConnectionPoolHealthIndicator(pools, 0);
+        // when - action or behaviour that we are going to test
+        Health health = indicator.health();
+        // then - verify the output
+        assertEquals(Status.OUT_OF_SERVICE, health.getStatus());
+        assertEquals(2, health.getDetails().size());
+    }
+
+    /**
+     * Pool which reports fixed connection counts instead of opening connections
+     */
+    private static final class StubPool extends HikariDataSource {
+
+        private final int active;
+        private final int pending;
+
+        private StubPool(int max, int active, int pending) {
+            setMaximumPoolSize(max);
+            this.active = active;
+            this.pending = pending;
+        }
+
+        @Override
+        public HikariPoolMXBean getHikariPoolMXBean() {
+            return new HikariPoolMXBean() {
+                @Override
+                public int getIdleConnections() {
+                    return getMaximumPoolSize() - active;
+                }
+
+                @Override
+                public int getActiveConnections() {
+                    return active;
+                }
+
+                @Override
+                public int getTotalConnections() {
+                    return getMaximumPoolSize();
+                }
+
+                @Override
+                public int getThreadsAwaitingConnection() {
+                    return pending;
+                }
+
+                @Override
+                public void softEvictConnections() {
+                }
+
+                @Override
+                public void suspendPool() {
+                }
+
+                @Override
+                public void resumePool() {
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.onelity.bookme.logging;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import java.lang.reflect.Proxy;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.Duration;
+import java.util.List;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.MethodExecutionContext;
+import net.ttddyy.dsproxy.proxy.ParameterSetOperation;
+import net.ttddyy.dsproxy.proxy.ProxyJdbcObject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.modelmapper.internal.util.Assert;
+import org.slf4j.LoggerFactory;
+
+public class SlowQueryLogListenerTests {
+
+    private static final String SQL = "SELECT * FROM bookings WHERE room = ? AND title = ?";
+
+    private final Logger logger = (Logger) LoggerFactory.getLogger("com.onelity.bookme.sql");
+    private final ListAppender<ILoggingEvent> appender = new ListAppender<>();
+
+    @BeforeEach
+    void setup() {
+        appender.start();
+        logger.addAppender(appender);
+    }
+
+    @AfterEach
+    void teardown() {
+        logger.detachAppender(appender);
+    }
+
+    @Test
+    public void givenStatementAboveThreshold_whenAfterQuery_thenLogSlowQuery() throws Exception {
+        // given - precondition or setup
+        SlowQueryLogListener listener = new SlowQueryLogListener(Duration.ofMillis(300), 0.0);
+        // when - action or behaviour that we are going to test
+        listener.afterQuery(execution(300, 2), queries());
+        // then - verify the output
+        assertEquals(1, appender.list.size());
+        ILoggingEvent event = appender.list.get(0);
+        assertEquals(Level.WARN, event.getLevel());
+        Assert.isTrue(event.getFormattedMessage().contains("elapsed_ms=300"), event.getFormattedMessage());
+        Assert.isTrue(event.getFormattedMessage().contains("rows=2"), event.getFormattedMessage());
+    }
+
+    @Test
+    public void givenStatementBelowThresholdAndNoSampling_whenAfterQuery_thenLogNothing() throws Exception {
+        // given - precondition or setup
+        SlowQueryLogListener listener = new SlowQueryLogListener(Duration.ofMillis(300), 0.0);
+        // when - action or behaviour that we are going to test
+        listener.afterQuery(execution(299, 2), queries());
+        // then - verify the output
+        assertEquals(0, appender.list.size());
+    }
+
+    @Test
+    public void givenSampleRateOfOne_whenAfterQueryBelowThreshold_thenLogSampledQuery() throws Exception {
+        // given - precondition or setup
+        SlowQueryLogListener listener = new SlowQueryLogListener(Duration.ofMillis(300), 1.0);
+        // when - action or behaviour that we are going to test
+        listener.afterQuery(execution(5, 2), queries());
+        // then - verify the output
+        assertEquals(1, appender.list.size());
+        assertEquals(Level.INFO, appender.list.get(0).getLevel());
+        Assert.isTrue(appender.list.get(0).getFormattedMessage().startsWith("sampled query"));
+    }
+
+    @Test
+    public void givenBoundParameters_whenAfterQuery_thenLogOnlyTheirTypes() throws Exception {
+        // given - precondition or setup
+        SlowQueryLogListener listener = new SlowQueryLogListener(Duration.ZERO, 0.0);
+        // when - action or behaviour that we are going to test
+        listener.afterQuery(execution(1, 1), queries());
+        // then - verify the output
+        String message = appender.list.get(0).getFormattedMessage();
+        Assert.isTrue(message.contains("parameter_types=[Long, String]"), message);
+        Assert.isTrue(!message.contains("secret title") && !message.contains("4711"), message);
+    }
+
+    @Test
+    public void givenSlowSelect_whenResultSetReadAndClosed_thenLogRowsRead() throws Exception {
+        // given - precondition or setup
+        SlowQueryLogListener listener = new SlowQueryLogListener(Duration.ZERO, 0.0);
+        ResultSet resultSet = (ResultSet) resultSet(null, ResultSet.class);
+        ExecutionInfo execution = execution(1, resultSet(resultSet, ResultSet.class, ProxyJdbcObject.class));
+        // when - action or behaviour that we are going to test
+        listener.afterQuery(execution, queries());
+        assertEquals(0, appender.list.size());
+        listener.afterMethod(call(resultSet, "next", true));
+        listener.afterMethod(call(resultSet, "next", true));
+        listener.afterMethod(call(resultSet, "next", true));
+        listener.afterMethod(call(resultSet, "next", false));
+        listener.afterMethod(call(resultSet, "close", null));
+        // then - verify the output
+        assertEquals(1, appender.list.size());
+        String message = appender.list.get(0).getFormattedMessage();
+        Assert.isTrue(message.contains("rows=3"), message);
+    }
+
+    private static ExecutionInfo execution(long elapsed, Object result) {
+        ExecutionInfo execution = new ExecutionInfo();
+        execution.setElapsedTime(elapsed);
+        execution.setResult(result);
+        execution.setSuccess(true);
+        return execution;
+    }
+
+    private static List<QueryInfo> queries() throws NoSuchMethodException {
+        QueryInfo query = new QueryInfo(SQL);
+        query.getParametersList().add(List.of(
+                new ParameterSetOperation(PreparedStatement.class.getMethod("setLong", int.class, long.class),
+                        new Object[] { 1, 4711L }),
+                new ParameterSetOperation(PreparedStatement.class.getMethod("setString", int.class, String.class),
+                        new Object[] { 2, "secret title" })));
+        return List.of(query);
+    }
+
+    /**
+     * Creates a result set whose methods do nothing, and which is a proxy of target if ProxyJdbcObject is given
+     */
+    private static Object resultSet(ResultSet target, Class<?>... interfaces) {
+        return Proxy.newProxyInstance(SlowQueryLogListenerTests.class.getClassLoader(), interfaces,
+                (proxy, method, args) -> switch (method.getName()) {
+                case "hashCode" -> System.identityHashCode(proxy);
+                case "equals" -> proxy == args[0];
+                case "getTarget" -> target;
+                default -> null;
+                });
+    }
+
+    private static MethodExecutionContext call(ResultSet target, String method, Object result) throws Exception {
+        MethodExecutionContext context = new MethodExecutionContext();
+        context.setTarget(target);
+        context.setMethod(method.equals("next") ? ResultSet.class.getMethod("next")
+                : ResultSet.class.getMethod("close"));
+        context.setResult(result);
+        return context;
+    }
+}